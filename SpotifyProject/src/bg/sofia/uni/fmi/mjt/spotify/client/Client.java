@@ -1,15 +1,25 @@
 package bg.sofia.uni.fmi.mjt.spotify.client;
 
+import bg.sofia.uni.fmi.mjt.spotify.codec.LosslessDecoder;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.FrameType;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Protocol;
+
 import javax.sound.sampled.*;
 import java.io.*;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Scanner;
 
 public class Client {
     private static final String SERVER_HOST = "localhost";
     private static final int SERVER_PORT = 6600;
+    private static final String DISCONNECTED = "You have successfully disconnected!";
 
-    private boolean isPlaying;
+    private volatile boolean isPlaying;
+    private volatile SourceDataLine dataLine;
+    private LosslessDecoder decoder;
+    private byte[] payload = new byte[0];
 
 
     public static void main(String[] args) {
@@ -19,15 +29,17 @@ public class Client {
 
     public void start() {
         try (Socket socketChannel = new Socket(SERVER_HOST, SERVER_PORT);
-             InputStream serverInputStream = socketChannel.getInputStream();
-             BufferedReader serverInputReader = new BufferedReader(new InputStreamReader(serverInputStream));
+             DataInputStream serverInputStream = new DataInputStream(
+                     new BufferedInputStream(socketChannel.getInputStream()));
              PrintWriter serverOutputWriter = new PrintWriter(socketChannel.getOutputStream(), true);
              Scanner scanner = new Scanner(System.in)) {
 
             System.out.println("Connected to the server.");
+            serverOutputWriter.println(Protocol.NEGOTIATION_COMMAND + " " + Protocol.FRAMED_VERSION + " " +
+                    Protocol.COMPRESSION_OPTION);
 
             new Thread(() -> sendMessages(serverOutputWriter, scanner)).start();
-            receiveMessages(serverInputStream, serverInputReader);
+            receiveMessages(serverInputStream);
         } catch (IOException e) {
             System.out.println("Unable to connect to the server. Please try again later.");
         } catch (LineUnavailableException e) {
@@ -35,23 +47,51 @@ public class Client {
         }
     }
 
-    private void receiveMessages(InputStream serverInputStream, BufferedReader reader) throws IOException, LineUnavailableException {
+    private void receiveMessages(DataInputStream serverInputStream) throws IOException, LineUnavailableException {
         while (true) {
-            String message = reader.readLine();
-
-            if (message.split(",")[0].equals("format")) {
-                isPlaying = true;
-                playSong(serverInputStream, SongFormat.of(message));
-                getRidOfTheStayedGibberish(reader);
-            }
-
-            System.out.println(message);
-
-            if (message.equals("You have successfully disconnected!")) {
-                break;
+            FrameType frameType = FrameType.of(serverInputStream.readByte());
+            int payloadSize = readPayload(serverInputStream);
+
+            switch (frameType) {
+                case CONTROL -> {
+                    String message = new String(payload, 0, payloadSize, StandardCharsets.UTF_8);
+                    System.out.print(message);
+                    if (message.strip().equals(DISCONNECTED)) {
+                        return;
+                    }
+                }
+                case FORMAT -> {
+                    isPlaying = true;
+                    SongFormat songFormat = SongFormat.of(new String(payload, 0, payloadSize, StandardCharsets.UTF_8));
+                    decoder = new LosslessDecoder(songFormat.channels(), songFormat.bigEndian());
+                    dataLine = openDataLine(songFormat);
+                }
+                case AUDIO -> {
+                    if (isPlaying && dataLine != null) {
+                        dataLine.write(payload, 0, payloadSize);
+                    }
+                }
+                case COMPRESSED_AUDIO -> {
+                    if (isPlaying && dataLine != null) {
+                        ByteBuffer pcm = decoder.decode(ByteBuffer.wrap(payload, 0, payloadSize));
+                        dataLine.write(pcm.array(), 0, pcm.limit());
+                    }
+                }
+                case END_OF_STREAM -> {
+                    closeDataLine();
+                    System.out.println("Stop song");
+                }
             }
+        }
+    }
 
+    private int readPayload(DataInputStream serverInputStream) throws IOException {
+        int payloadSize = serverInputStream.readInt();
+        if (payload.length < payloadSize) {
+            payload = new byte[payloadSize];
         }
+        serverInputStream.readFully(payload, 0, payloadSize);
+        return payloadSize;
     }
 
     private void sendMessages(PrintWriter writer, Scanner scanner) {
@@ -63,6 +103,9 @@ public class Client {
             if (message.equals("stop")) {
                 isPlaying = false;
             }
+            if (message.startsWith("seek ")) {
+                flushDataLine();
+            }
 
             if (message.equalsIgnoreCase("disconnect")) {
                 break;
@@ -70,35 +113,36 @@ public class Client {
         }
     }
 
-    private void playSong(InputStream serverInputStream, SongFormat songFormat) throws LineUnavailableException, IOException {
+    private SourceDataLine openDataLine(SongFormat songFormat) throws LineUnavailableException {
         AudioFormat format = new AudioFormat(songFormat.encoding(), songFormat.sampleRate(), songFormat.sampleSizeInBits(),
                 songFormat.channels(), songFormat.frameSize(), songFormat.frameRate(), songFormat.bigEndian());
         DataLine.Info info = new DataLine.Info(SourceDataLine.class, format);
 
-        SourceDataLine dataLine = (SourceDataLine) AudioSystem.getLine(info);
-        dataLine.open();
-        dataLine.start();
-        byte[] bytesBuffer = new byte[songFormat.frameSize()];
-        long size = songFormat.frameLength();
-        long countFrames = 0;
-        int bytesRead = -1;
-
-        while (isPlaying && countFrames < size) {
-            bytesRead = serverInputStream.read(bytesBuffer);
-            dataLine.write(bytesBuffer, 0, bytesRead);
-            System.out.println(bytesRead);
-            countFrames++;
+        SourceDataLine line = (SourceDataLine) AudioSystem.getLine(info);
+        line.open(format);
+        line.start();
+        return line;
+    }
+
+    private void flushDataLine() {
+        SourceDataLine line = dataLine;
+        if (line != null) {
+            line.flush();
         }
-        dataLine.flush();
-        dataLine.drain();
-        dataLine.close();
     }
 
-    private void getRidOfTheStayedGibberish(BufferedReader reader) throws IOException {
-        String message = reader.readLine();
-        while (!message.contains("Stop song")) {
-            message = reader.readLine();
+    private void closeDataLine() {
+        if (dataLine == null) {
+            return;
+        }
+        if (isPlaying) {
+            dataLine.drain();
+        } else {
+            dataLine.flush();
         }
+        dataLine.close();
+        dataLine = null;
+        isPlaying = false;
     }
 
-}
\ No newline at end of file
+}
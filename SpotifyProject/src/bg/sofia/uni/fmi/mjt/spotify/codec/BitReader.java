@@ -0,0 +1,34 @@
+package bg.sofia.uni.fmi.mjt.spotify.codec;
+
+import java.nio.ByteBuffer;
+
+final class BitReader {
+    private static final int BITS_IN_BYTE = 8;
+
+    private final ByteBuffer input;
+    private long bits;
+    private int bitsCount;
+
+    BitReader(ByteBuffer input) {
+        this.input = input;
+    }
+
+    long read(int count) {
+        while (bitsCount < count) {
+            bits = (bits << BITS_IN_BYTE) | (input.get() & 0xFF);
+            bitsCount += BITS_IN_BYTE;
+        }
+        bitsCount -= count;
+        long value = (bits >>> bitsCount) & ((1L << count) - 1);
+        bits &= (1L << bitsCount) - 1;
+        return value;
+    }
+
+    int readOnes(int limit) {
+        int count = 0;
+        while (count < limit && read(1) == 1) {
+            count++;
+        }
+        return count;
+    }
+}
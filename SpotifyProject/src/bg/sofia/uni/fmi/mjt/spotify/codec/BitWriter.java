@@ -0,0 +1,37 @@
+package bg.sofia.uni.fmi.mjt.spotify.codec;
+
+import java.nio.ByteBuffer;
+
+final class BitWriter {
+    private static final int BITS_IN_BYTE = 8;
+
+    private final ByteBuffer output;
+    private long bits;
+    private int bitsCount;
+
+    BitWriter(ByteBuffer output) {
+        this.output = output;
+    }
+
+    void write(long value, int count) {
+        bits = (bits << count) | (value & ((1L << count) - 1));
+        bitsCount += count;
+        while (bitsCount >= BITS_IN_BYTE) {
+            bitsCount -= BITS_IN_BYTE;
+            output.put((byte) (bits >>> bitsCount));
+        }
+        bits &= (1L << bitsCount) - 1;
+    }
+
+    void writeOnes(int count) {
+        write((1L << count) - 1, count);
+    }
+
+    void flush() {
+        if (bitsCount > 0) {
+            output.put((byte) (bits << (BITS_IN_BYTE - bitsCount)));
+            bits = 0;
+            bitsCount = 0;
+        }
+    }
+}
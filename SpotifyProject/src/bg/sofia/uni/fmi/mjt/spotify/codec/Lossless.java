@@ -0,0 +1,32 @@
+package bg.sofia.uni.fmi.mjt.spotify.codec;
+
+final class Lossless {
+    static final byte VERBATIM_BLOCK = 0;
+    static final byte RICE_BLOCK = 1;
+    static final int SAMPLE_SIZE_IN_BITS = 16;
+    static final int BYTES_PER_SAMPLE = 2;
+    static final int ESCAPE_QUOTIENT = 24;
+    static final int ESCAPE_BITS = 32;
+    static final int MAX_RICE_PARAMETER = 30;
+
+    private Lossless() {
+    }
+
+    static int predict(int[] samples, int index) {
+        if (index == 0) {
+            return 0;
+        }
+        if (index == 1) {
+            return samples[0];
+        }
+        return 2 * samples[index - 1] - samples[index - 2];
+    }
+
+    static int toUnsigned(int residual) {
+        return (residual << 1) ^ (residual >> 31);
+    }
+
+    static int toSigned(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
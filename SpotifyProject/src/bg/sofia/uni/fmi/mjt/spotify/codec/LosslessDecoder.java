@@ -0,0 +1,61 @@
+package bg.sofia.uni.fmi.mjt.spotify.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class LosslessDecoder {
+    private final int channels;
+    private final ByteOrder byteOrder;
+    private int[] samples = new int[0];
+    private ByteBuffer pcm = ByteBuffer.allocate(0);
+
+    public LosslessDecoder(int channels, boolean isBigEndian) {
+        this.channels = channels;
+        this.byteOrder = isBigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    public ByteBuffer decode(ByteBuffer block) {
+        byte blockType = block.get();
+        if (blockType == Lossless.VERBATIM_BLOCK) {
+            return ensureCapacity(block.remaining()).put(block).flip();
+        }
+        if (blockType != Lossless.RICE_BLOCK) {
+            throw new IllegalArgumentException("Unknown block type " + blockType);
+        }
+
+        int framesCount = block.getInt();
+        int[] riceParameters = new int[channels];
+        for (int channel = 0; channel < channels; channel++) {
+            riceParameters[channel] = block.get();
+        }
+
+        ByteBuffer output = ensureCapacity(framesCount * channels * Lossless.BYTES_PER_SAMPLE);
+        if (samples.length < framesCount) {
+            samples = new int[framesCount];
+        }
+        BitReader reader = new BitReader(block);
+        for (int channel = 0; channel < channels; channel++) {
+            for (int i = 0; i < framesCount; i++) {
+                int residual = Lossless.toSigned(readRice(reader, riceParameters[channel]));
+                samples[i] = residual + Lossless.predict(samples, i);
+                output.putShort((channel + i * channels) * Lossless.BYTES_PER_SAMPLE, (short) samples[i]);
+            }
+        }
+        return output.limit(framesCount * channels * Lossless.BYTES_PER_SAMPLE);
+    }
+
+    private int readRice(BitReader reader, int riceParameter) {
+        int quotient = reader.readOnes(Lossless.ESCAPE_QUOTIENT);
+        if (quotient == Lossless.ESCAPE_QUOTIENT) {
+            return (int) reader.read(Lossless.ESCAPE_BITS);
+        }
+        return (quotient << riceParameter) | (int) reader.read(riceParameter);
+    }
+
+    private ByteBuffer ensureCapacity(int size) {
+        if (pcm.capacity() < size) {
+            pcm = ByteBuffer.allocate(size).order(byteOrder);
+        }
+        return pcm.clear();
+    }
+}
@@ -0,0 +1,96 @@
+package bg.sofia.uni.fmi.mjt.spotify.codec;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class LosslessEncoder {
+    private static final int BLOCK_HEADER_SIZE = Byte.BYTES + Integer.BYTES;
+
+    private final int channels;
+    private final boolean isEncodable;
+    private final ByteOrder byteOrder;
+    private int[][] samples = new int[0][];
+
+    public LosslessEncoder(int channels, int sampleSizeInBits, boolean isSigned, boolean isBigEndian) {
+        this.channels = channels;
+        this.isEncodable = channels > 0 && isSigned && sampleSizeInBits == Lossless.SAMPLE_SIZE_IN_BITS;
+        this.byteOrder = isBigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    public int getMaxEncodedSize(int pcmLength) {
+        return Math.max(Byte.BYTES + pcmLength, BLOCK_HEADER_SIZE + channels);
+    }
+
+    public void encode(ByteBuffer pcm, ByteBuffer output) {
+        int start = output.position();
+        int frameSize = channels * Lossless.BYTES_PER_SAMPLE;
+        if (isEncodable && pcm.remaining() % frameSize == 0) {
+            try {
+                encodeRice(pcm, output, pcm.remaining() / frameSize);
+                if (output.position() - start < Byte.BYTES + pcm.remaining()) {
+                    pcm.position(pcm.limit());
+                    return;
+                }
+            } catch (BufferOverflowException e) {
+                // the block does not compress, it is sent verbatim below
+            }
+            output.position(start);
+        }
+        output.put(Lossless.VERBATIM_BLOCK).put(pcm);
+    }
+
+    private void encodeRice(ByteBuffer pcm, ByteBuffer output, int framesCount) {
+        readSamples(pcm.duplicate().order(byteOrder), framesCount);
+        output.put(Lossless.RICE_BLOCK).putInt(framesCount);
+
+        int[] riceParameters = new int[channels];
+        for (int channel = 0; channel < channels; channel++) {
+            riceParameters[channel] = toResiduals(samples[channel], framesCount);
+            output.put((byte) riceParameters[channel]);
+        }
+
+        BitWriter writer = new BitWriter(output);
+        for (int channel = 0; channel < channels; channel++) {
+            int[] residuals = samples[channel];
+            int riceParameter = riceParameters[channel];
+            for (int i = 0; i < framesCount; i++) {
+                writeRice(writer, residuals[i], riceParameter);
+            }
+        }
+        writer.flush();
+    }
+
+    private void readSamples(ByteBuffer pcm, int framesCount) {
+        if (samples.length != channels || samples[0].length < framesCount) {
+            samples = new int[channels][framesCount];
+        }
+        for (int i = 0; i < framesCount; i++) {
+            for (int channel = 0; channel < channels; channel++) {
+                samples[channel][i] = pcm.getShort();
+            }
+        }
+    }
+
+    private int toResiduals(int[] channelSamples, int framesCount) {
+        long sum = 0;
+        for (int i = framesCount - 1; i >= 0; i--) {
+            int residual = Lossless.toUnsigned(channelSamples[i] - Lossless.predict(channelSamples, i));
+            channelSamples[i] = residual;
+            sum += residual;
+        }
+        long mean = framesCount == 0 ? 0 : sum / framesCount;
+        return Math.min(Lossless.MAX_RICE_PARAMETER, 63 - Long.numberOfLeadingZeros(mean + 1));
+    }
+
+    private void writeRice(BitWriter writer, int value, int riceParameter) {
+        int quotient = value >>> riceParameter;
+        if (quotient >= Lossless.ESCAPE_QUOTIENT) {
+            writer.writeOnes(Lossless.ESCAPE_QUOTIENT);
+            writer.write(value, Lossless.ESCAPE_BITS);
+            return;
+        }
+        writer.write(((1L << quotient) - 1) << 1, quotient + 1);
+        writer.write(value, riceParameter);
+    }
+}
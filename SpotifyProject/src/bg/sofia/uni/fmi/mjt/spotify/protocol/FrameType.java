@@ -0,0 +1,28 @@
+package bg.sofia.uni.fmi.mjt.spotify.protocol;
+
+public enum FrameType {
+    CONTROL(1),
+    FORMAT(2),
+    AUDIO(3),
+    END_OF_STREAM(4),
+    COMPRESSED_AUDIO(5);
+
+    private final byte code;
+
+    FrameType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static FrameType of(byte code) {
+        for (FrameType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown frame type " + code);
+    }
+}
@@ -0,0 +1,12 @@
+package bg.sofia.uni.fmi.mjt.spotify.protocol;
+
+public final class Protocol {
+    public static final int TEXT_VERSION = 1;
+    public static final int FRAMED_VERSION = 2;
+    public static final String NEGOTIATION_COMMAND = "protocol";
+    public static final String COMPRESSION_OPTION = "compress";
+    public static final int FRAME_HEADER_SIZE = 5;
+
+    private Protocol() {
+    }
+}
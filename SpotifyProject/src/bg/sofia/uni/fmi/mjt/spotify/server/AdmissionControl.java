@@ -0,0 +1,174 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.exception.ServerBusyException;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongStream;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class AdmissionControl {
+    public static final int UNLIMITED = 0;
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 10_000;
+    private static final int DEFAULT_MAX_STREAMS = 2_000;
+    private static final int DEFAULT_RETRY_AFTER_SECONDS = 5;
+
+    private final int maxConnections;
+    private final int maxStreams;
+    private final long maxBandwidth;
+    private final String busyMessage;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger streams = new AtomicInteger();
+    private final AtomicLong bandwidth = new AtomicLong();
+    private final LongAdder rejectedConnections = new LongAdder();
+    private final LongAdder rejectedStreams = new LongAdder();
+
+    public AdmissionControl() {
+        this(DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_STREAMS, UNLIMITED, DEFAULT_RETRY_AFTER_SECONDS);
+    }
+
+    public AdmissionControl(int maxConnections, int maxStreams, long maxBandwidth, int retryAfterSeconds) {
+        if (maxConnections < 0 || maxStreams < 0 || maxBandwidth < 0 || retryAfterSeconds < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.maxConnections = maxConnections;
+        this.maxStreams = maxStreams;
+        this.maxBandwidth = maxBandwidth;
+        this.busyMessage = "Server busy, retry after " + retryAfterSeconds + " seconds";
+    }
+
+    public String getBusyMessage() {
+        return busyMessage;
+    }
+
+    public boolean tryAcquireConnection() {
+        if (!tryAcquire(connections, maxConnections)) {
+            rejectedConnections.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void releaseConnection() {
+        connections.decrementAndGet();
+    }
+
+    public void rejectConnection(SocketChannel channel) throws IOException {
+        try (channel) {
+            channel.write(ByteBuffer.wrap((busyMessage + System.lineSeparator()).getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    public SongStream admit(SongStream songStream) throws ServerBusyException, IOException {
+        long byteRate = songStream.getByteRate();
+        if (!tryAcquire(streams, maxStreams)) {
+            return reject(songStream);
+        }
+        if (bandwidth.addAndGet(byteRate) > maxBandwidth && maxBandwidth != UNLIMITED) {
+            bandwidth.addAndGet(-byteRate);
+            streams.decrementAndGet();
+            return reject(songStream);
+        }
+        return new AdmittedSongStream(songStream, byteRate);
+    }
+
+    public int getConnectionsCount() {
+        return connections.get();
+    }
+
+    public int getStreamsCount() {
+        return streams.get();
+    }
+
+    public long getReservedBandwidth() {
+        return bandwidth.get();
+    }
+
+    public long getRejectedConnections() {
+        return rejectedConnections.sum();
+    }
+
+    public long getRejectedStreams() {
+        return rejectedStreams.sum();
+    }
+
+    private SongStream reject(SongStream songStream) throws ServerBusyException, IOException {
+        rejectedStreams.increment();
+        songStream.close();
+        throw new ServerBusyException(busyMessage);
+    }
+
+    private static boolean tryAcquire(AtomicInteger counter, int limit) {
+        if (limit == UNLIMITED) {
+            counter.incrementAndGet();
+            return true;
+        }
+        int current;
+        do {
+            current = counter.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private class AdmittedSongStream implements SongStream {
+        private final SongStream songStream;
+        private final long byteRate;
+        private final AtomicBoolean isReleased = new AtomicBoolean();
+
+        AdmittedSongStream(SongStream songStream, long byteRate) {
+            this.songStream = songStream;
+            this.byteRate = byteRate;
+        }
+
+        @Override
+        public long getFrameLength() {
+            return songStream.getFrameLength();
+        }
+
+        @Override
+        public long getByteRate() {
+            return songStream.getByteRate();
+        }
+
+        @Override
+        public AudioFormat getFormat() {
+            return songStream.getFormat();
+        }
+
+        @Override
+        public long getPosition() {
+            return songStream.getPosition();
+        }
+
+        @Override
+        public OutboundMessage nextChunk() throws IOException {
+            return songStream.nextChunk();
+        }
+
+        @Override
+        public void seek(double seconds) throws IOException {
+            songStream.seek(seconds);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (isReleased.compareAndSet(false, true)) {
+                streams.decrementAndGet();
+                bandwidth.addAndGet(-byteRate);
+            }
+            songStream.close();
+        }
+    }
+}
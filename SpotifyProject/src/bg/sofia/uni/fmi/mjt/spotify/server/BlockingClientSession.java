@@ -0,0 +1,141 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.command.CommandParser;
+import bg.sofia.uni.fmi.mjt.spotify.server.command.ParsedCommand;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+
+class BlockingClientSession extends ClientSession implements Runnable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final SocketChannel clientChannel;
+    private final Executor executor;
+    private final CommandParser commandParser = new CommandParser();
+    private final Object writeLock = new Object();
+
+    private volatile Thread streamingThread;
+
+    BlockingClientSession(SessionContext context, SocketChannel clientChannel, Executor executor) {
+        super(context, System.nanoTime());
+        this.clientChannel = clientChannel;
+        this.executor = executor;
+    }
+
+    @Override
+    public void run() {
+        ByteBuffer buffer = getContext().getBufferPool().lease(BUFFER_SIZE);
+        try (clientChannel) {
+            executor.execute(this::streamAudio);
+            while (clientChannel.read(buffer.clear()) >= 0) {
+                buffer.flip();
+                onRead(System.nanoTime());
+                getLineFramer().append(buffer, this::processCommand);
+            }
+        } catch (IOException e) {
+            if (!isClosed()) {
+                logError(e, "Error occurred while processing client request.");
+            }
+        } finally {
+            close();
+            getContext().getStorage().detach(this);
+            getContext().getBufferPool().release(buffer);
+        }
+    }
+
+    @Override
+    void requestClose() {
+        try {
+            clientChannel.close();
+        } catch (IOException e) {
+            logError(e, "Error occurred while closing a client connection.");
+        }
+        close();
+    }
+
+    @Override
+    void send(OutboundMessage message) throws IOException {
+        synchronized (writeLock) {
+            write(message);
+        }
+    }
+
+    @Override
+    void discardAudio() {
+    }
+
+    @Override
+    void startAudio() {
+        wakeAudio();
+    }
+
+    @Override
+    void wakeAudio() {
+        Thread thread = streamingThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    boolean close() {
+        if (!super.close()) {
+            return false;
+        }
+        wakeAudio();
+        return true;
+    }
+
+    private void processCommand(ByteBuffer clientInput) throws IOException {
+        ParsedCommand command = commandParser.parse(clientInput);
+        if (!negotiateProtocol(command)) {
+            executeCommand(command);
+        }
+    }
+
+    private void streamAudio() {
+        streamingThread = Thread.currentThread();
+        try {
+            while (!isClosed()) {
+                long delayNanos = getSongDelayNanos(System.nanoTime());
+                if (delayNanos > 0) {
+                    LockSupport.parkNanos(this, delayNanos);
+                } else if (!sendNextAudio(delayNanos == NO_SONG)) {
+                    LockSupport.park(this);
+                }
+            }
+        } catch (IOException e) {
+            if (!isClosed()) {
+                logError(e, "An error occurred while streaming to the client");
+                requestClose();
+            }
+        }
+    }
+
+    private boolean sendNextAudio(boolean isRadio) throws IOException {
+        synchronized (writeLock) {
+            OutboundMessage message = isRadio ? nextRadioMessage() : nextSongMessage();
+            if (message == null) {
+                return false;
+            }
+            write(message);
+            return true;
+        }
+    }
+
+    private void write(OutboundMessage message) throws IOException {
+        try {
+            while (message.remaining() > 0) {
+                onWrite(false, false, System.nanoTime());
+                message.writeTo(clientChannel);
+                onWrite(true, message.remaining() == 0, System.nanoTime());
+            }
+        } finally {
+            message.release();
+        }
+    }
+}
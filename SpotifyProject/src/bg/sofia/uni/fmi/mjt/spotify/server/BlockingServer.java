@@ -0,0 +1,168 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.command.CommandExecutor;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferPool;
+import bg.sofia.uni.fmi.mjt.spotify.server.radio.Radio;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongCache;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongPacker;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongStreamFactory;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.StreamPacing;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class BlockingServer {
+    private static final String HOST = "localhost";
+    private static final long SONG_CACHE_SIZE = 256L * 1024 * 1024;
+    private static final int MAX_POOLED_BUFFERS_PER_SIZE = 4096;
+    private static final String SONG_REPOSITORY = "songRepository";
+    private static final String directory = "repository";
+    private static final String accountsFile = "accounts.txt";
+    private static final String songsFile = "songs.txt";
+    private static final String logFile = "logs.txt";
+    private static final long SESSION_EXPIRY_PERIOD_SECONDS = 1;
+    private static final long TIMEOUT_CHECK_PERIOD_MILLIS = 250;
+
+    private final Storage storage = new Storage(directory, accountsFile, songsFile, logFile);
+    private final BufferPool bufferPool = new BufferPool(MAX_POOLED_BUFFERS_PER_SIZE);
+    private final SongStreamFactory songStreamFactory;
+    private final SongPacker songPacker;
+    private final Radio radio;
+    private final AdmissionControl admissionControl;
+    private final ConnectionTimeouts timeouts;
+    private final SessionContext context;
+    private final Set<BlockingClientSession> sessions = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService sessionExpiry = Server.newSessionExpiry();
+
+    private final int port;
+    private volatile boolean isServerWorking;
+    private volatile ServerSocketChannel serverSocketChannel;
+
+    public BlockingServer(int port) {
+        this(port, StreamPacing.DEFAULT);
+    }
+
+    public BlockingServer(int port, StreamPacing pacing) {
+        this(port, pacing, new AdmissionControl());
+    }
+
+    public BlockingServer(int port, StreamPacing pacing, AdmissionControl admissionControl) {
+        this(port, pacing, admissionControl, ConnectionTimeouts.DEFAULT);
+    }
+
+    public BlockingServer(int port, StreamPacing pacing, AdmissionControl admissionControl,
+                          ConnectionTimeouts timeouts) {
+        this.port = port;
+        this.admissionControl = admissionControl;
+        this.timeouts = timeouts;
+        this.songStreamFactory = new SongStreamFactory(new SongCache(SONG_CACHE_SIZE), bufferPool, pacing);
+        this.songPacker = new SongPacker(pacing, true);
+        this.radio = new Radio(songStreamFactory, storage);
+        this.context = new SessionContext(storage, new CommandExecutor(storage, radio), songStreamFactory,
+                bufferPool, radio, admissionControl);
+    }
+
+    public void start() {
+        try (ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            this.serverSocketChannel = serverSocketChannel;
+            serverSocketChannel.bind(new InetSocketAddress(HOST, port));
+            isServerWorking = true;
+
+            storage.restoreData();
+            startSongPacking();
+            sessionExpiry.scheduleAtFixedRate(storage::expireDetachedSessions, SESSION_EXPIRY_PERIOD_SECONDS,
+                    SESSION_EXPIRY_PERIOD_SECONDS, TimeUnit.SECONDS);
+            if (timeouts.isEnabled()) {
+                sessionExpiry.scheduleAtFixedRate(this::closeInactiveSessions, TIMEOUT_CHECK_PERIOD_MILLIS,
+                        TIMEOUT_CHECK_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+            }
+
+            while (isServerWorking) {
+                acceptClient(serverSocketChannel, executor);
+            }
+        } catch (IOException e) {
+            storage.storeLog(e, "Failed to start server.",
+                    Arrays.toString(e.getStackTrace()));
+        }
+    }
+
+    public void stop() {
+        isServerWorking = false;
+        radio.stop();
+        sessionExpiry.shutdown();
+        if (serverSocketChannel != null) {
+            try {
+                serverSocketChannel.close();
+            } catch (IOException e) {
+                storage.storeLog(e, "Failed to stop accepting connections.",
+                        Arrays.toString(e.getStackTrace()));
+            }
+        }
+        sessions.forEach(BlockingClientSession::requestClose);
+    }
+
+    private void acceptClient(ServerSocketChannel serverSocketChannel, ExecutorService executor) {
+        try {
+            SocketChannel clientChannel = serverSocketChannel.accept();
+            if (!admissionControl.tryAcquireConnection()) {
+                admissionControl.rejectConnection(clientChannel);
+                return;
+            }
+            BlockingClientSession session = new BlockingClientSession(context, clientChannel, executor);
+            sessions.add(session);
+            if (!isServerWorking) {
+                session.requestClose();
+            }
+            executor.submit(() -> {
+                try {
+                    session.run();
+                } finally {
+                    sessions.remove(session);
+                }
+            });
+        } catch (AsynchronousCloseException e) {
+            isServerWorking = false;
+        } catch (IOException e) {
+            storage.storeLog(e, "Error occurred while accepting a client.",
+                    Arrays.toString(e.getStackTrace()));
+        }
+    }
+
+    private void closeInactiveSessions() {
+        long now = System.nanoTime();
+        for (BlockingClientSession session : sessions) {
+            long deadline = session.getDeadlineNanos(timeouts);
+            if (deadline != Long.MAX_VALUE && deadline - now <= 0) {
+                session.requestClose();
+            }
+        }
+    }
+
+    private void startSongPacking() {
+        Thread packer = new Thread(this::packSongs, "song-packer");
+        packer.setDaemon(true);
+        packer.start();
+    }
+
+    private void packSongs() {
+        try {
+            songPacker.packDirectory(Path.of(SONG_REPOSITORY), songStreamFactory::invalidate)
+                    .forEach((song, e) -> storage.storeLog(e, "Failed to pack song " + song + ".",
+                            Arrays.toString(e.getStackTrace())));
+        } catch (IOException e) {
+            storage.storeLog(e, "Failed to pack the song repository.", Arrays.toString(e.getStackTrace()));
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Protocol;
+import bg.sofia.uni.fmi.mjt.spotify.server.command.CommandExecutor;
+import bg.sofia.uni.fmi.mjt.spotify.server.command.CommandType;
+import bg.sofia.uni.fmi.mjt.spotify.server.command.ParsedCommand;
+import bg.sofia.uni.fmi.mjt.spotify.server.exception.ServerBusyException;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.WireProtocol;
+import bg.sofia.uni.fmi.mjt.spotify.server.radio.Radio;
+import bg.sofia.uni.fmi.mjt.spotify.server.radio.RadioChunk;
+import bg.sofia.uni.fmi.mjt.spotify.server.radio.RadioSubscription;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongStream;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.StreamPacer;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.util.Arrays;
+
+abstract class ClientSession extends Session {
+    static final long NO_SONG = -1;
+
+    private static final int MAX_COMMAND_LENGTH = 8192;
+    private static final int SONG_PATH = 0;
+    private static final int SONG_FORMAT = 1;
+    private static final int START_POSITION = 2;
+    private static final String NOT_LISTENING = "You are not listening to a song";
+    private static final String NO_STATION = "A radio station with such a name does not exist.";
+
+    private final SessionContext context;
+    private final LineFramer lineFramer = new LineFramer(MAX_COMMAND_LENGTH);
+    private final Object streamLock = new Object();
+    private final long connectedNanos;
+
+    private volatile WireProtocol protocol;
+    private volatile boolean isClosed;
+    private volatile long lastActivityNanos;
+    private volatile boolean isWriteStalled;
+    private volatile long writeStalledSinceNanos;
+    private SongStream songStream;
+    private StreamPacer pacer;
+
+    ClientSession(SessionContext context, long connectedNanos) {
+        this.context = context;
+        this.connectedNanos = connectedNanos;
+        this.lastActivityNanos = connectedNanos;
+    }
+
+    abstract void send(OutboundMessage message) throws IOException;
+
+    abstract void discardAudio();
+
+    abstract void startAudio() throws IOException;
+
+    abstract void wakeAudio();
+
+    abstract void requestClose();
+
+    SessionContext getContext() {
+        return context;
+    }
+
+    LineFramer getLineFramer() {
+        return lineFramer;
+    }
+
+    WireProtocol getProtocol() {
+        WireProtocol current = protocol;
+        return current == null ? context.getTextProtocol() : current;
+    }
+
+    boolean isClosed() {
+        return isClosed;
+    }
+
+    void onRead(long nowNanos) {
+        lastActivityNanos = nowNanos;
+    }
+
+    void onWrite(boolean isProgress, boolean isDrained, long nowNanos) {
+        if (isProgress) {
+            lastActivityNanos = nowNanos;
+        }
+        if (isDrained) {
+            isWriteStalled = false;
+        } else if (isProgress || !isWriteStalled) {
+            writeStalledSinceNanos = nowNanos;
+            isWriteStalled = true;
+        }
+    }
+
+    long getDeadlineNanos(ConnectionTimeouts timeouts) {
+        return timeouts.getDeadlineNanos(isLoggedIn(), connectedNanos, lastActivityNanos,
+                isWriteStalled, writeStalledSinceNanos);
+    }
+
+    boolean negotiateProtocol(ParsedCommand command) throws IOException {
+        if (protocol != null) {
+            return false;
+        }
+        protocol = context.getTextProtocol();
+
+        int argumentsCount = command.getArgumentsCount();
+        if (command.getType() != CommandType.PROTOCOL || argumentsCount < 1 || argumentsCount > 2) {
+            return false;
+        }
+        String version = command.getArgument(0);
+        boolean isCompressing = argumentsCount == 2 && command.getArgument(1).equals(Protocol.COMPRESSION_OPTION);
+        if (version.equals(String.valueOf(Protocol.FRAMED_VERSION)) && (argumentsCount == 1 || isCompressing)) {
+            protocol = isCompressing ? context.getCompressedProtocol() : context.getFramedProtocol();
+            writeClientOutput("Using protocol " + version +
+                    (isCompressing ? " " + Protocol.COMPRESSION_OPTION : "") + System.lineSeparator());
+        } else {
+            writeClientOutput("Unsupported protocol version" + System.lineSeparator());
+        }
+        return true;
+    }
+
+    void executeCommand(ParsedCommand command) throws IOException {
+        beginCommand(command.getType(), command.getArgumentsCount());
+        completeCommand(context.getCommandExecutor().execute(this, command));
+    }
+
+    void beginCommand(CommandType type, int argumentsCount) throws IOException {
+        if (isStoppingCommand(type, argumentsCount)) {
+            stopSong();
+            stopRadio();
+        }
+    }
+
+    void completeCommand(String output) throws IOException {
+        if (output.startsWith(Storage.SEEK_PREFIX)) {
+            seekSong(Double.parseDouble(output.strip().substring(Storage.SEEK_PREFIX.length())));
+        } else if (output.startsWith(Radio.TUNE_IN_PREFIX)) {
+            tuneIn(output.strip().substring(Radio.TUNE_IN_PREFIX.length()));
+        } else if (output.contains("+")) {
+            playSong(output);
+        } else {
+            writeClientOutput(output);
+        }
+    }
+
+    boolean isPlaying() {
+        synchronized (streamLock) {
+            return songStream != null;
+        }
+    }
+
+    long getSongDelayNanos(long nowNanos) {
+        synchronized (streamLock) {
+            return pacer == null ? NO_SONG : pacer.getDelayNanos(nowNanos);
+        }
+    }
+
+    OutboundMessage nextSongMessage() throws IOException {
+        synchronized (streamLock) {
+            if (songStream == null) {
+                return null;
+            }
+            long position = songStream.getPosition();
+            OutboundMessage chunk = songStream.nextChunk();
+            if (chunk != null) {
+                pacer.onSent(songStream.getPosition() - position);
+                setPlaybackPosition((double) songStream.getPosition() / songStream.getByteRate());
+                return getProtocol().audio(chunk);
+            }
+            closeSongStream();
+        }
+        context.getStorage().stopSong(this);
+        return getProtocol().endOfStream();
+    }
+
+    OutboundMessage nextRadioMessage() {
+        RadioSubscription subscription = getRadioSubscription();
+        RadioChunk chunk;
+        if (subscription == null || (chunk = subscription.next()) == null) {
+            return null;
+        }
+        WireProtocol current = getProtocol();
+        return switch (chunk.type()) {
+            case FORMAT -> current.format(chunk.format());
+            case AUDIO -> current.audio(chunk.toMessage(current.isCompressingAudio()));
+            case END_OF_SONG -> current.endOfStream();
+            case END_OF_STATION -> {
+                context.getRadio().tuneOut(this);
+                yield current.control("The radio station " + subscription.getStationName() +
+                        " finished broadcasting" + System.lineSeparator());
+            }
+        };
+    }
+
+    boolean close() {
+        synchronized (streamLock) {
+            if (isClosed) {
+                return false;
+            }
+            isClosed = true;
+            closeSongStreamQuietly();
+        }
+        context.getRadio().tuneOut(this);
+        context.getAdmissionControl().releaseConnection();
+        return true;
+    }
+
+    @Override
+    void onTakenOver() {
+        synchronized (streamLock) {
+            closeSongStreamQuietly();
+        }
+        context.getRadio().tuneOut(this);
+        requestClose();
+    }
+
+    void writeClientOutput(String output) throws IOException {
+        send(getProtocol().control(output));
+    }
+
+    void logError(Exception e, String message) {
+        context.getStorage().storeLog(e, message + System.lineSeparator(), Arrays.toString(e.getStackTrace()));
+    }
+
+    private boolean isStoppingCommand(CommandType type, int argumentsCount) {
+        return argumentsCount == 0 &&
+                (type == CommandType.STOP || type == CommandType.DISCONNECT || type == CommandType.TUNE_OUT);
+    }
+
+    private void playSong(String songInfo) throws IOException {
+        String[] song = songInfo.strip().split("\\+");
+        SongStream opened;
+        try {
+            opened = context.getAdmissionControl().admit(
+                    context.getSongStreamFactory().open(song[SONG_PATH], getProtocol().isCompressingAudio()));
+        } catch (ServerBusyException e) {
+            context.getStorage().stopSong(this);
+            writeClientOutput(e.getMessage() + System.lineSeparator());
+            return;
+        } catch (UnsupportedAudioFileException | IOException e) {
+            logError(e, "An error occurred while playing the song");
+            context.getStorage().stopSong(this);
+            return;
+        }
+
+        try {
+            if (song.length > START_POSITION) {
+                double startPosition = Double.parseDouble(song[START_POSITION]);
+                if (startPosition > opened.getDuration()) {
+                    context.getStorage().stopSong(this);
+                    opened.close();
+                    writeClientOutput(CommandExecutor.INVALID_POSITION + System.lineSeparator());
+                    return;
+                }
+                opened.seek(startPosition);
+            }
+            send(getProtocol().format(song[SONG_FORMAT] + "," + opened.getFrameLength() + System.lineSeparator()));
+        } catch (IOException e) {
+            logError(e, "An error occurred while playing the song");
+            context.getStorage().stopSong(this);
+            opened.close();
+            return;
+        }
+
+        synchronized (streamLock) {
+            if (isClosed) {
+                opened.close();
+                return;
+            }
+            songStream = opened;
+            pacer = newPacer(opened);
+        }
+        startAudio();
+    }
+
+    private void seekSong(double position) throws IOException {
+        String rejection = null;
+        synchronized (streamLock) {
+            if (songStream == null) {
+                rejection = NOT_LISTENING;
+            } else if (position > songStream.getDuration()) {
+                rejection = CommandExecutor.INVALID_POSITION;
+            } else {
+                songStream.seek(position);
+                pacer = newPacer(songStream);
+            }
+        }
+        if (rejection != null) {
+            writeClientOutput(rejection + System.lineSeparator());
+            return;
+        }
+        discardAudio();
+        writeClientOutput("You moved to " + position + " seconds" + System.lineSeparator());
+        startAudio();
+    }
+
+    private void tuneIn(String stationName) throws IOException {
+        if (context.getRadio().tuneIn(this, stationName, this::wakeAudio) == null) {
+            writeClientOutput(NO_STATION + System.lineSeparator());
+            return;
+        }
+        writeClientOutput("You tuned in to " + stationName + System.lineSeparator());
+        startAudio();
+    }
+
+    private void stopSong() throws IOException {
+        synchronized (streamLock) {
+            if (songStream == null) {
+                return;
+            }
+            closeSongStream();
+        }
+        discardAudio();
+        send(getProtocol().endOfStream());
+    }
+
+    private void stopRadio() throws IOException {
+        if (context.getRadio().isTunedIn(this)) {
+            discardAudio();
+            send(getProtocol().endOfStream());
+        }
+    }
+
+    private void closeSongStream() throws IOException {
+        SongStream closedStream = songStream;
+        songStream = null;
+        pacer = null;
+        if (closedStream != null) {
+            closedStream.close();
+        }
+    }
+
+    private void closeSongStreamQuietly() {
+        try {
+            closeSongStream();
+        } catch (IOException e) {
+            logError(e, "An error occurred while closing the song");
+        }
+    }
+
+    private StreamPacer newPacer(SongStream stream) {
+        return context.getSongStreamFactory().getPacing().newPacer(stream.getByteRate(), System.nanoTime());
+    }
+}
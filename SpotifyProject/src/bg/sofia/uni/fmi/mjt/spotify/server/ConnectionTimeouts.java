@@ -0,0 +1,50 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import java.util.concurrent.TimeUnit;
+
+public class ConnectionTimeouts {
+    public static final ConnectionTimeouts DEFAULT = new ConnectionTimeouts(900_000, 60_000, 30_000);
+    public static final long DISABLED = 0;
+
+    private final long idleNanos;
+    private final long loginNanos;
+    private final long stalledWriteNanos;
+
+    public ConnectionTimeouts(long idleMillis, long loginMillis, long stalledWriteMillis) {
+        if (idleMillis < 0 || loginMillis < 0 || stalledWriteMillis < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.loginNanos = TimeUnit.MILLISECONDS.toNanos(loginMillis);
+        this.stalledWriteNanos = TimeUnit.MILLISECONDS.toNanos(stalledWriteMillis);
+    }
+
+    public boolean isEnabled() {
+        return idleNanos != DISABLED || loginNanos != DISABLED || stalledWriteNanos != DISABLED;
+    }
+
+    public long getDeadlineNanos(boolean isLoggedIn, long connectedNanos, long lastActivityNanos,
+                                 boolean isWriteStalled, long writeStalledSinceNanos) {
+        long deadline = Long.MAX_VALUE;
+        if (idleNanos != DISABLED) {
+            deadline = Math.min(deadline, lastActivityNanos + idleNanos);
+        }
+        if (loginNanos != DISABLED && !isLoggedIn) {
+            deadline = Math.min(deadline, connectedNanos + loginNanos);
+        }
+        if (stalledWriteNanos != DISABLED && isWriteStalled) {
+            deadline = Math.min(deadline, writeStalledSinceNanos + stalledWriteNanos);
+        }
+        return deadline;
+    }
+
+    public long getCheckIntervalNanos() {
+        long interval = Long.MAX_VALUE;
+        for (long timeout : new long[]{idleNanos, loginNanos, stalledWriteNanos}) {
+            if (timeout != DISABLED) {
+                interval = Math.min(interval, timeout);
+            }
+        }
+        return interval;
+    }
+}
@@ -0,0 +1,66 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LineFramer {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final int maxLineLength;
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    public LineFramer(int maxLineLength) {
+        if (maxLineLength < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.maxLineLength = maxLineLength;
+    }
+
+    public List<String> append(ByteBuffer input) throws IOException {
+        List<String> lines = new ArrayList<>();
+        append(input, line -> lines.add(StandardCharsets.UTF_8.decode(line).toString()));
+        return lines;
+    }
+
+    public void append(ByteBuffer input, LineHandler handler) throws IOException {
+        while (input.hasRemaining()) {
+            byte current = input.get();
+            if (current == LINE_FEED) {
+                handler.onLine(takeLine());
+                pending.clear();
+            } else {
+                put(current);
+            }
+        }
+    }
+
+    private void put(byte current) throws IOException {
+        if (pending.position() >= maxLineLength) {
+            throw new IOException("Command line is longer than " + maxLineLength + " bytes");
+        }
+        if (!pending.hasRemaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.min(pending.capacity() * 2, maxLineLength));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        pending.put(current);
+    }
+
+    private ByteBuffer takeLine() {
+        int length = pending.position();
+        if (length > 0 && pending.get(length - 1) == CARRIAGE_RETURN) {
+            length--;
+        }
+        return pending.position(0).limit(length);
+    }
+
+    public interface LineHandler {
+        void onLine(ByteBuffer line) throws IOException;
+    }
+}
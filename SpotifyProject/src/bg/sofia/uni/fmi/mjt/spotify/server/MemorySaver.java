@@ -40,7 +40,7 @@ public class MemorySaver {
         logStore = Path.of(directory, logFile);
     }
 
-    public void saveLog(Exception exception, String message, String moreInfo) {
+    public synchronized void saveLog(Exception exception, String message, String moreInfo) {
         String log = "\n" + message + exception.toString() + "\n" + moreInfo + "\n";
         try (OutputStream os = Files.newOutputStream(logStore, CREATE, APPEND)) {
             os.write(log.getBytes());
@@ -49,7 +49,7 @@ public class MemorySaver {
         }
     }
 
-    public void saveAccount(Account account) {
+    public synchronized void saveAccount(Account account) {
         try (OutputStream os = Files.newOutputStream(accountsStore, CREATE, APPEND)) {
             os.write((GSON.toJson(account) + System.lineSeparator()).getBytes());
         } catch (IOException ex) {
@@ -11,6 +11,7 @@ import java.util.Map;
 public class Profile {
     private String username;
     private Map<String, Playlist> playlists;
+    private transient volatile long version;
 
     public Profile(String username) {
         this.username = username;
@@ -21,6 +22,10 @@ public class Profile {
         return username;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public Map<String, Playlist> getPlaylist() {
         return playlists;
     }
@@ -33,6 +38,7 @@ public class Profile {
             throw new PlaylistAlreadyExistsException();
         }
         playlists.put(playlistName, new Playlist(playlistName));
+        version++;
     }
 
     public void addSong(String playlistName, String songName, String artist) throws PlaylistNotFoundException, SongAlreadyExistsException {
@@ -44,6 +50,17 @@ public class Profile {
             throw new PlaylistNotFoundException();
         }
         playlists.get(playlistName).add(songName, artist);
+        version++;
+    }
+
+    public Map<String, String> getPlaylistSongs(String playlistName) throws PlaylistNotFoundException {
+        if (playlistName == null) {
+            throw new IllegalArgumentException();
+        }
+        if (playlists.get(playlistName) == null) {
+            throw new PlaylistNotFoundException();
+        }
+        return playlists.get(playlistName).getSongs();
     }
 
     public String showPlaylist(String playlistName) throws PlaylistNotFoundException {
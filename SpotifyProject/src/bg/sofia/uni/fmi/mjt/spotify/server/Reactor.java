@@ -0,0 +1,467 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.command.Command;
+import bg.sofia.uni.fmi.mjt.spotify.server.command.CommandExecutor;
+import bg.sofia.uni.fmi.mjt.spotify.server.command.CommandParser;
+import bg.sofia.uni.fmi.mjt.spotify.server.command.CommandType;
+import bg.sofia.uni.fmi.mjt.spotify.server.command.ParsedCommand;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferPool;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundQueue;
+import bg.sofia.uni.fmi.mjt.spotify.server.radio.Radio;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongStreamFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Reactor implements Runnable {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_PENDING_COMMANDS = 64;
+    private static final long OUTBOUND_HIGH_WATERMARK = 256 * 1024;
+    private static final long OUTBOUND_LOW_WATERMARK = 64 * 1024;
+    private static final long TIMEOUT_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final int TIMEOUT_WHEEL_SIZE = 512;
+    private static final String COMMAND_FAILED = "An error occurred while executing the command. " +
+            "Sorry for the inconvenience.";
+
+    private final Storage storage;
+    private final CommandExecutor commandExecutor;
+    private final SessionContext context;
+    private final BufferPool bufferPool;
+    private final ConnectionTimeouts timeouts;
+    private final AdmissionControl admissionControl;
+    private final Executor commandWorkers;
+    private final TimingWheel<SelectionKey> timeoutWheel;
+    private final Selector selector;
+    private final ByteBuffer buffer;
+    private final CommandParser commandParser = new CommandParser();
+    private final Queue<ScheduledWrite> scheduledWrites = new PriorityQueue<>();
+    private final Queue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<>();
+    private final Queue<SelectionKey> radioReadyKeys = new ConcurrentLinkedQueue<>();
+    private final Queue<CommandReply> commandReplies = new ConcurrentLinkedQueue<>();
+    private final Queue<SelectionKey> closeRequests = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger connectionsCount = new AtomicInteger();
+
+    private volatile boolean isWorking;
+
+    public Reactor(Storage storage, CommandExecutor commandExecutor, SongStreamFactory songStreamFactory,
+                   BufferPool bufferPool, Radio radio, ConnectionTimeouts timeouts,
+                   AdmissionControl admissionControl) throws IOException {
+        this(storage, commandExecutor, songStreamFactory, bufferPool, radio, timeouts, admissionControl, null);
+    }
+
+    public Reactor(Storage storage, CommandExecutor commandExecutor, SongStreamFactory songStreamFactory,
+                   BufferPool bufferPool, Radio radio, ConnectionTimeouts timeouts,
+                   AdmissionControl admissionControl, Executor commandWorkers) throws IOException {
+        this.storage = storage;
+        this.commandExecutor = commandExecutor;
+        this.context = new SessionContext(storage, commandExecutor, songStreamFactory, bufferPool, radio,
+                admissionControl);
+        this.bufferPool = bufferPool;
+        this.timeouts = timeouts;
+        this.admissionControl = admissionControl;
+        this.commandWorkers = commandWorkers;
+        this.timeoutWheel = new TimingWheel<>(TIMEOUT_TICK_NANOS, TIMEOUT_WHEEL_SIZE, System.nanoTime());
+        this.selector = Selector.open();
+        this.buffer = bufferPool.lease(BUFFER_SIZE);
+    }
+
+    public void registerServerChannel(ServerSocketChannel channel) throws IOException {
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public void register(SocketChannel channel) {
+        connectionsCount.incrementAndGet();
+        pendingChannels.add(channel);
+        selector.wakeup();
+    }
+
+    public int getConnectionsCount() {
+        return connectionsCount.get();
+    }
+
+    @Override
+    public void run() {
+        isWorking = true;
+        while (isWorking) {
+            try {
+                registerPendingChannels();
+                int readyChannels = selector.select(getSelectTimeoutMillis());
+                runScheduledWrites();
+                runRadioWrites();
+                runCommandReplies();
+                runCloseRequests();
+                timeoutWheel.advance(System.nanoTime(), this::checkTimeout);
+                if (readyChannels == 0) {
+                    continue;
+                }
+
+                Iterator<SelectionKey> keyIterator = selector.selectedKeys().iterator();
+                while (keyIterator.hasNext()) {
+                    SelectionKey key = keyIterator.next();
+                    keyIterator.remove();
+                    try {
+                        processKey(key);
+                    } catch (IOException e) {
+                        handleKeyError(key, e);
+                    }
+                }
+            } catch (IOException e) {
+                storage.storeLog(e, "Error occurred while processing client request.",
+                        Arrays.toString(e.getStackTrace()));
+            }
+        }
+        closeSelector();
+    }
+
+    public void stop() {
+        isWorking = false;
+        if (selector.isOpen()) {
+            selector.wakeup();
+        }
+    }
+
+    private long getSelectTimeoutMillis() {
+        ScheduledWrite next = scheduledWrites.peek();
+        if (next == null && timeoutWheel.isEmpty()) {
+            return 0;
+        }
+        long dueNanos = next == null ? timeoutWheel.getNextTickNanos() : next.dueNanos();
+        if (!timeoutWheel.isEmpty() && timeoutWheel.getNextTickNanos() - dueNanos < 0) {
+            dueNanos = timeoutWheel.getNextTickNanos();
+        }
+        long delayNanos = dueNanos - System.nanoTime();
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(delayNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1));
+    }
+
+    private void armTimeout(SelectionKey key, long deadlineNanos) {
+        if (timeouts.isEnabled()) {
+            getSession(key).setTimeout(timeoutWheel.schedule(key, deadlineNanos));
+        }
+    }
+
+    private void checkTimeout(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long deadline = getSession(key).getDeadlineNanos(timeouts);
+        if (deadline == Long.MAX_VALUE) {
+            armTimeout(key, now + timeouts.getCheckIntervalNanos());
+        } else if (deadline - now > 0) {
+            armTimeout(key, deadline);
+        } else {
+            closeConnection(key);
+        }
+    }
+
+    private void runScheduledWrites() {
+        long now = System.nanoTime();
+        while (!scheduledWrites.isEmpty() && scheduledWrites.peek().dueNanos() <= now) {
+            SelectionKey key = scheduledWrites.poll().key();
+            getSession(key).onScheduledWrite();
+            if (key.isValid() && getSession(key).isPlaying()) {
+                try {
+                    writeToClient(key);
+                } catch (IOException e) {
+                    handleKeyError(key, e);
+                }
+            }
+        }
+    }
+
+    private void runRadioWrites() {
+        SelectionKey key;
+        while ((key = radioReadyKeys.poll()) != null) {
+            getSession(key).onRadioWrite();
+            if (key.isValid() && getSession(key).getRadioSubscription() != null) {
+                try {
+                    writeToClient(key);
+                } catch (IOException e) {
+                    handleKeyError(key, e);
+                }
+            }
+        }
+    }
+
+    private void runCommandReplies() {
+        CommandReply reply;
+        while ((reply = commandReplies.poll()) != null) {
+            SelectionKey key = reply.key();
+            ReactorSession session = getSession(key);
+            session.onCommandCompleted();
+            if (session.isClosed()) {
+                storage.detach(session);
+                continue;
+            }
+            try {
+                if (reply.output() != null) {
+                    session.completeCommand(reply.output());
+                }
+                dispatchNextCommand(key);
+            } catch (IOException e) {
+                handleKeyError(key, e);
+            }
+        }
+    }
+
+    private void runCloseRequests() {
+        SelectionKey key;
+        while ((key = closeRequests.poll()) != null) {
+            if (key.isValid()) {
+                closeConnection(key);
+            }
+        }
+    }
+
+    void requestClose(SelectionKey key) {
+        closeRequests.add(key);
+        selector.wakeup();
+    }
+
+    void notifyRadioReady(SelectionKey key) {
+        if (getSession(key).markRadioReady()) {
+            radioReadyKeys.add(key);
+            selector.wakeup();
+        }
+    }
+
+    private void scheduleWrite(SelectionKey key, long delayNanos) {
+        if (getSession(key).scheduleWrite()) {
+            scheduledWrites.add(new ScheduledWrite(System.nanoTime() + delayNanos, key));
+        }
+    }
+
+    private void handleKeyError(SelectionKey key, IOException e) {
+        storage.storeLog(e, "Error occurred while processing client request.",
+                Arrays.toString(e.getStackTrace()));
+        if (key.channel() instanceof SocketChannel) {
+            closeConnection(key);
+        }
+    }
+
+    private void processKey(SelectionKey key) throws IOException {
+        if (key.isValid() && key.isReadable()) {
+            readClientInput(key);
+        }
+        if (key.isValid() && key.isWritable()) {
+            writeToClient(key);
+        } else if (key.isValid() && key.isAcceptable()) {
+            accept(key);
+        }
+    }
+
+    private void processCommand(SelectionKey key, ByteBuffer clientInput) throws IOException {
+        if (!key.isValid()) {
+            return;
+        }
+        ParsedCommand command = commandParser.parse(clientInput);
+        ReactorSession session = getSession(key);
+        if (session.negotiateProtocol(command)) {
+            return;
+        }
+        if (commandWorkers == null) {
+            session.executeCommand(command);
+            return;
+        }
+
+        if (session.addPendingCommand(command.toCommand()) > MAX_PENDING_COMMANDS) {
+            session.pauseReading();
+        }
+        dispatchNextCommand(key);
+    }
+
+    private void dispatchNextCommand(SelectionKey key) throws IOException {
+        ReactorSession session = getSession(key);
+        Command command = session.startNextCommand();
+        if (command == null) {
+            return;
+        }
+        if (session.getPendingCommandsCount() < MAX_PENDING_COMMANDS) {
+            session.resumeReading();
+        }
+
+        session.beginCommand(CommandType.of(command.command()), command.arguments().length);
+        commandWorkers.execute(() -> executeCommand(key, command));
+    }
+
+    private void executeCommand(SelectionKey key, Command command) {
+        String output = null;
+        try {
+            output = commandExecutor.execute(getSession(key), command);
+        } catch (RuntimeException e) {
+            storage.storeLog(e, "Error occurred while executing a client command.",
+                    Arrays.toString(e.getStackTrace()));
+            output = COMMAND_FAILED + System.lineSeparator();
+        } finally {
+            commandReplies.add(new CommandReply(key, output));
+            selector.wakeup();
+        }
+    }
+
+    private void registerPendingChannels() throws IOException {
+        SocketChannel channel;
+        while ((channel = pendingChannels.poll()) != null) {
+            channel.configureBlocking(false);
+            registerClient(channel);
+        }
+    }
+
+    private void closeConnection(SelectionKey key) {
+        ReactorSession session = getSession(key);
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            storage.storeLog(e, "Error occurred while closing a client connection.",
+                    Arrays.toString(e.getStackTrace()));
+        }
+        if (session != null && session.close()) {
+            timeoutWheel.cancel(session.getTimeout());
+            if (!session.isCommandRunning()) {
+                storage.detach(session);
+            }
+            connectionsCount.decrementAndGet();
+        }
+    }
+
+    private void registerClient(SocketChannel channel) throws IOException {
+        long now = System.nanoTime();
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new ReactorSession(context, this, key, OUTBOUND_HIGH_WATERMARK, OUTBOUND_LOW_WATERMARK, now));
+        checkTimeout(key);
+    }
+
+    private ReactorSession getSession(SelectionKey key) {
+        return (ReactorSession) key.attachment();
+    }
+
+    private void readClientInput(SelectionKey key) throws IOException {
+        SocketChannel clientChannel = (SocketChannel) key.channel();
+        buffer.clear();
+
+        int readBytes = clientChannel.read(buffer);
+        if (readBytes < 0) {
+            closeConnection(key);
+            return;
+        }
+
+        buffer.flip();
+        getSession(key).onRead(System.nanoTime());
+
+        getSession(key).getLineFramer().append(buffer, line -> processCommand(key, line));
+    }
+
+    void writeToClient(SelectionKey key) throws IOException {
+        OutboundQueue outboundQueue = getOutboundQueue(key);
+        produceAudio(key, outboundQueue);
+        if (flush(key, outboundQueue)) {
+            produceAudio(key, outboundQueue);
+        }
+        updateWriteInterest(key, outboundQueue);
+    }
+
+    private void produceAudio(SelectionKey key, OutboundQueue outboundQueue) throws IOException {
+        ReactorSession session = getSession(key);
+        while (outboundQueue.isAcceptingAudio()) {
+            long delayNanos = session.getSongDelayNanos(System.nanoTime());
+            if (delayNanos > 0) {
+                scheduleWrite(key, delayNanos);
+                return;
+            }
+            OutboundMessage message = delayNanos == ClientSession.NO_SONG
+                    ? session.nextRadioMessage() : session.nextSongMessage();
+            if (message == null) {
+                return;
+            }
+            outboundQueue.add(message);
+        }
+    }
+
+    void send(SelectionKey key, OutboundMessage message) throws IOException {
+        OutboundQueue outboundQueue = getOutboundQueue(key);
+        outboundQueue.add(message);
+        flush(key, outboundQueue);
+        updateWriteInterest(key, outboundQueue);
+    }
+
+    private boolean flush(SelectionKey key, OutboundQueue outboundQueue) throws IOException {
+        long pendingBytes = outboundQueue.getPendingBytes();
+        boolean isDrained = outboundQueue.writeTo((SocketChannel) key.channel());
+        getSession(key).onWrite(outboundQueue.getPendingBytes() < pendingBytes, outboundQueue.isEmpty(),
+                System.nanoTime());
+        return isDrained;
+    }
+
+    private void updateWriteInterest(SelectionKey key, OutboundQueue outboundQueue) {
+        if (!key.isValid()) {
+            return;
+        }
+        boolean hasOutput = !outboundQueue.isEmpty() ||
+                (isSongChunkDue(key) && outboundQueue.isAcceptingAudio());
+        if (hasOutput) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        } else {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+    }
+
+    private boolean isSongChunkDue(SelectionKey key) {
+        return getSession(key).getSongDelayNanos(System.nanoTime()) == 0;
+    }
+
+    private OutboundQueue getOutboundQueue(SelectionKey key) {
+        return getSession(key).getOutboundQueue();
+    }
+
+    private void accept(SelectionKey key) throws IOException {
+        ServerSocketChannel sockChannel = (ServerSocketChannel) key.channel();
+        SocketChannel accept = sockChannel.accept();
+        if (accept == null) {
+            return;
+        }
+        if (!admissionControl.tryAcquireConnection()) {
+            admissionControl.rejectConnection(accept);
+            return;
+        }
+
+        connectionsCount.incrementAndGet();
+        accept.configureBlocking(false);
+        registerClient(accept);
+    }
+
+    private void closeSelector() {
+        for (SelectionKey key : selector.keys()) {
+            closeConnection(key);
+        }
+        bufferPool.release(buffer);
+        try {
+            selector.close();
+        } catch (IOException e) {
+            storage.storeLog(e, "Error occurred while closing the selector.",
+                    Arrays.toString(e.getStackTrace()));
+        }
+    }
+
+    private record CommandReply(SelectionKey key, String output) {
+    }
+
+    private record ScheduledWrite(long dueNanos, SelectionKey key) implements Comparable<ScheduledWrite> {
+        @Override
+        public int compareTo(ScheduledWrite other) {
+            return Long.compare(dueNanos, other.dueNanos);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.command.Command;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundQueue;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class ReactorSession extends ClientSession {
+    private final Reactor reactor;
+    private final SelectionKey key;
+    private final OutboundQueue outboundQueue;
+    private final AtomicBoolean isRadioReady = new AtomicBoolean();
+    private final Queue<Command> pendingCommands = new ArrayDeque<>();
+
+    private boolean isWriteScheduled;
+    private boolean isCommandRunning;
+    private TimingWheel.Timeout<SelectionKey> timeout;
+
+    ReactorSession(SessionContext context, Reactor reactor, SelectionKey key, long outboundHighWatermark,
+                   long outboundLowWatermark, long connectedNanos) {
+        super(context, connectedNanos);
+        this.reactor = reactor;
+        this.key = key;
+        this.outboundQueue = new OutboundQueue(outboundHighWatermark, outboundLowWatermark);
+    }
+
+    @Override
+    void send(OutboundMessage message) throws IOException {
+        reactor.send(key, message);
+    }
+
+    @Override
+    void discardAudio() {
+        outboundQueue.discardAudio();
+    }
+
+    @Override
+    void startAudio() throws IOException {
+        reactor.writeToClient(key);
+    }
+
+    @Override
+    void wakeAudio() {
+        reactor.notifyRadioReady(key);
+    }
+
+    OutboundQueue getOutboundQueue() {
+        return outboundQueue;
+    }
+
+    boolean scheduleWrite() {
+        if (isWriteScheduled) {
+            return false;
+        }
+        isWriteScheduled = true;
+        return true;
+    }
+
+    void onScheduledWrite() {
+        isWriteScheduled = false;
+    }
+
+    TimingWheel.Timeout<SelectionKey> getTimeout() {
+        return timeout;
+    }
+
+    void setTimeout(TimingWheel.Timeout<SelectionKey> timeout) {
+        this.timeout = timeout;
+    }
+
+    int addPendingCommand(Command command) {
+        pendingCommands.add(command);
+        return pendingCommands.size();
+    }
+
+    Command startNextCommand() {
+        if (isCommandRunning || isClosed()) {
+            return null;
+        }
+        Command command = pendingCommands.poll();
+        isCommandRunning = command != null;
+        return command;
+    }
+
+    void onCommandCompleted() {
+        isCommandRunning = false;
+    }
+
+    boolean isCommandRunning() {
+        return isCommandRunning;
+    }
+
+    int getPendingCommandsCount() {
+        return pendingCommands.size();
+    }
+
+    void pauseReading() {
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+    }
+
+    void resumeReading() {
+        if (key.isValid()) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+        }
+    }
+
+    boolean isReading() {
+        return key.isValid() && (key.interestOps() & SelectionKey.OP_READ) != 0;
+    }
+
+    boolean markRadioReady() {
+        return isRadioReady.compareAndSet(false, true);
+    }
+
+    void onRadioWrite() {
+        isRadioReady.set(false);
+    }
+
+    @Override
+    void requestClose() {
+        reactor.requestClose(key);
+    }
+
+    @Override
+    boolean close() {
+        if (!super.close()) {
+            return false;
+        }
+        pendingCommands.clear();
+        outboundQueue.clear();
+        return true;
+    }
+}
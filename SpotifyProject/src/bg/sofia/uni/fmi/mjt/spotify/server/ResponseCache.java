@@ -0,0 +1,90 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public class ResponseCache {
+    public static final long NO_STALENESS = 0;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int DEFAULT_MAX_REPLY_LENGTH = 64 * 1024;
+
+    private final int maxReplyLength;
+    private final long maxStaleNanos;
+    private final Map<String, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ResponseCache() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_REPLY_LENGTH, NO_STALENESS);
+    }
+
+    public ResponseCache(int capacity, int maxReplyLength, long maxStaleNanos) {
+        if (capacity < 1 || maxReplyLength < 0 || maxStaleNanos < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.maxReplyLength = maxReplyLength;
+        this.maxStaleNanos = maxStaleNanos;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public String get(String key, long version, Supplier<String> renderer) {
+        return get(key, version, false, renderer);
+    }
+
+    public String getAllowingStale(String key, long version, Supplier<String> renderer) {
+        return get(key, version, true, renderer);
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private String get(String key, long version, boolean isStaleAllowed, Supplier<String> renderer) {
+        long now = System.nanoTime();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && (entry.version() == version ||
+                (isStaleAllowed && now - entry.renderedNanos() < maxStaleNanos))) {
+            hits.increment();
+            return entry.reply();
+        }
+
+        misses.increment();
+        String reply = renderer.get();
+        if (reply.length() <= maxReplyLength) {
+            synchronized (entries) {
+                entries.put(key, new Entry(reply, version, now));
+            }
+        }
+        return reply;
+    }
+
+    private record Entry(String reply, long version, long renderedNanos) {
+    }
+}
@@ -1,95 +1,113 @@
 package bg.sofia.uni.fmi.mjt.spotify.server;
 
-import bg.sofia.uni.fmi.mjt.spotify.server.command.CommandCreator;
 import bg.sofia.uni.fmi.mjt.spotify.server.command.CommandExecutor;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferPool;
+import bg.sofia.uni.fmi.mjt.spotify.server.radio.Radio;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongCache;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongPacker;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongStreamFactory;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.StreamPacing;
 
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.UnsupportedAudioFileException;
-import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.nio.ByteBuffer;
-import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
+import java.nio.channels.AsynchronousCloseException;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Server {
-    private static final int BUFFER_SIZE = 8192;
-    private static final int SONG_PATH = 0;
-    private static final int SONG_FORMAT = 1;
+    public static final int INLINE_COMMANDS = 0;
+    public static final int DEFAULT_COMMAND_WORKERS = Runtime.getRuntime().availableProcessors();
+
     private static final String HOST = "localhost";
+    private static final long SONG_CACHE_SIZE = 256L * 1024 * 1024;
+    private static final int MAX_POOLED_BUFFERS_PER_SIZE = 4096;
+    private static final int RESPONSE_CACHE_SIZE = 4096;
+    private static final int MAX_CACHED_RESPONSE_LENGTH = 64 * 1024;
+    private static final long TOP_STALENESS_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long SESSION_EXPIRY_PERIOD_SECONDS = 1;
+    private static final String SONG_REPOSITORY = "songRepository";
     private static final String directory = "repository";
     private static final String accountsFile = "accounts.txt";
     private static final String songsFile = "songs.txt";
     private static final String logFile = "logs.txt";
 
-    private final Storage storage = new Storage(directory, accountsFile, songsFile, logFile);
-    private final CommandExecutor commandExecutor = new CommandExecutor(storage);
-    private Map<SelectionKey, Boolean> isStoppedSong = new HashMap<>();
+    private final Storage storage = new Storage(directory, accountsFile, songsFile, logFile,
+            new ResponseCache(RESPONSE_CACHE_SIZE, MAX_CACHED_RESPONSE_LENGTH, TOP_STALENESS_NANOS));
+    private final BufferPool bufferPool = new BufferPool(MAX_POOLED_BUFFERS_PER_SIZE);
+    private final SongStreamFactory songStreamFactory;
+    private final SongPacker songPacker;
+    private final Radio radio;
+    private final CommandExecutor commandExecutor;
+    private final ConnectionTimeouts timeouts;
+    private final AdmissionControl admissionControl;
+    private final ExecutorService commandWorkers;
+    private final ScheduledExecutorService sessionExpiry = newSessionExpiry();
 
     private final int port;
-    private boolean isServerWorking;
+    private final int reactorsCount;
+    private volatile boolean isServerWorking;
 
-    private ByteBuffer buffer;
-    private Selector selector;
+    private volatile Reactor[] reactors = new Reactor[0];
+    private volatile ServerSocketChannel serverSocketChannel;
 
     public Server(int port) {
+        this(port, 1);
+    }
+
+    public Server(int port, int reactorsCount) {
+        this(port, reactorsCount, StreamPacing.DEFAULT);
+    }
+
+    public Server(int port, int reactorsCount, StreamPacing pacing) {
+        this(port, reactorsCount, pacing, ConnectionTimeouts.DEFAULT, new AdmissionControl());
+    }
+
+    public Server(int port, int reactorsCount, StreamPacing pacing, ConnectionTimeouts timeouts,
+                  AdmissionControl admissionControl) {
+        this(port, reactorsCount, pacing, timeouts, admissionControl, DEFAULT_COMMAND_WORKERS);
+    }
+
+    public Server(int port, int reactorsCount, StreamPacing pacing, ConnectionTimeouts timeouts,
+                  AdmissionControl admissionControl, int commandWorkersCount) {
+        if (reactorsCount < 1 || commandWorkersCount < 0) {
+            throw new IllegalArgumentException();
+        }
         this.port = port;
+        this.reactorsCount = reactorsCount;
+        this.timeouts = timeouts;
+        this.admissionControl = admissionControl;
+        this.songStreamFactory = new SongStreamFactory(new SongCache(SONG_CACHE_SIZE), bufferPool, pacing);
+        this.songPacker = new SongPacker(pacing, true);
+        this.radio = new Radio(songStreamFactory, storage);
+        this.commandExecutor = new CommandExecutor(storage, radio);
+        this.commandWorkers = commandWorkersCount == INLINE_COMMANDS ? null : newCommandWorkers(commandWorkersCount);
     }
 
     public void start() {
         try (ServerSocketChannel serverSocketChannel = ServerSocketChannel.open()) {
-            selector = Selector.open();
-            configureServerSocketChannel(serverSocketChannel, selector);
-            this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            this.serverSocketChannel = serverSocketChannel;
+            serverSocketChannel.bind(new InetSocketAddress(HOST, this.port));
+            reactors = createReactors();
             isServerWorking = true;
 
             storage.restoreData();
-
-            while (isServerWorking) {
-                try {
-                    int readyChannels = selector.select();
-                    if (readyChannels == 0) {
-                        continue;
-                    }
-
-                    Iterator<SelectionKey> keyIterator = selector.selectedKeys().iterator();
-                    while (keyIterator.hasNext()) {
-                        SelectionKey key = keyIterator.next();
-                        if (key.isReadable()) {
-                            SocketChannel clientChannel = (SocketChannel) key.channel();
-                            String clientInput = getClientInput(clientChannel);
-                            if (clientInput == null) {
-                                continue;
-                            }
-                            System.out.println(clientInput);
-                            if (isStoppedSong.get(key) != null && clientInput.equals("stop" + System.lineSeparator())) {
-                                isStoppedSong.put(key, true);
-                            }
-
-                            String output = commandExecutor.execute(key, CommandCreator.newCommand(clientInput));
-                            if (isCommandPlay(key, output)) {
-                                output = "Start song" + System.lineSeparator();
-                            }
-                            writeClientOutput(clientChannel, output);
-
-                        } else if (key.isAcceptable()) {
-                            accept(selector, key);
-                        }
-
-                        keyIterator.remove();
-                    }
-                } catch (IOException e) {
-                    storage.storeLog(e, "Error occurred while processing client request.",
-                            Arrays.toString(e.getStackTrace()));
-                }
+            startSongPacking();
+            scheduleSessionExpiry();
+
+            if (reactors.length == 1) {
+                reactors[0].registerServerChannel(serverSocketChannel);
+                reactors[0].run();
+            } else {
+                startReactorThreads();
+                acceptConnections(serverSocketChannel);
             }
         } catch (IOException e) {
             storage.storeLog(e, "Failed to start server.",
@@ -97,98 +115,109 @@ public class Server {
         }
     }
 
-    public boolean isCommandPlay(SelectionKey key, String output) {
-        if (output.contains("+")) {
-            playSong(key, output);
-            return true;
-        }
-        return false;
+    public AdmissionControl getAdmissionControl() {
+        return admissionControl;
     }
 
-    public void playSong(SelectionKey key, String songInfo) {
-        try {
-            String[] song = songInfo.split("\\+");
-            SocketChannel clientChannel = (SocketChannel) key.channel();
-            AudioInputStream audioStream = AudioSystem.getAudioInputStream(new File(song[SONG_PATH]));
-            writeClientOutput(clientChannel, getAllSongInfo(song[SONG_FORMAT], audioStream));
-            byte[] bytesBuffer = new byte[audioStream.getFormat().getFrameSize()];
-
-            isStoppedSong.put(key, false);
-            while(!isStoppedSong.get(key) && audioStream.read(bytesBuffer) != -1) {
-                writeAudioOutput(clientChannel, bytesBuffer);
-            }
-            audioStream.close();
-            if (!isStoppedSong.get(key)) {
-                storage.stopSong(key);
-            }
-            writeClientOutput(clientChannel, "Stop song");
-        } catch (UnsupportedAudioFileException e) {
-            storage.storeLog(e, "An error occurred while playing the song" + System.lineSeparator(),
-                    Arrays.toString(e.getStackTrace()));
-            storage.stopSong(key);
-        } catch (IOException e) {
-            storage.storeLog(e, "An error occurred while playing the song" + System.lineSeparator(),
-                    Arrays.toString(e.getStackTrace()));
-            storage.stopSong(key);
-        }
+    public BufferPool getBufferPool() {
+        return bufferPool;
     }
 
     public void stop() {
         this.isServerWorking = false;
-        if (selector.isOpen()) {
-            selector.wakeup();
+        for (Reactor reactor : reactors) {
+            reactor.stop();
+        }
+        radio.stop();
+        sessionExpiry.shutdown();
+        if (commandWorkers != null) {
+            commandWorkers.shutdown();
+        }
+        if (reactors.length > 1 && serverSocketChannel != null) {
+            try {
+                serverSocketChannel.close();
+            } catch (IOException e) {
+                storage.storeLog(e, "Failed to stop accepting connections.",
+                        Arrays.toString(e.getStackTrace()));
+            }
         }
     }
 
-    private void configureServerSocketChannel(ServerSocketChannel channel, Selector selector) throws IOException {
-        channel.bind(new InetSocketAddress(HOST, this.port));
-        channel.configureBlocking(false);
-        channel.register(selector, SelectionKey.OP_ACCEPT);
-    }
-
-    private String getClientInput(SocketChannel clientChannel) throws IOException {
-        buffer.clear();
-
-        int readBytes = clientChannel.read(buffer);
-        if (readBytes < 0) {
-            clientChannel.close();
-            return null;
+    private Reactor[] createReactors() throws IOException {
+        Reactor[] createdReactors = new Reactor[reactorsCount];
+        for (int i = 0; i < reactorsCount; i++) {
+            createdReactors[i] = new Reactor(storage, commandExecutor, songStreamFactory, bufferPool, radio, timeouts,
+                    admissionControl, commandWorkers);
         }
+        return createdReactors;
+    }
 
-        buffer.flip();
-
-        byte[] clientInputBytes = new byte[buffer.remaining()];
-        buffer.get(clientInputBytes);
-
-        return new String(clientInputBytes, StandardCharsets.UTF_8);
+    static ScheduledExecutorService newSessionExpiry() {
+        return Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "session-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
-    private void writeAudioOutput(SocketChannel clientChannel, byte[] data) throws IOException {
-        buffer.clear();
-        buffer.put(data);
-        buffer.flip();
+    private void scheduleSessionExpiry() {
+        sessionExpiry.scheduleAtFixedRate(storage::expireDetachedSessions, SESSION_EXPIRY_PERIOD_SECONDS,
+                SESSION_EXPIRY_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
 
-        clientChannel.write(buffer);
+    private static ExecutorService newCommandWorkers(int commandWorkersCount) {
+        AtomicInteger workersCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(commandWorkersCount, task -> {
+            Thread worker = new Thread(task, "command-worker-" + workersCount.getAndIncrement());
+            worker.setDaemon(true);
+            return worker;
+        });
     }
 
-    private void writeClientOutput(SocketChannel clientChannel, String output) throws IOException {
-        buffer.clear();
-        buffer.put(output.getBytes());
-        buffer.flip();
+    private void startReactorThreads() {
+        for (int i = 0; i < reactors.length; i++) {
+            new Thread(reactors[i], "reactor-" + i).start();
+        }
+    }
 
-        clientChannel.write(buffer);
+    private void acceptConnections(ServerSocketChannel serverSocketChannel) {
+        while (isServerWorking) {
+            try {
+                SocketChannel clientChannel = serverSocketChannel.accept();
+                if (!admissionControl.tryAcquireConnection()) {
+                    admissionControl.rejectConnection(clientChannel);
+                    continue;
+                }
+                clientChannel.configureBlocking(false);
+                getLeastLoadedReactor().register(clientChannel);
+            } catch (AsynchronousCloseException e) {
+                return;
+            } catch (IOException e) {
+                storage.storeLog(e, "Error occurred while accepting a client.",
+                        Arrays.toString(e.getStackTrace()));
+            }
+        }
     }
 
-    private void accept(Selector selector, SelectionKey key) throws IOException {
-        ServerSocketChannel sockChannel = (ServerSocketChannel) key.channel();
-        SocketChannel accept = sockChannel.accept();
+    private Reactor getLeastLoadedReactor() {
+        return Arrays.stream(reactors)
+                .min(Comparator.comparingInt(Reactor::getConnectionsCount))
+                .orElseThrow();
+    }
 
-        accept.configureBlocking(false);
-        accept.register(selector, SelectionKey.OP_READ);
+    private void startSongPacking() {
+        Thread packer = new Thread(this::packSongs, "song-packer");
+        packer.setDaemon(true);
+        packer.start();
     }
 
-    private String getAllSongInfo(String songsFormat, AudioInputStream audioInputStream) {
-        return songsFormat.replace(System.lineSeparator(),
-                "," + audioInputStream.getFrameLength() + System.lineSeparator());
+    private void packSongs() {
+        try {
+            songPacker.packDirectory(Path.of(SONG_REPOSITORY), songStreamFactory::invalidate)
+                    .forEach((song, e) -> storage.storeLog(e, "Failed to pack song " + song + ".",
+                            Arrays.toString(e.getStackTrace())));
+        } catch (IOException e) {
+            storage.storeLog(e, "Failed to pack the song repository.", Arrays.toString(e.getStackTrace()));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.radio.RadioSubscription;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Session {
+    private final AtomicLong commandsCount = new AtomicLong();
+
+    private volatile String username;
+    private volatile String token;
+    private volatile boolean isDetached;
+    private volatile long detachedNanos;
+    private volatile List<String> playedSong;
+    private volatile double playbackPosition;
+    private volatile RadioSubscription radioSubscription;
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public boolean isLoggedIn() {
+        return username != null;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void attach(String username, String token) {
+        this.username = username;
+        this.token = token;
+        this.isDetached = false;
+    }
+
+    public void detach(long nowNanos) {
+        detachedNanos = nowNanos;
+        isDetached = true;
+    }
+
+    public boolean isDetached() {
+        return isDetached;
+    }
+
+    public long getDetachedNanos() {
+        return detachedNanos;
+    }
+
+    public List<String> getPlayedSong() {
+        return playedSong;
+    }
+
+    public void setPlayedSong(List<String> playedSong) {
+        this.playedSong = playedSong;
+    }
+
+    public double getPlaybackPosition() {
+        return playbackPosition;
+    }
+
+    public void setPlaybackPosition(double playbackPosition) {
+        this.playbackPosition = playbackPosition;
+    }
+
+    public RadioSubscription getRadioSubscription() {
+        return radioSubscription;
+    }
+
+    public void setRadioSubscription(RadioSubscription radioSubscription) {
+        this.radioSubscription = radioSubscription;
+    }
+
+    public long getCommandsCount() {
+        return commandsCount.get();
+    }
+
+    public void onCommand() {
+        commandsCount.incrementAndGet();
+    }
+
+    void onTakenOver() {
+    }
+}
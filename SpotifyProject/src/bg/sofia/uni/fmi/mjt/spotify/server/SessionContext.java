@@ -0,0 +1,70 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.command.CommandExecutor;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferPool;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.FramedWireProtocol;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.TextWireProtocol;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.WireProtocol;
+import bg.sofia.uni.fmi.mjt.spotify.server.radio.Radio;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongStreamFactory;
+
+final class SessionContext {
+    private final Storage storage;
+    private final CommandExecutor commandExecutor;
+    private final SongStreamFactory songStreamFactory;
+    private final BufferPool bufferPool;
+    private final Radio radio;
+    private final AdmissionControl admissionControl;
+    private final WireProtocol textProtocol;
+    private final WireProtocol framedProtocol;
+    private final WireProtocol compressedProtocol;
+
+    SessionContext(Storage storage, CommandExecutor commandExecutor, SongStreamFactory songStreamFactory,
+                   BufferPool bufferPool, Radio radio, AdmissionControl admissionControl) {
+        this.storage = storage;
+        this.commandExecutor = commandExecutor;
+        this.songStreamFactory = songStreamFactory;
+        this.bufferPool = bufferPool;
+        this.radio = radio;
+        this.admissionControl = admissionControl;
+        this.textProtocol = new TextWireProtocol(bufferPool);
+        this.framedProtocol = new FramedWireProtocol(bufferPool);
+        this.compressedProtocol = new FramedWireProtocol(bufferPool, true);
+    }
+
+    Storage getStorage() {
+        return storage;
+    }
+
+    CommandExecutor getCommandExecutor() {
+        return commandExecutor;
+    }
+
+    SongStreamFactory getSongStreamFactory() {
+        return songStreamFactory;
+    }
+
+    BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    Radio getRadio() {
+        return radio;
+    }
+
+    AdmissionControl getAdmissionControl() {
+        return admissionControl;
+    }
+
+    WireProtocol getTextProtocol() {
+        return textProtocol;
+    }
+
+    WireProtocol getFramedProtocol() {
+        return framedProtocol;
+    }
+
+    WireProtocol getCompressedProtocol() {
+        return compressedProtocol;
+    }
+}
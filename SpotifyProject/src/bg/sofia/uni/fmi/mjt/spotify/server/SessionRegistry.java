@@ -0,0 +1,139 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+public class SessionRegistry {
+    private static final int TOKEN_BYTES = 24;
+
+    private final Map<String, Session> sessionsByUsername = new ConcurrentHashMap<>();
+    private final Map<String, Session> sessionsByToken = new ConcurrentHashMap<>();
+    private final Queue<Detached> detachedSessions = new ConcurrentLinkedQueue<>();
+    private final SecureRandom random = new SecureRandom();
+    private final long resumeWindowNanos;
+
+    public SessionRegistry(long resumeWindowNanos) {
+        if (resumeWindowNanos < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.resumeWindowNanos = resumeWindowNanos;
+    }
+
+    public boolean isAttached(String username) {
+        Session session = sessionsByUsername.get(username);
+        return session != null && !session.isDetached();
+    }
+
+    public Session getSession(String username) {
+        return sessionsByUsername.get(username);
+    }
+
+    public Session getSessionByToken(String token) {
+        return sessionsByToken.get(token);
+    }
+
+    public int size() {
+        return sessionsByUsername.size();
+    }
+
+    public boolean login(Session session, String username, Consumer<Session> onSessionEnded) {
+        Session[] replaced = new Session[1];
+        Session owner = sessionsByUsername.compute(username, (name, current) -> {
+            if (current != null && !current.isDetached()) {
+                return current;
+            }
+            replaced[0] = current;
+            return session;
+        });
+        if (owner != session) {
+            return false;
+        }
+        if (replaced[0] != null) {
+            end(replaced[0], onSessionEnded);
+        }
+
+        String token = newToken();
+        session.attach(username, token);
+        sessionsByToken.put(token, session);
+        return true;
+    }
+
+    public void logout(Session session) {
+        String username = session.getUsername();
+        if (username != null) {
+            sessionsByUsername.remove(username, session);
+        }
+        String token = session.getToken();
+        if (token != null) {
+            sessionsByToken.remove(token, session);
+        }
+        session.attach(null, null);
+    }
+
+    public boolean detach(Session session, long nowNanos) {
+        String username = session.getUsername();
+        if (username == null || sessionsByUsername.get(username) != session) {
+            return false;
+        }
+        session.detach(nowNanos);
+        detachedSessions.add(new Detached(session, nowNanos));
+        return true;
+    }
+
+    public boolean resume(String token, Session session) {
+        Session previous = sessionsByToken.get(token);
+        if (previous == null || previous == session) {
+            return false;
+        }
+        synchronized (previous) {
+            String username = previous.getUsername();
+            if (username == null || !sessionsByUsername.replace(username, previous, session)) {
+                return false;
+            }
+            previous.onTakenOver();
+            sessionsByToken.replace(token, previous, session);
+            session.attach(username, token);
+            session.setPlayedSong(previous.getPlayedSong());
+            session.setPlaybackPosition(previous.getPlaybackPosition());
+            previous.setPlayedSong(null);
+            previous.attach(null, null);
+        }
+        return true;
+    }
+
+    public void expireDetached(long nowNanos, Consumer<Session> onSessionEnded) {
+        Detached detached;
+        while ((detached = detachedSessions.peek()) != null && nowNanos - detached.nanos() >= resumeWindowNanos) {
+            detachedSessions.poll();
+            Session session = detached.session();
+            String username = session.getUsername();
+            if (session.isDetached() && session.getDetachedNanos() == detached.nanos() && username != null &&
+                    sessionsByUsername.remove(username, session)) {
+                end(session, onSessionEnded);
+            }
+        }
+    }
+
+    private void end(Session session, Consumer<Session> onSessionEnded) {
+        String token = session.getToken();
+        if (token != null) {
+            sessionsByToken.remove(token, session);
+        }
+        onSessionEnded.accept(session);
+        session.attach(null, null);
+    }
+
+    private String newToken() {
+        byte[] token = new byte[TOKEN_BYTES];
+        random.nextBytes(token);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    private record Detached(Session session, long nanos) {
+    }
+}
@@ -3,52 +3,112 @@ package bg.sofia.uni.fmi.mjt.spotify.server;
 import bg.sofia.uni.fmi.mjt.spotify.server.account.Account;
 import bg.sofia.uni.fmi.mjt.spotify.server.account.AccountStorage;
 import bg.sofia.uni.fmi.mjt.spotify.server.exception.*;
+import bg.sofia.uni.fmi.mjt.spotify.server.radio.Radio;
 import bg.sofia.uni.fmi.mjt.spotify.server.song.SongStorage;
+import bg.sofia.uni.fmi.mjt.spotify.server.song.TrendingWindow;
 
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.IOException;
-import java.nio.channels.SelectionKey;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 public class Storage {
+    public static final String SEEK_PREFIX = "seek+";
+
     private static final String NOT_LOGGED_IN = "You must be logged in to execute this command!";
     private static final int SONG_NAME = 0;
     private static final int ARTIST = 1;
+    private static final String KEY_SEPARATOR = "\n";
+    private static final long RESUME_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(2);
 
     private final MemorySaver memoryManager;
-    private AccountStorage accountStorage;
-    private Map<String, Profile> profileStorage;
-    private SongStorage songStorage;
-    private Map<SelectionKey, String> activeUsers = new HashMap<>();
-    private Map<String, List<String>> playedSongs = new HashMap<>();
+    private final ResponseCache responseCache;
+    private final StripedLocks profileLocks = new StripedLocks();
+    private final SessionRegistry sessionRegistry = new SessionRegistry(RESUME_WINDOW_NANOS);
+    private volatile AccountStorage accountStorage;
+    private volatile Map<String, Profile> profileStorage;
+    private volatile SongStorage songStorage;
 
     public Storage(String directory, String accountsFile, String songFile, String logFile) {
-        memoryManager = new MemorySaver(directory, accountsFile, songFile, logFile);
+        this(directory, accountsFile, songFile, logFile, new ResponseCache());
+    }
+
+    public Storage(String directory, String accountsFile, String songFile, String logFile,
+                   ResponseCache responseCache) {
+        this.memoryManager = new MemorySaver(directory, accountsFile, songFile, logFile);
+        this.responseCache = responseCache;
     }
 
     public Storage(MemorySaver memoryManager, AccountStorage accountStorage, Map<String, Profile> profileStorage, SongStorage songStorage) {
+        this(memoryManager, accountStorage, profileStorage, songStorage, new ResponseCache());
+    }
+
+    public Storage(MemorySaver memoryManager, AccountStorage accountStorage, Map<String, Profile> profileStorage,
+                   SongStorage songStorage, ResponseCache responseCache) {
         this.memoryManager = memoryManager;
+        this.responseCache = responseCache;
         this.accountStorage = accountStorage;
-        this.profileStorage = profileStorage;
+        this.profileStorage = new ConcurrentHashMap<>(profileStorage);
         this.songStorage = songStorage;
     }
 
-    public String disconnect(SelectionKey key) {
-        Profile profile = getActiveProfileByKey(key);
-        if (profile != null) {
-            activeUsers.remove(key);
-        }
-        if (profile != null && playedSongs.get(profile.getUsername()) != null) {
-            stopSong(key);
+    public String disconnect(Session session) {
+        synchronized (session) {
+            Profile profile = getActiveProfile(session);
+            if (profile != null && session.getPlayedSong() != null) {
+                stopSong(session);
+            }
+            if (session.isLoggedIn()) {
+                sessionRegistry.logout(session);
+            }
         }
         return "You have successfully disconnected!";
     }
 
-    public String registerUser(SelectionKey key, String email, String password) {
-        if (getActiveProfileByKey(key) != null) {
+    public void detach(Session session) {
+        synchronized (session) {
+            sessionRegistry.detach(session, System.nanoTime());
+        }
+    }
+
+    public String resume(Session session, String token) {
+        if (getActiveProfile(session) != null) {
+            return "You are logged in. You cannot resume another session.";
+        }
+        if (!sessionRegistry.resume(token, session)) {
+            return "Invalid or expired session token.";
+        }
+
+        List<String> song = session.getPlayedSong();
+        if (song == null) {
+            return "You resumed your session successfully!";
+        }
+        try {
+            return songStorage.getPlayInfo(song.get(SONG_NAME), song.get(ARTIST)) + "+" + session.getPlaybackPosition();
+        } catch (SongNotFoundException | UnsupportedAudioFileException | IOException e) {
+            storeLog(e, "An error occurred while resuming the song " + song.get(SONG_NAME) + ".",
+                    Arrays.toString(e.getStackTrace()));
+            stopSong(session);
+            return "You resumed your session, but the song could not be resumed.";
+        }
+    }
+
+    public void expireDetachedSessions() {
+        sessionRegistry.expireDetached(System.nanoTime(), this::endDetachedSession);
+    }
+
+    public SessionRegistry getSessionRegistry() {
+        return sessionRegistry;
+    }
+
+    public String registerUser(Session session, String email, String password) {
+        if (getActiveProfile(session) != null) {
             return "You are logged in. You cannot register.";
         }
         try {
@@ -62,32 +122,37 @@ public class Storage {
         return "You have successfully registered!";
     }
 
-    public String login(SelectionKey key, String email, String password) {
-        if (isUserLoggedIn(key, email)) {
+    public String login(Session session, String email, String password) {
+        if (isUserLoggedIn(session, email)) {
             return "You are logged in. You cannot do it again.";
         }
         try {
-            if (accountStorage.login(email, password)) {
-                activeUsers.put(key,email);
-            } else {
+            if (!accountStorage.login(email, password)) {
                 return "Wrong password. Please, try again";
             }
+            if (!sessionRegistry.login(session, email, this::endDetachedSession)) {
+                return "You are logged in. You cannot do it again.";
+            }
 
         } catch (AccountNotFoundException e) {
             return "Such an account does not exist. You can register.";
         }
-        return "You have successfully logged in";
+        return "You have successfully logged in. Your session token is " + session.getToken();
     }
 
-    public String searchSongByWords(SelectionKey key, String[] words) {
-        if (getActiveProfileByKey(key) == null) {
+    public String searchSongByWords(Session session, String[] words) {
+        if (getActiveProfile(session) == null) {
             return NOT_LOGGED_IN;
         }
-        return songStorage.search(words);
+        if (words == null || Arrays.stream(words).anyMatch(word -> word == null)) {
+            return songStorage.search(words);
+        }
+        return responseCache.get(getSearchKey(words), songStorage.getCatalogVersion(),
+                () -> songStorage.search(words));
     }
 
-    public String topNSongsByListening(SelectionKey key, String number) {
-        if (getActiveProfileByKey(key) == null) {
+    public String topNSongsByListening(Session session, String number) {
+        if (getActiveProfile(session) == null) {
             return NOT_LOGGED_IN;
         }
 
@@ -96,7 +161,9 @@ public class Storage {
 
         try {
             transformedNumber = Integer.parseInt(number);
-            answer = songStorage.getTopNListenedSongsAtTheMoment(transformedNumber);
+            int topCount = transformedNumber;
+            answer = responseCache.getAllowingStale("top" + KEY_SEPARATOR + topCount, songStorage.getTopVersion(),
+                    () -> songStorage.getTopNListenedSongsAtTheMoment(topCount));
         } catch (NumberFormatException e) {
             return "You must enter a number!";
         } catch (IllegalArgumentException e) {
@@ -105,15 +172,41 @@ public class Storage {
         return answer;
     }
 
-    public String createPlaylist(SelectionKey key, String playlistName) {
-        if (getActiveProfileByKey(key) == null) {
+    public String trendingSongs(Session session, String windowName, String number) {
+        if (getActiveProfile(session) == null) {
             return NOT_LOGGED_IN;
         }
 
-        Profile profile = getActiveProfileByKey(key);
+        TrendingWindow window = TrendingWindow.of(windowName);
+        if (window == null) {
+            return "The window must be one of: " + TrendingWindow.getNames();
+        }
+
+        String answer;
         try {
-            profile.addPlaylist(playlistName);
-            memoryManager.saveProfile(profile);
+            int trendingCount = Integer.parseInt(number);
+            answer = responseCache.getAllowingStale("trending" + KEY_SEPARATOR + window.getName() + KEY_SEPARATOR +
+                            trendingCount, songStorage.getTrendingVersion(window),
+                    () -> songStorage.getTrendingSongs(window, trendingCount));
+        } catch (NumberFormatException e) {
+            return "You must enter a number!";
+        } catch (IllegalArgumentException e) {
+            return "The number must not be negative!";
+        }
+        return answer;
+    }
+
+    public String createPlaylist(Session session, String playlistName) {
+        if (getActiveProfile(session) == null) {
+            return NOT_LOGGED_IN;
+        }
+
+        Profile profile = getActiveProfile(session);
+        try {
+            synchronized (getProfileLock(session)) {
+                profile.addPlaylist(playlistName);
+                memoryManager.saveProfile(profile);
+            }
         } catch (PlaylistAlreadyExistsException e) {
             return "A playlist with such a name already exists.";
         } catch (IllegalArgumentException e) {
@@ -123,16 +216,18 @@ public class Storage {
 
     }
 
-    public String addSongToPlaylist(SelectionKey key, String playlistName, String songName, String artist) {
-        if (getActiveProfileByKey(key) == null) {
+    public String addSongToPlaylist(Session session, String playlistName, String songName, String artist) {
+        if (getActiveProfile(session) == null) {
             return NOT_LOGGED_IN;
         }
 
-        Profile profile = getActiveProfileByKey(key);
+        Profile profile = getActiveProfile(session);
         try {
             if (songStorage.isExists(songName, artist)) {
-                profile.addSong(playlistName, songName, artist);
-                memoryManager.saveProfile(profile);
+                synchronized (getProfileLock(session)) {
+                    profile.addSong(playlistName, songName, artist);
+                    memoryManager.saveProfile(profile);
+                }
             } else {
                 return "A song with such a name does not exist.";
             }
@@ -144,34 +239,38 @@ public class Storage {
         return String.format("You have successfully added new song in playlist %s!", playlistName);
     }
 
-    public String showPlaylist(SelectionKey key, String playlistName) {
-        if (getActiveProfileByKey(key) == null) {
+    public String showPlaylist(Session session, String playlistName) {
+        if (getActiveProfile(session) == null) {
             return NOT_LOGGED_IN;
         }
 
-        Profile profile = getActiveProfileByKey(key);
-        String playlistContent;
-        try {
-            playlistContent = profile.showPlaylist(playlistName);
-        } catch (PlaylistNotFoundException e) {
-            return "A playlist with such a name does not exist.";
-        }
-        return playlistContent;
+        Profile profile = getActiveProfile(session);
+        String key = "show-playlist" + KEY_SEPARATOR + session.getUsername() + KEY_SEPARATOR + playlistName;
+        return responseCache.get(key, profile.getVersion(), () -> {
+            try {
+                synchronized (getProfileLock(session)) {
+                    return profile.showPlaylist(playlistName);
+                }
+            } catch (PlaylistNotFoundException e) {
+                return "A playlist with such a name does not exist.";
+            }
+        });
     }
 
-    public String playSong(SelectionKey key, String songName, String artist) {
-        if (getActiveProfileByKey(key) == null) {
+    public String playSong(Session session, String songName, String artist) {
+        if (getActiveProfile(session) == null) {
             return NOT_LOGGED_IN;
         }
-        if (getActiveProfileByKey(key) != null &&
-                playedSongs.get(getActiveProfileByKey(key).getUsername()) != null) {
-            return "You are already listening to a song";
-        }
 
         String formatOfData;
         try {
-            formatOfData = songStorage.play(songName, artist);
-            playedSongs.put(getActiveProfileByKey(key).getUsername(), List.of(songName, artist));
+            synchronized (session) {
+                if (session.getPlayedSong() != null) {
+                    return "You are already listening to a song";
+                }
+                formatOfData = songStorage.play(songName, artist);
+                session.setPlayedSong(List.of(songName, artist));
+            }
         } catch (SongNotFoundException e) {
             return "A song with such a name does not exist.";
         } catch (UnsupportedAudioFileException e) {
@@ -185,20 +284,94 @@ public class Storage {
         return formatOfData;
     }
 
-    public String stopSong(SelectionKey key) {
-        if (getActiveProfileByKey(key) == null) {
+    public String playSong(Session session, String songName, String artist, double startPosition) {
+        String output = playSong(session, songName, artist);
+        if (!output.contains("+")) {
+            return output;
+        }
+        return output + "+" + startPosition;
+    }
+
+    public String seekSong(Session session, double position) {
+        if (getActiveProfile(session) == null) {
             return NOT_LOGGED_IN;
         }
-        List<String> song = playedSongs.get(getActiveProfileByKey(key).getUsername());
-        if (song == null) {
+        if (session.getPlayedSong() == null) {
             return "You are not listening to a song";
         }
+        return SEEK_PREFIX + position;
+    }
+
+    public String startRadio(Session session, Radio radio, String stationName, String playlistName) {
+        if (getActiveProfile(session) == null) {
+            return NOT_LOGGED_IN;
+        }
+
+        List<String> songPaths = new ArrayList<>();
         try {
-            songStorage.stop(song.get(SONG_NAME), song.get(ARTIST));
-            playedSongs.remove(getActiveProfileByKey(key).getUsername());
+            Map<String, String> playlistSongs;
+            synchronized (getProfileLock(session)) {
+                playlistSongs = getActiveProfile(session).getPlaylistSongs(playlistName);
+            }
+            for (Map.Entry<String, String> song : playlistSongs.entrySet()) {
+                songPaths.add(songStorage.getSongPath(song.getKey(), song.getValue()));
+            }
+        } catch (PlaylistNotFoundException e) {
+            return "A playlist with such a name does not exist.";
         } catch (SongNotFoundException e) {
-            storeLog(e, "A not existing song was played.", Arrays.toString(e.getStackTrace()));
-            return String.format("A song with a name %s does not exist.", song.get(SONG_NAME));
+            return "A song with such a name does not exist.";
+        }
+        if (songPaths.isEmpty()) {
+            return "The playlist has no songs.";
+        }
+        if (!radio.startStation(stationName, songPaths)) {
+            return "A radio station with such a name is already playing.";
+        }
+        return String.format("Radio station %s started successfully!", stationName);
+    }
+
+    public String tuneIn(Session session, Radio radio, String stationName) {
+        if (getActiveProfile(session) == null) {
+            return NOT_LOGGED_IN;
+        }
+        if (session.getPlayedSong() != null) {
+            return "You are already listening to a song";
+        }
+        if (radio.isTunedIn(session)) {
+            return "You are already tuned in to a radio station";
+        }
+        if (!radio.isStationExists(stationName)) {
+            return "A radio station with such a name does not exist.";
+        }
+        return Radio.TUNE_IN_PREFIX + stationName;
+    }
+
+    public String tuneOut(Session session, Radio radio) {
+        if (getActiveProfile(session) == null) {
+            return NOT_LOGGED_IN;
+        }
+        if (!radio.tuneOut(session)) {
+            return "You are not tuned in to a radio station";
+        }
+        return "You tuned out successfully!";
+    }
+
+    public String stopSong(Session session) {
+        if (getActiveProfile(session) == null) {
+            return NOT_LOGGED_IN;
+        }
+        synchronized (session) {
+            List<String> song = session.getPlayedSong();
+            if (song == null) {
+                return "You are not listening to a song";
+            }
+            try {
+                songStorage.stop(song.get(SONG_NAME), song.get(ARTIST));
+                session.setPlayedSong(null);
+            } catch (SongNotFoundException e) {
+                storeLog(e, "A not existing song was played.", Arrays.toString(e.getStackTrace()));
+                return String.format("A song with a name %s does not exist.", song.get(SONG_NAME));
+            }
         }
 
         return "You stopped the song successfully!";
@@ -207,14 +380,16 @@ public class Storage {
     public void addNewProfile(Account account, Profile profile) {
         profileStorage.put(profile.getUsername(), profile);
         memoryManager.saveAccount(account);
-        memoryManager.saveProfile(profile);
+        synchronized (profileLocks.get(profile.getUsername())) {
+            memoryManager.saveProfile(profile);
+        }
     }
 
 
 
     public void restoreData() {
         accountStorage = new AccountStorage(memoryManager.restoreAccounts());
-        profileStorage = memoryManager.restoreProfiles(accountStorage.getUsernames());
+        profileStorage = new ConcurrentHashMap<>(memoryManager.restoreProfiles(accountStorage.getUsernames()));
         songStorage = new SongStorage(memoryManager.restoreSongs());
     }
 
@@ -223,16 +398,35 @@ public class Storage {
         memoryManager.saveLog(exception, message, moreInfo);
     }
 
-    private Profile getActiveProfileByKey(SelectionKey key) {
-        if (activeUsers.get(key) == null) {
+    private String getSearchKey(String[] words) {
+        Set<String> normalizedWords = new TreeSet<>();
+        for (String word : words) {
+            normalizedWords.add(word.toLowerCase());
+        }
+        return "search" + KEY_SEPARATOR + String.join(KEY_SEPARATOR, normalizedWords);
+    }
+
+    private void endDetachedSession(Session session) {
+        synchronized (session) {
+            if (session.getPlayedSong() != null) {
+                stopSong(session);
+            }
+        }
+    }
+
+    private Object getProfileLock(Session session) {
+        return profileLocks.get(session.getUsername());
+    }
+
+    private Profile getActiveProfile(Session session) {
+        if (!session.isLoggedIn()) {
             return null;
         }
-        return profileStorage.get(activeUsers.get(key));
+        return profileStorage.get(session.getUsername());
     }
 
-    private boolean isUserLoggedIn(SelectionKey key, String username) {
-        return getActiveProfileByKey(key) != null ||
-                activeUsers.values().stream().filter(username::equals).count() != 0;
+    private boolean isUserLoggedIn(Session session, String username) {
+        return getActiveProfile(session) != null || sessionRegistry.isAttached(username);
     }
 
 }
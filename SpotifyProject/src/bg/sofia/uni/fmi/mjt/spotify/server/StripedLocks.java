@@ -0,0 +1,33 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+public class StripedLocks {
+    private static final int DEFAULT_STRIPES_COUNT = 64;
+
+    private final Object[] locks;
+
+    public StripedLocks() {
+        this(DEFAULT_STRIPES_COUNT);
+    }
+
+    public StripedLocks(int stripesCount) {
+        if (stripesCount < 1 || Integer.bitCount(stripesCount) != 1) {
+            throw new IllegalArgumentException();
+        }
+        locks = new Object[stripesCount];
+        for (int i = 0; i < stripesCount; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public Object get(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+        int hash = key.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (locks.length - 1)];
+    }
+
+    public int getStripesCount() {
+        return locks.length;
+    }
+}
@@ -0,0 +1,115 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class TimingWheel<T> {
+    private final long tickNanos;
+    private final long startNanos;
+    private final List<Timeout<T>> slots;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(long tickNanos, int wheelSize, long startNanos) {
+        if (tickNanos <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException();
+        }
+        this.tickNanos = tickNanos;
+        this.startNanos = startNanos;
+        this.slots = new ArrayList<>(Collections.nCopies(wheelSize, null));
+        this.mask = wheelSize - 1;
+    }
+
+    public Timeout<T> schedule(T value, long deadlineNanos) {
+        long deadlineTick = Math.max(currentTick, Math.ceilDiv(deadlineNanos - startNanos, tickNanos));
+        Timeout<T> timeout = new Timeout<>(value, deadlineTick);
+        int slot = (int) (deadlineTick & mask);
+        timeout.next = slots.get(slot);
+        if (timeout.next != null) {
+            timeout.next.previous = timeout;
+        }
+        slots.set(slot, timeout);
+        timeout.isScheduled = true;
+        size++;
+        return timeout;
+    }
+
+    public void cancel(Timeout<T> timeout) {
+        if (timeout == null || !timeout.isScheduled) {
+            return;
+        }
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            slots.set((int) (timeout.deadlineTick & mask), timeout.next);
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.isScheduled = false;
+        size--;
+    }
+
+    public void advance(long nowNanos, Consumer<T> onExpired) {
+        long targetTick = Math.floorDiv(nowNanos - startNanos, tickNanos);
+        if (targetTick < currentTick) {
+            return;
+        }
+
+        List<Timeout<T>> expired = new ArrayList<>();
+        long lastTick = Math.min(targetTick, currentTick + mask);
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            for (Timeout<T> timeout = slots.get((int) (tick & mask)); timeout != null; timeout = timeout.next) {
+                if (timeout.deadlineTick <= targetTick) {
+                    expired.add(timeout);
+                }
+            }
+        }
+        currentTick = targetTick + 1;
+
+        for (Timeout<T> timeout : expired) {
+            cancel(timeout);
+        }
+        for (Timeout<T> timeout : expired) {
+            onExpired.accept(timeout.value);
+        }
+    }
+
+    public long getNextTickNanos() {
+        return startNanos + currentTick * tickNanos;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public static final class Timeout<T> {
+        private final T value;
+        private final long deadlineTick;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+        private boolean isScheduled;
+
+        private Timeout(T value, long deadlineTick) {
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public boolean isScheduled() {
+            return isScheduled;
+        }
+    }
+}
@@ -5,32 +5,33 @@ import bg.sofia.uni.fmi.mjt.spotify.server.exception.AccountNotFoundException;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AccountStorage {
-    private Map<String, Account> accounts;
+    private final Map<String, Account> accounts;
 
     public AccountStorage(Map<String, Account> accounts) {
-        this.accounts = accounts;
+        this.accounts = new ConcurrentHashMap<>(accounts);
     }
 
     public void register(String email, String password) throws AccountAlreadyExistsException {
         if(email == null || !isValidEmailFormat(email) || password == null) {
             throw new IllegalArgumentException();
         }
-        if(accounts.get(email) != null) {
+        if(accounts.putIfAbsent(email, new Account(email, password)) != null) {
             throw new AccountAlreadyExistsException();
         }
-        accounts.put(email, new Account(email, password));
     }
 
     public boolean login(String email, String password) throws AccountNotFoundException {
         if(email == null || password == null) {
             throw new IllegalArgumentException();
         }
-        if (accounts.get(email) == null) {
+        Account account = accounts.get(email);
+        if (account == null) {
             throw new AccountNotFoundException();
         }
-        return accounts.get(email).isPasswordCorrect(password);
+        return account.isPasswordCorrect(password);
     }
 
     private boolean isValidEmailFormat(String email) {
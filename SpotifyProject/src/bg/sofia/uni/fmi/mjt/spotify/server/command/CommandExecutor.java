@@ -1,47 +1,77 @@
 package bg.sofia.uni.fmi.mjt.spotify.server.command;
 
+import bg.sofia.uni.fmi.mjt.spotify.server.Session;
 import bg.sofia.uni.fmi.mjt.spotify.server.Storage;
-
-import java.nio.channels.SelectionKey;
+import bg.sofia.uni.fmi.mjt.spotify.server.radio.Radio;
 
 public class CommandExecutor {
+    public static final String INVALID_POSITION = "The position must be a non-negative number of seconds.";
     private static final String INVALID_ARGS_COUNT_MESSAGE_FORMAT =
             "Invalid count of arguments: \"%s\" expects %d arguments. Example: \"%s\"" + System.lineSeparator();
+    private static final String RADIO_UNAVAILABLE = "The radio is not available.";
+    private static final String TUNED_IN = "You are tuned in to a radio station. Tune out first.";
 
-    private static final String REGISTER = "register";
-    private static final String LOGIN = "login";
-    private static final String SEARCH = "search";
-    private static final String TOP = "top";
-    private static final String CREATE_PLAYLIST = "create-playlist";
-    private static final String ADD_SONG_TO = "add-song-to";
-    private static final String SHOW_PLAYLIST = "show-playlist";
-    private static final String PLAY = "play";
-    private static final String STOP = "stop";
-    private static final String DISCONNECT = "disconnect";
+    private static final String REGISTER = CommandType.REGISTER.getName();
+    private static final String LOGIN = CommandType.LOGIN.getName();
+    private static final String RESUME = CommandType.RESUME.getName();
+    private static final String SEARCH = CommandType.SEARCH.getName();
+    private static final String TOP = CommandType.TOP.getName();
+    private static final String TRENDING = CommandType.TRENDING.getName();
+    private static final String CREATE_PLAYLIST = CommandType.CREATE_PLAYLIST.getName();
+    private static final String ADD_SONG_TO = CommandType.ADD_SONG_TO.getName();
+    private static final String SHOW_PLAYLIST = CommandType.SHOW_PLAYLIST.getName();
+    private static final String PLAY = CommandType.PLAY.getName();
+    private static final String STOP = CommandType.STOP.getName();
+    private static final String SEEK = CommandType.SEEK.getName();
+    private static final String START_RADIO = CommandType.START_RADIO.getName();
+    private static final String TUNE_IN = CommandType.TUNE_IN.getName();
+    private static final String TUNE_OUT = CommandType.TUNE_OUT.getName();
+    private static final String DISCONNECT = CommandType.DISCONNECT.getName();
 
     Storage storage;
+    Radio radio;
 
     public CommandExecutor(Storage storage) {
+        this(storage, null);
+    }
+
+    public CommandExecutor(Storage storage, Radio radio) {
         this.storage = storage;
+        this.radio = radio;
+    }
+
+    public String execute(Session session, Command cmd) {
+        return execute(session, CommandType.of(cmd.command()), cmd.arguments());
+    }
+
+    public String execute(Session session, ParsedCommand cmd) {
+        return execute(session, cmd.getType(), cmd.getType() == CommandType.UNKNOWN ? null : cmd.getArguments());
     }
 
-    public String execute(SelectionKey key, Command cmd) {
-        return switch (cmd.command()) {
-            case REGISTER -> register(key, cmd.arguments());
-            case LOGIN -> login(key, cmd.arguments());
-            case SEARCH -> search(key, cmd.arguments());
-            case TOP -> top(key, cmd.arguments());
-            case CREATE_PLAYLIST -> createPlaylist(key, cmd.arguments());
-            case ADD_SONG_TO -> addSongTo(key, cmd.arguments());
-            case SHOW_PLAYLIST -> showPlaylist(key, cmd.arguments());
-            case PLAY -> play(key, cmd.arguments());
-            case STOP -> stop(key, cmd.arguments());
-            case DISCONNECT -> disconnect(key, cmd.arguments());
+    private String execute(Session session, CommandType type, String[] arguments) {
+        session.onCommand();
+        return switch (type) {
+            case REGISTER -> register(session, arguments);
+            case LOGIN -> login(session, arguments);
+            case RESUME -> resume(session, arguments);
+            case SEARCH -> search(session, arguments);
+            case TOP -> top(session, arguments);
+            case TRENDING -> trending(session, arguments);
+            case CREATE_PLAYLIST -> createPlaylist(session, arguments);
+            case ADD_SONG_TO -> addSongTo(session, arguments);
+            case SHOW_PLAYLIST -> showPlaylist(session, arguments);
+            case PLAY -> play(session, arguments);
+            case STOP -> stop(session, arguments);
+            case SEEK -> seek(session, arguments);
+            case START_RADIO -> startRadio(session, arguments);
+            case TUNE_IN -> tuneIn(session, arguments);
+            case TUNE_OUT -> tuneOut(session, arguments);
+            case DISCONNECT -> disconnect(session, arguments);
             default -> "Unknown command" + System.lineSeparator();
         };
     }
 
-    private String register(SelectionKey key, String[] args) {
+    private String register(Session session, String[] args) {
         if (args.length != 2) {
             return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, REGISTER, 2,
                     REGISTER + " <email> <password>");
@@ -49,10 +79,10 @@ public class CommandExecutor {
         String email = args[0];
         String password = args[1];
 
-        return storage.registerUser(key, email, password) + System.lineSeparator();
+        return storage.registerUser(session, email, password) + System.lineSeparator();
     }
 
-    private String login(SelectionKey key, String[] args) {
+    private String login(Session session, String[] args) {
         if (args.length != 2) {
             return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, LOGIN, 2,
                     LOGIN + " <email> <password>");
@@ -60,36 +90,53 @@ public class CommandExecutor {
         String email = args[0];
         String password = args[1];
 
-        return storage.login(key, email, password) + System.lineSeparator();
+        return storage.login(session, email, password) + System.lineSeparator();
     }
 
-    private String search(SelectionKey key, String[] args) {
+    private String resume(Session session, String[] args) {
+        if (args.length != 1) {
+            return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, RESUME, 1,
+                    RESUME + " <session_token>");
+        }
+
+        return storage.resume(session, args[0]) + System.lineSeparator();
+    }
+
+    private String search(Session session, String[] args) {
         if (args.length < 1) {
             return String.format("Invalid count of arguments: search expects more than zero arguments. Example: \"%s\"" + System.lineSeparator(),
                     SEARCH + " <words>");
         }
-        return storage.searchSongByWords(key, args) +System.lineSeparator();
+        return storage.searchSongByWords(session, args) +System.lineSeparator();
     }
 
-    private String top(SelectionKey key, String[] args) {
+    private String top(Session session, String[] args) {
         if (args.length != 1) {
             return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, TOP, 1,
                     TOP + " <number>");
         }
-        return storage.topNSongsByListening(key, args[0]) + System.lineSeparator();
+        return storage.topNSongsByListening(session, args[0]) + System.lineSeparator();
+    }
+
+    private String trending(Session session, String[] args) {
+        if (args.length != 2) {
+            return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, TRENDING, 2,
+                    TRENDING + " <5m|1h|1d> <number>");
+        }
+        return storage.trendingSongs(session, args[0], args[1]) + System.lineSeparator();
     }
 
-    private String createPlaylist(SelectionKey key, String[] args) {
+    private String createPlaylist(Session session, String[] args) {
         if (args.length != 1) {
             return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, CREATE_PLAYLIST, 1,
                     CREATE_PLAYLIST + " <name_of_the_playlist>");
         }
         String playlistName = args[0];
 
-        return storage.createPlaylist(key, playlistName) + System.lineSeparator();
+        return storage.createPlaylist(session, playlistName) + System.lineSeparator();
     }
 
-    private String addSongTo(SelectionKey key, String[] args) {
+    private String addSongTo(Session session, String[] args) {
         if (args.length != 3) {
             return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, ADD_SONG_TO, 3,
                     ADD_SONG_TO + " <name_of_the_playlist> <song_name> <artist>");
@@ -98,45 +145,126 @@ public class CommandExecutor {
         String songName = args[1];
         String artist = args[2];
 
-        return storage.addSongToPlaylist(key, playlistName, songName, artist) + System.lineSeparator();
+        return storage.addSongToPlaylist(session, playlistName, songName, artist) + System.lineSeparator();
     }
 
-    private String showPlaylist(SelectionKey key, String[] args) {
+    private String showPlaylist(Session session, String[] args) {
         if (args.length != 1) {
             return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, SHOW_PLAYLIST, 1,
                     SHOW_PLAYLIST + " <name_of_the_playlist>");
         }
         String playlistName = args[0];
 
-        return storage.showPlaylist(key, playlistName) + System.lineSeparator();
+        return storage.showPlaylist(session, playlistName) + System.lineSeparator();
     }
 
-    private String play(SelectionKey key, String[] args) {
-        if (args.length != 2) {
-            return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, PLAY, 2,
-                    PLAY + " <song_name> <artist>");
+    private String play(Session session, String[] args) {
+        if (args.length != 2 && args.length != 3) {
+            return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, PLAY, 3,
+                    PLAY + " <song_name> <artist> [<seconds>]");
+        }
+        if (isTunedIn(session)) {
+            return TUNED_IN + System.lineSeparator();
         }
         String songName = args[0];
         String artist = args[1];
+        if (args.length == 2) {
+            return storage.playSong(session, songName, artist) + System.lineSeparator();
+        }
+
+        double startPosition = parsePosition(args[2]);
+        if (startPosition < 0) {
+            return INVALID_POSITION + System.lineSeparator();
+        }
+        return storage.playSong(session, songName, artist, startPosition) + System.lineSeparator();
+    }
+
+    private String seek(Session session, String[] args) {
+        if (args.length != 1) {
+            return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, SEEK, 1,
+                    SEEK + " <seconds>");
+        }
+        if (isTunedIn(session)) {
+            return TUNED_IN + System.lineSeparator();
+        }
+        double position = parsePosition(args[0]);
+        if (position < 0) {
+            return INVALID_POSITION + System.lineSeparator();
+        }
+
+        return storage.seekSong(session, position) + System.lineSeparator();
+    }
 
-        return storage.playSong(key, songName, artist) + System.lineSeparator();
+    private double parsePosition(String seconds) {
+        try {
+            double position = Double.parseDouble(seconds);
+            return Double.isFinite(position) ? position : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
-    private String stop(SelectionKey key, String[] args) {
+    private String stop(Session session, String[] args) {
         if (args.length != 0) {
             return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, STOP, 0,
                     STOP);
         }
+        if (isTunedIn(session)) {
+            return storage.tuneOut(session, radio) + System.lineSeparator();
+        }
+
+        return storage.stopSong(session) + System.lineSeparator();
+    }
+
+    private String startRadio(Session session, String[] args) {
+        if (args.length != 2) {
+            return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, START_RADIO, 2,
+                    START_RADIO + " <station_name> <name_of_the_playlist>");
+        }
+        if (radio == null) {
+            return RADIO_UNAVAILABLE + System.lineSeparator();
+        }
+
+        return storage.startRadio(session, radio, args[0], args[1]) + System.lineSeparator();
+    }
+
+    private String tuneIn(Session session, String[] args) {
+        if (args.length != 1) {
+            return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, TUNE_IN, 1,
+                    TUNE_IN + " <station_name>");
+        }
+        if (radio == null) {
+            return RADIO_UNAVAILABLE + System.lineSeparator();
+        }
 
-        return storage.stopSong(key) + System.lineSeparator();
+        return storage.tuneIn(session, radio, args[0]) + System.lineSeparator();
     }
 
-    private String disconnect(SelectionKey key, String[] args) {
+    private String tuneOut(Session session, String[] args) {
+        if (args.length != 0) {
+            return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, TUNE_OUT, 0,
+                    TUNE_OUT);
+        }
+        if (radio == null) {
+            return RADIO_UNAVAILABLE + System.lineSeparator();
+        }
+
+        return storage.tuneOut(session, radio) + System.lineSeparator();
+    }
+
+    private boolean isTunedIn(Session session) {
+        return radio != null && radio.isTunedIn(session);
+    }
+
+    private String disconnect(Session session, String[] args) {
         if (args.length != 0) {
             return String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, DISCONNECT, 0,
                     DISCONNECT);
         }
+        if (radio != null) {
+            radio.tuneOut(session);
+        }
 
-        return storage.disconnect(key) + System.lineSeparator();
+        return storage.disconnect(session) + System.lineSeparator();
     }
 }
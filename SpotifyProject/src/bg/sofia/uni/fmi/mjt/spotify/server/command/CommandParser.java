@@ -0,0 +1,41 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.command;
+
+import java.nio.ByteBuffer;
+
+public class CommandParser {
+    private static final byte SPACE = ' ';
+    private static final byte QUOTE = '"';
+
+    private final ParsedCommand command = new ParsedCommand();
+
+    public ParsedCommand parse(ByteBuffer line) {
+        command.reset(line);
+
+        boolean isInsideQuote = false;
+        boolean isQuoted = false;
+        boolean isCommand = true;
+        int tokenStart = line.position();
+        for (int i = line.position(); i < line.limit(); i++) {
+            byte current = line.get(i);
+            if (current == QUOTE) {
+                isInsideQuote = !isInsideQuote;
+                isQuoted = true;
+            } else if (current == SPACE && !isInsideQuote) {
+                addToken(tokenStart, i, isQuoted, isCommand);
+                isCommand = false;
+                isQuoted = false;
+                tokenStart = i + 1;
+            }
+        }
+        addToken(tokenStart, line.limit(), isQuoted, isCommand);
+        return command;
+    }
+
+    private void addToken(int start, int end, boolean isQuoted, boolean isCommand) {
+        if (isCommand) {
+            command.setCommand(start, end, isQuoted);
+        } else {
+            command.addArgument(start, end, isQuoted);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.command;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public enum CommandType {
+    REGISTER("register"),
+    LOGIN("login"),
+    RESUME("resume"),
+    SEARCH("search"),
+    TOP("top"),
+    TRENDING("trending"),
+    CREATE_PLAYLIST("create-playlist"),
+    ADD_SONG_TO("add-song-to"),
+    SHOW_PLAYLIST("show-playlist"),
+    PLAY("play"),
+    STOP("stop"),
+    SEEK("seek"),
+    START_RADIO("start-radio"),
+    TUNE_IN("tune-in"),
+    TUNE_OUT("tune-out"),
+    DISCONNECT("disconnect"),
+    PROTOCOL(Protocol.NEGOTIATION_COMMAND),
+    UNKNOWN("");
+
+    private static final CommandType[] KNOWN = Arrays.copyOf(values(), values().length - 1);
+
+    private final String name;
+    private final byte[] bytes;
+
+    CommandType(String name) {
+        this.name = name;
+        this.bytes = name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static CommandType of(String name) {
+        for (CommandType type : KNOWN) {
+            if (type.name.equals(name)) {
+                return type;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    public static CommandType of(ByteBuffer buffer, int start, int end) {
+        for (CommandType type : KNOWN) {
+            if (type.matches(buffer, start, end)) {
+                return type;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private boolean matches(ByteBuffer buffer, int start, int end) {
+        if (end - start != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,82 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.command;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class ParsedCommand {
+    private static final String[] NO_ARGUMENTS = new String[0];
+    private static final int INITIAL_ARGUMENTS = 8;
+    private static final String QUOTE = "\"";
+
+    private ByteBuffer line;
+    private CommandType type = CommandType.UNKNOWN;
+    private int[] starts = new int[INITIAL_ARGUMENTS];
+    private int[] ends = new int[INITIAL_ARGUMENTS];
+    private boolean[] quoted = new boolean[INITIAL_ARGUMENTS];
+    private int argumentsCount;
+
+    public CommandType getType() {
+        return type;
+    }
+
+    public int getArgumentsCount() {
+        return argumentsCount;
+    }
+
+    public String getArgument(int index) {
+        if (index < 0 || index >= argumentsCount) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return decode(starts[index], ends[index], quoted[index]);
+    }
+
+    public String[] getArguments() {
+        if (argumentsCount == 0) {
+            return NO_ARGUMENTS;
+        }
+        String[] arguments = new String[argumentsCount];
+        for (int i = 0; i < argumentsCount; i++) {
+            arguments[i] = getArgument(i);
+        }
+        return arguments;
+    }
+
+    public Command toCommand() {
+        return new Command(type.getName(), type == CommandType.UNKNOWN ? NO_ARGUMENTS : getArguments());
+    }
+
+    void reset(ByteBuffer line) {
+        this.line = line;
+        this.type = CommandType.UNKNOWN;
+        this.argumentsCount = 0;
+    }
+
+    void setCommand(int start, int end, boolean isQuoted) {
+        type = isQuoted ? CommandType.of(decode(start, end, true)) : CommandType.of(line, start, end);
+    }
+
+    void addArgument(int start, int end, boolean isQuoted) {
+        if (argumentsCount == starts.length) {
+            starts = Arrays.copyOf(starts, argumentsCount * 2);
+            ends = Arrays.copyOf(ends, argumentsCount * 2);
+            quoted = Arrays.copyOf(quoted, argumentsCount * 2);
+        }
+        starts[argumentsCount] = start;
+        ends[argumentsCount] = end;
+        quoted[argumentsCount] = isQuoted;
+        argumentsCount++;
+    }
+
+    private String decode(int start, int end, boolean isQuoted) {
+        String token;
+        if (line.hasArray()) {
+            token = new String(line.array(), line.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[end - start];
+            line.get(start, bytes);
+            token = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return isQuoted ? token.replace(QUOTE, "") : token;
+    }
+}
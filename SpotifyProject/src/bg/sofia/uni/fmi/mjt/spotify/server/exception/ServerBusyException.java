@@ -0,0 +1,7 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.exception;
+
+public class ServerBusyException extends Exception{
+    public ServerBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,63 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+public class BufferMessage implements OutboundMessage {
+    private final ByteBuffer buffer;
+    private final boolean isAudio;
+    private final int initialSize;
+    private final BufferPool bufferPool;
+
+    private BufferMessage(ByteBuffer buffer, boolean isAudio, BufferPool bufferPool) {
+        this.buffer = buffer;
+        this.isAudio = isAudio;
+        this.initialSize = buffer.remaining();
+        this.bufferPool = bufferPool;
+    }
+
+    public static BufferMessage text(String text) {
+        return new BufferMessage(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), false, null);
+    }
+
+    public static BufferMessage text(String text, BufferPool bufferPool) {
+        return new BufferMessage(bufferPool.encode(text), false, bufferPool);
+    }
+
+    public static BufferMessage audio(ByteBuffer audio) {
+        return new BufferMessage(audio, true, null);
+    }
+
+    public static BufferMessage audio(ByteBuffer audio, BufferPool bufferPool) {
+        return new BufferMessage(audio, true, bufferPool);
+    }
+
+    @Override
+    public long remaining() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public long writeTo(WritableByteChannel channel) throws IOException {
+        return channel.write(buffer);
+    }
+
+    @Override
+    public boolean isAudio() {
+        return isAudio;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return buffer.remaining() < initialSize;
+    }
+
+    @Override
+    public void release() {
+        if (bufferPool != null) {
+            bufferPool.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.output;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BufferPool {
+    private static final int[] SIZE_CLASSES = {256, 1024, 4096, 16384, 65536};
+    private static final ThreadLocal<CharsetEncoder> ENCODERS =
+            ThreadLocal.withInitial(StandardCharsets.UTF_8::newEncoder);
+
+    private final int maxPooledPerClass;
+    private final List<Queue<ByteBuffer>> pooledBuffers;
+    private final AtomicInteger[] pooledCounts;
+    private final LongAdder leases = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong outstanding = new AtomicLong();
+
+    public BufferPool(int maxPooledPerClass) {
+        if (maxPooledPerClass < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.maxPooledPerClass = maxPooledPerClass;
+        pooledBuffers = new ArrayList<>(SIZE_CLASSES.length);
+        pooledCounts = new AtomicInteger[SIZE_CLASSES.length];
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            pooledBuffers.add(new ConcurrentLinkedQueue<>());
+            pooledCounts[i] = new AtomicInteger();
+        }
+    }
+
+    public ByteBuffer lease(int size) {
+        leases.increment();
+        outstanding.incrementAndGet();
+
+        int sizeClass = getSizeClass(size);
+        if (sizeClass < 0) {
+            misses.increment();
+            return ByteBuffer.allocateDirect(size);
+        }
+
+        ByteBuffer buffer = pooledBuffers.get(sizeClass).poll();
+        if (buffer == null) {
+            misses.increment();
+            return ByteBuffer.allocateDirect(SIZE_CLASSES[sizeClass]);
+        }
+        pooledCounts[sizeClass].decrementAndGet();
+        return buffer.clear();
+    }
+
+    public void release(ByteBuffer buffer) {
+        outstanding.decrementAndGet();
+
+        int sizeClass = getSizeClass(buffer.capacity());
+        if (sizeClass < 0 || !buffer.isDirect() || buffer.isReadOnly() ||
+                SIZE_CLASSES[sizeClass] != buffer.capacity()) {
+            return;
+        }
+        if (pooledCounts[sizeClass].incrementAndGet() > maxPooledPerClass) {
+            pooledCounts[sizeClass].decrementAndGet();
+            return;
+        }
+        pooledBuffers.get(sizeClass).add(buffer);
+    }
+
+    public ByteBuffer encode(String text) {
+        CharsetEncoder encoder = ENCODERS.get().reset();
+        double maxSize = Math.ceil(text.length() * (double) encoder.maxBytesPerChar());
+        if (maxSize > SIZE_CLASSES[SIZE_CLASSES.length - 1]) {
+            leases.increment();
+            misses.increment();
+            outstanding.incrementAndGet();
+            return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        ByteBuffer buffer = lease((int) maxSize);
+        encoder.encode(CharBuffer.wrap(text), buffer, true);
+        encoder.flush(buffer);
+        return buffer.flip();
+    }
+
+    public long getLeases() {
+        return leases.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getOutstanding() {
+        return outstanding.get();
+    }
+
+    private int getSizeClass(int size) {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (size <= SIZE_CLASSES[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
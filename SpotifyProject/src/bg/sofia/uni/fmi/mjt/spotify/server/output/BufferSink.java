@@ -0,0 +1,41 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+public class BufferSink implements WritableByteChannel {
+    private final ByteBuffer buffer;
+
+    public BufferSink(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public static void drain(OutboundMessage message, ByteBuffer buffer) throws IOException {
+        try {
+            BufferSink sink = new BufferSink(buffer);
+            while (message.remaining() > 0 && buffer.hasRemaining()) {
+                message.writeTo(sink);
+            }
+        } finally {
+            message.release();
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer source) {
+        int count = Math.min(buffer.remaining(), source.remaining());
+        buffer.put(source.slice(source.position(), count));
+        source.position(source.position() + count);
+        return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,48 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.output;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+public class FileRegionMessage implements OutboundMessage {
+    private final FileChannel fileChannel;
+    private final long end;
+    private final long start;
+    private final Runnable onRelease;
+    private long position;
+
+    public FileRegionMessage(FileChannel fileChannel, long position, long count, Runnable onRelease) {
+        this.fileChannel = fileChannel;
+        this.start = position;
+        this.position = position;
+        this.end = position + count;
+        this.onRelease = onRelease;
+    }
+
+    @Override
+    public long remaining() {
+        return end - position;
+    }
+
+    @Override
+    public long writeTo(WritableByteChannel channel) throws IOException {
+        long written = fileChannel.transferTo(position, end - position, channel);
+        position += written;
+        return written;
+    }
+
+    @Override
+    public boolean isAudio() {
+        return true;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return position > start;
+    }
+
+    @Override
+    public void release() {
+        onRelease.run();
+    }
+}
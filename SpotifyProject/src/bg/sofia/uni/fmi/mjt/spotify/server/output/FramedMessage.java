@@ -0,0 +1,57 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+public class FramedMessage implements OutboundMessage {
+    private final ByteBuffer header;
+    private final OutboundMessage payload;
+    private final boolean isAudio;
+    private final BufferPool bufferPool;
+
+    public FramedMessage(ByteBuffer header, OutboundMessage payload, boolean isAudio, BufferPool bufferPool) {
+        this.header = header;
+        this.payload = payload;
+        this.isAudio = isAudio;
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public long remaining() {
+        return header.remaining() + (payload == null ? 0 : payload.remaining());
+    }
+
+    @Override
+    public long writeTo(WritableByteChannel channel) throws IOException {
+        long written = 0;
+        if (header.hasRemaining()) {
+            written += channel.write(header);
+            if (header.hasRemaining()) {
+                return written;
+            }
+        }
+        if (payload != null) {
+            written += payload.writeTo(channel);
+        }
+        return written;
+    }
+
+    @Override
+    public boolean isAudio() {
+        return isAudio;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return header.position() > 0;
+    }
+
+    @Override
+    public void release() {
+        bufferPool.release(header);
+        if (payload != null) {
+            payload.release();
+        }
+    }
+}
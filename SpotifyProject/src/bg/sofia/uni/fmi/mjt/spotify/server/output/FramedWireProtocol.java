@@ -0,0 +1,61 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.output;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.FrameType;
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Protocol;
+
+import java.nio.ByteBuffer;
+
+public class FramedWireProtocol implements WireProtocol {
+    private final BufferPool bufferPool;
+    private final boolean isCompressingAudio;
+
+    public FramedWireProtocol(BufferPool bufferPool) {
+        this(bufferPool, false);
+    }
+
+    public FramedWireProtocol(BufferPool bufferPool, boolean isCompressingAudio) {
+        this.bufferPool = bufferPool;
+        this.isCompressingAudio = isCompressingAudio;
+    }
+
+    @Override
+    public int getVersion() {
+        return Protocol.FRAMED_VERSION;
+    }
+
+    @Override
+    public boolean isCompressingAudio() {
+        return isCompressingAudio;
+    }
+
+    @Override
+    public OutboundMessage control(String text) {
+        return frame(FrameType.CONTROL, BufferMessage.text(text, bufferPool));
+    }
+
+    @Override
+    public OutboundMessage format(String format) {
+        return frame(FrameType.FORMAT, BufferMessage.text(format.strip(), bufferPool));
+    }
+
+    @Override
+    public OutboundMessage audio(OutboundMessage chunk) {
+        return frame(isCompressingAudio ? FrameType.COMPRESSED_AUDIO : FrameType.AUDIO, chunk);
+    }
+
+    @Override
+    public OutboundMessage endOfStream() {
+        return frame(FrameType.END_OF_STREAM, null);
+    }
+
+    private OutboundMessage frame(FrameType type, OutboundMessage payload) {
+        long payloadSize = payload == null ? 0 : payload.remaining();
+        if (payloadSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Frame payload is too large");
+        }
+
+        ByteBuffer header = bufferPool.lease(Protocol.FRAME_HEADER_SIZE);
+        header.put(type.getCode()).putInt((int) payloadSize).flip();
+        return new FramedMessage(header, payload, type == FrameType.AUDIO || type == FrameType.COMPRESSED_AUDIO, bufferPool);
+    }
+}
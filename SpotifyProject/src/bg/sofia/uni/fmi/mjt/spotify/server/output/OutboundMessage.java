@@ -0,0 +1,17 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.output;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+public interface OutboundMessage {
+    long remaining();
+
+    long writeTo(WritableByteChannel channel) throws IOException;
+
+    boolean isAudio();
+
+    boolean isStarted();
+
+    default void release() {
+    }
+}
@@ -0,0 +1,88 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.output;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+public class OutboundQueue {
+    private final long highWatermark;
+    private final long lowWatermark;
+    private final Deque<OutboundMessage> messages = new ArrayDeque<>();
+    private long pendingBytes;
+    private boolean isAudioPaused;
+
+    public OutboundQueue(long highWatermark, long lowWatermark) {
+        if (lowWatermark < 0 || highWatermark < lowWatermark) {
+            throw new IllegalArgumentException();
+        }
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+    }
+
+    public void add(OutboundMessage message) {
+        messages.addLast(message);
+        pendingBytes += message.remaining();
+        if (pendingBytes >= highWatermark) {
+            isAudioPaused = true;
+        }
+    }
+
+    public boolean writeTo(WritableByteChannel channel) throws IOException {
+        while (!messages.isEmpty()) {
+            OutboundMessage message = messages.peekFirst();
+            long written = message.writeTo(channel);
+            pendingBytes -= written;
+            if (message.remaining() > 0) {
+                updateAudioPause();
+                return false;
+            }
+            messages.removeFirst().release();
+        }
+        updateAudioPause();
+        return true;
+    }
+
+    public boolean isAcceptingAudio() {
+        return !isAudioPaused;
+    }
+
+    public boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    public long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    public void discardAudio() {
+        Iterator<OutboundMessage> iterator = messages.iterator();
+        while (iterator.hasNext()) {
+            OutboundMessage message = iterator.next();
+            if (message.isAudio() && !message.isStarted()) {
+                iterator.remove();
+                pendingBytes -= message.remaining();
+                message.release();
+            }
+        }
+        updateAudioPause();
+    }
+
+    public void clear() {
+        for (OutboundMessage message : messages) {
+            message.release();
+        }
+        messages.clear();
+        pendingBytes = 0;
+        isAudioPaused = false;
+    }
+
+    private void updateAudioPause() {
+        if (pendingBytes <= lowWatermark) {
+            isAudioPaused = false;
+        } else if (pendingBytes >= highWatermark) {
+            isAudioPaused = true;
+        }
+    }
+}
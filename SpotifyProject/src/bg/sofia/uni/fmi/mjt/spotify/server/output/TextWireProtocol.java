@@ -0,0 +1,43 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.output;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.Protocol;
+
+public class TextWireProtocol implements WireProtocol {
+    private static final String END_OF_STREAM = "Stop song" + System.lineSeparator();
+
+    private final BufferPool bufferPool;
+
+    public TextWireProtocol(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public int getVersion() {
+        return Protocol.TEXT_VERSION;
+    }
+
+    @Override
+    public boolean isCompressingAudio() {
+        return false;
+    }
+
+    @Override
+    public OutboundMessage control(String text) {
+        return BufferMessage.text(text, bufferPool);
+    }
+
+    @Override
+    public OutboundMessage format(String format) {
+        return BufferMessage.text(format, bufferPool);
+    }
+
+    @Override
+    public OutboundMessage audio(OutboundMessage chunk) {
+        return chunk;
+    }
+
+    @Override
+    public OutboundMessage endOfStream() {
+        return BufferMessage.text(END_OF_STREAM, bufferPool);
+    }
+}
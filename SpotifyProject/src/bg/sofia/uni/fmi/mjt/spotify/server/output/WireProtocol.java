@@ -0,0 +1,15 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.output;
+
+public interface WireProtocol {
+    int getVersion();
+
+    boolean isCompressingAudio();
+
+    OutboundMessage control(String text);
+
+    OutboundMessage format(String format);
+
+    OutboundMessage audio(OutboundMessage chunk);
+
+    OutboundMessage endOfStream();
+}
@@ -0,0 +1,73 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.radio;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.Session;
+import bg.sofia.uni.fmi.mjt.spotify.server.Storage;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongStreamFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class Radio {
+    public static final String TUNE_IN_PREFIX = "radio+";
+
+    private final SongStreamFactory songStreamFactory;
+    private final Storage storage;
+    private final ExecutorService producers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Station> stations = new ConcurrentHashMap<>();
+
+    public Radio(SongStreamFactory songStreamFactory, Storage storage) {
+        this.songStreamFactory = songStreamFactory;
+        this.storage = storage;
+    }
+
+    public boolean startStation(String stationName, List<String> songPaths) {
+        Station station = new Station(stationName, songPaths, songStreamFactory, storage);
+        if (stations.putIfAbsent(stationName, station) != null) {
+            return false;
+        }
+        producers.submit(() -> {
+            try {
+                station.run();
+            } finally {
+                stations.remove(stationName, station);
+            }
+        });
+        return true;
+    }
+
+    public boolean isStationExists(String stationName) {
+        return stations.containsKey(stationName);
+    }
+
+    public RadioSubscription tuneIn(Session session, String stationName, Runnable listener) {
+        Station station = stations.get(stationName);
+        if (station == null || isTunedIn(session)) {
+            return null;
+        }
+        RadioSubscription subscription = station.subscribe(listener);
+        session.setRadioSubscription(subscription);
+        return subscription;
+    }
+
+    public boolean isTunedIn(Session session) {
+        return session.getRadioSubscription() != null;
+    }
+
+    public boolean tuneOut(Session session) {
+        RadioSubscription subscription = session.getRadioSubscription();
+        if (subscription == null) {
+            return false;
+        }
+        session.setRadioSubscription(null);
+        subscription.close();
+        return true;
+    }
+
+    public void stop() {
+        stations.values().forEach(Station::stop);
+        producers.shutdown();
+    }
+}
@@ -0,0 +1,29 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.radio;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferMessage;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+
+import java.nio.ByteBuffer;
+
+public record RadioChunk(Type type, long sequence, int songIndex, String format,
+                         ByteBuffer audio, ByteBuffer compressedAudio) {
+    public enum Type {
+        FORMAT, AUDIO, END_OF_SONG, END_OF_STATION
+    }
+
+    static final RadioChunk END_OF_SONG = new RadioChunk(Type.END_OF_SONG, -1, -1, null, null, null);
+    static final RadioChunk END_OF_STATION = new RadioChunk(Type.END_OF_STATION, -1, -1, null, null, null);
+
+    static RadioChunk audio(long sequence, int songIndex, String format, ByteBuffer audio, ByteBuffer compressedAudio) {
+        return new RadioChunk(Type.AUDIO, sequence, songIndex, format,
+                audio.asReadOnlyBuffer(), compressedAudio.asReadOnlyBuffer());
+    }
+
+    RadioChunk toFormat() {
+        return new RadioChunk(Type.FORMAT, sequence, songIndex, format, null, null);
+    }
+
+    public OutboundMessage toMessage(boolean isCompressed) {
+        return BufferMessage.audio((isCompressed ? compressedAudio : audio).duplicate());
+    }
+}
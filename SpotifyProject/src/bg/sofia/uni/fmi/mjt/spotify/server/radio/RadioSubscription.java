@@ -0,0 +1,78 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.radio;
+
+public class RadioSubscription {
+    private static final int NO_SONG = -1;
+
+    private final Station station;
+    private final Runnable listener;
+    private long cursor;
+    private int songIndex = NO_SONG;
+    private boolean isFinished;
+    private volatile boolean isClosed;
+
+    RadioSubscription(Station station, Runnable listener) {
+        this.station = station;
+        this.listener = listener;
+        this.cursor = station.getLiveSequence();
+    }
+
+    public String getStationName() {
+        return station.getName();
+    }
+
+    public synchronized RadioChunk next() {
+        if (isClosed || isFinished) {
+            return null;
+        }
+
+        while (true) {
+            if (cursor < station.getOldestSequence()) {
+                cursor = station.getLiveSequence();
+            }
+
+            RadioChunk chunk = station.getChunk(cursor);
+            if (chunk != null) {
+                return nextChunk(chunk);
+            }
+            if (cursor < station.getNextSequence()) {
+                continue;
+            }
+            if (!station.isFinished()) {
+                return null;
+            }
+            if (songIndex != NO_SONG) {
+                songIndex = NO_SONG;
+                return RadioChunk.END_OF_SONG;
+            }
+            isFinished = true;
+            return RadioChunk.END_OF_STATION;
+        }
+    }
+
+    public boolean isClosed() {
+        return isClosed;
+    }
+
+    void close() {
+        isClosed = true;
+        station.unsubscribe(this);
+        notifyListener();
+    }
+
+    void notifyListener() {
+        listener.run();
+    }
+
+    private RadioChunk nextChunk(RadioChunk chunk) {
+        if (chunk.songIndex() != songIndex) {
+            if (songIndex != NO_SONG) {
+                songIndex = NO_SONG;
+                return RadioChunk.END_OF_SONG;
+            }
+            songIndex = chunk.songIndex();
+            return chunk.toFormat();
+        }
+        cursor++;
+        return chunk;
+    }
+}
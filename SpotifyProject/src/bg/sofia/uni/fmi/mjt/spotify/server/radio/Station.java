@@ -0,0 +1,156 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.radio;
+
+import bg.sofia.uni.fmi.mjt.spotify.codec.LosslessEncoder;
+import bg.sofia.uni.fmi.mjt.spotify.server.Storage;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferSink;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+import bg.sofia.uni.fmi.mjt.spotify.server.song.SongStorage;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongStream;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongStreamFactory;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.StreamPacer;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.StreamPacing;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+public class Station implements Runnable {
+    private static final int MIN_CAPACITY = 16;
+    private static final int CAPACITY_PER_LIVE_CHUNK = 4;
+
+    private final String name;
+    private final List<String> songPaths;
+    private final SongStreamFactory songStreamFactory;
+    private final Storage storage;
+    private final AtomicReferenceArray<RadioChunk> chunks;
+    private final int liveDelayChunks;
+    private final Set<RadioSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    private volatile long nextSequence;
+    private volatile boolean isFinished;
+    private volatile boolean isStopped;
+
+    public Station(String name, List<String> songPaths, SongStreamFactory songStreamFactory, Storage storage) {
+        this.name = name;
+        this.songPaths = List.copyOf(songPaths);
+        this.songStreamFactory = songStreamFactory;
+        this.storage = storage;
+
+        StreamPacing pacing = songStreamFactory.getPacing();
+        this.liveDelayChunks = (int) Math.ceil((double) pacing.getReadAheadMillis() /
+                Math.max(1, pacing.getChunkDurationMillis()));
+        this.chunks = new AtomicReferenceArray<>(Math.max(MIN_CAPACITY, CAPACITY_PER_LIVE_CHUNK * liveDelayChunks));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isFinished() {
+        return isFinished;
+    }
+
+    public int getCapacity() {
+        return chunks.length();
+    }
+
+    @Override
+    public void run() {
+        long songStartNanos = System.nanoTime();
+        for (int i = 0; i < songPaths.size() && !isStopped; i++) {
+            try {
+                SongStream songStream = songStreamFactory.open(songPaths.get(i));
+                try {
+                    songStartNanos += broadcast(i, songStream, songStartNanos);
+                } finally {
+                    songStream.close();
+                }
+            } catch (UnsupportedAudioFileException | IOException e) {
+                storage.storeLog(e, "An error occurred while broadcasting song " + songPaths.get(i) +
+                        " on station " + name + System.lineSeparator(), Arrays.toString(e.getStackTrace()));
+            }
+        }
+        isFinished = true;
+        subscriptions.forEach(RadioSubscription::notifyListener);
+    }
+
+    public void stop() {
+        isStopped = true;
+    }
+
+    RadioSubscription subscribe(Runnable listener) {
+        RadioSubscription subscription = new RadioSubscription(this, listener);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    void unsubscribe(RadioSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    long getNextSequence() {
+        return nextSequence;
+    }
+
+    long getOldestSequence() {
+        return Math.max(0, nextSequence + 1 - chunks.length());
+    }
+
+    long getLiveSequence() {
+        return Math.max(getOldestSequence(), nextSequence - liveDelayChunks);
+    }
+
+    RadioChunk getChunk(long sequence) {
+        if (sequence < 0 || sequence >= nextSequence) {
+            return null;
+        }
+        RadioChunk chunk = chunks.get((int) (sequence % chunks.length()));
+        return chunk != null && chunk.sequence() == sequence ? chunk : null;
+    }
+
+    void publish(RadioChunk chunk) {
+        chunks.set((int) (chunk.sequence() % chunks.length()), chunk);
+        nextSequence = chunk.sequence() + 1;
+        subscriptions.forEach(RadioSubscription::notifyListener);
+    }
+
+    // Songs are paced on one station clock, so the read-ahead is granted once and not per song
+    private long broadcast(int songIndex, SongStream songStream, long startNanos) throws IOException {
+        AudioFormat format = songStream.getFormat();
+        String songFormat = SongStorage.audioFormatToString(format) + "," + songStream.getFrameLength() +
+                System.lineSeparator();
+        LosslessEncoder encoder = new LosslessEncoder(format.getChannels(), format.getSampleSizeInBits(),
+                AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding()), format.isBigEndian());
+        StreamPacer pacer = songStreamFactory.getPacing().newPacer(songStream.getByteRate(), startNanos);
+
+        while (!isStopped) {
+            long delayNanos = pacer.getDelayNanos(System.nanoTime());
+            if (delayNanos > 0) {
+                LockSupport.parkNanos(delayNanos);
+                continue;
+            }
+
+            OutboundMessage chunk = songStream.nextChunk();
+            if (chunk == null) {
+                break;
+            }
+            ByteBuffer audio = ByteBuffer.allocate((int) chunk.remaining());
+            BufferSink.drain(chunk, audio);
+            audio.flip();
+            ByteBuffer compressedAudio = ByteBuffer.allocate(encoder.getMaxEncodedSize(audio.remaining()));
+            encoder.encode(audio.duplicate(), compressedAudio);
+            compressedAudio.flip();
+
+            pacer.onSent(audio.remaining());
+            publish(RadioChunk.audio(nextSequence, songIndex, songFormat, audio, compressedAudio));
+        }
+        return pacer.getSentNanos();
+    }
+}
@@ -0,0 +1,76 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.song;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ListeningRanking {
+    private static final Comparator<Rank> BY_LISTENERS = Comparator.comparingInt(Rank::listeners).reversed()
+            .thenComparing(rank -> rank.song().getName())
+            .thenComparing(rank -> rank.song().getArtist());
+
+    private final ConcurrentSkipListSet<Rank> ranks = new ConcurrentSkipListSet<>(BY_LISTENERS);
+    private final Map<Song, Position> positions = new ConcurrentHashMap<>();
+
+    public void update(Song song) {
+        if (song == null) {
+            throw new IllegalArgumentException();
+        }
+
+        Position position = positions.get(song);
+        if (position == null) {
+            position = positions.computeIfAbsent(song, key -> new Position());
+        }
+        // Whoever is already moving the song re-reads its counter before leaving, so a busy song is skipped here
+        while (!position.isMoving.get() && position.isMoving.compareAndSet(false, true)) {
+            int listeners;
+            try {
+                listeners = song.getListenedAtTheMoment();
+                move(song, position.listeners, listeners);
+                position.listeners = listeners;
+            } finally {
+                position.isMoving.set(false);
+            }
+            if (song.getListenedAtTheMoment() == listeners) {
+                return;
+            }
+        }
+    }
+
+    public List<Song> getTop(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException();
+        }
+        return ranks.stream()
+                .limit(n)
+                .map(Rank::song)
+                .toList();
+    }
+
+    public int size() {
+        return ranks.size();
+    }
+
+    private void move(Song song, int from, int to) {
+        if (from == to) {
+            return;
+        }
+        if (from > 0) {
+            ranks.remove(new Rank(song, from));
+        }
+        if (to > 0) {
+            ranks.add(new Rank(song, to));
+        }
+    }
+
+    private record Rank(Song song, int listeners) {
+    }
+
+    private static class Position {
+        private final AtomicBoolean isMoving = new AtomicBoolean();
+        private int listeners;
+    }
+}
@@ -25,11 +25,14 @@ public class Playlist {
         songs.put(songName, artist);
     }
 
+    public Map<String, String> getSongs() {
+        return Map.copyOf(songs);
+    }
+
     public String show() {
         return songs.entrySet().stream()
                 .map(song -> song.getKey() + " - " + song.getValue() + System.lineSeparator())
-                .reduce(String::concat)
-                .orElse("There are no songs.");
+                .collect(SongStorage.joiningOrElse("There are no songs."));
     }
 
     @Override
@@ -1,22 +1,32 @@
 package bg.sofia.uni.fmi.mjt.spotify.server.song;
 
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.PackedSong;
+
 import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
 
 public class Song {
+    private static final AtomicReferenceFieldUpdater<Song, LongAdder> LISTENERS =
+            AtomicReferenceFieldUpdater.newUpdater(Song.class, LongAdder.class, "listeners");
+
     private String name;
     private String artist;
     private String fileName;
-    private int listenedAtTheMoment;
+    private transient volatile LongAdder listeners;
+    private transient volatile AudioFormat format;
 
     public Song(String name, String artist, String fileName) {
         this.name = name;
         this.artist = artist;
         this.fileName = fileName;
-        listenedAtTheMoment = 0;
     }
 
     public boolean ifConstrainsAllWords(String...words) {
@@ -32,11 +42,11 @@ public class Song {
     }
 
     public void listen() {
-        listenedAtTheMoment++;
+        getListeners().increment();
     }
 
     public void stopListen() {
-        listenedAtTheMoment--;
+        getListeners().decrement();
     }
 
     public String getName() {
@@ -48,11 +58,33 @@ public class Song {
     }
 
     public AudioFormat getFormat () throws UnsupportedAudioFileException, IOException {
-        return AudioSystem.getAudioInputStream(new File(getSongPath())).getFormat();
+        if (format == null) {
+            format = readFormat();
+        }
+        return format;
+    }
+
+    private AudioFormat readFormat() throws UnsupportedAudioFileException, IOException {
+        Path packedSong = PackedSong.getPackedPath(Path.of(getSongPath()));
+        if (Files.exists(packedSong)) {
+            return PackedSong.read(packedSong).getFormat();
+        }
+        try (AudioInputStream audioStream = AudioSystem.getAudioInputStream(new File(getSongPath()))) {
+            return audioStream.getFormat();
+        }
     }
 
     public int getListenedAtTheMoment() {
-        return listenedAtTheMoment;
+        return getListeners().intValue();
+    }
+
+    private LongAdder getListeners() {
+        LongAdder current = listeners;
+        if (current == null) {
+            LISTENERS.compareAndSet(this, null, new LongAdder());
+            current = listeners;
+        }
+        return current;
     }
 
     public String getSongPath() {
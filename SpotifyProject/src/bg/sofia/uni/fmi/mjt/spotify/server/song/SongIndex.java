@@ -0,0 +1,174 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.song;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class SongIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final Postings NO_SONGS = new Postings();
+
+    private final List<Song> songs = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<String> artists = new ArrayList<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(Song song) {
+        if (song == null) {
+            throw new IllegalArgumentException();
+        }
+
+        String name = song.getName().toLowerCase();
+        String artist = song.getArtist().toLowerCase();
+        lock.writeLock().lock();
+        try {
+            int id = songs.size();
+            songs.add(song);
+            names.add(name);
+            artists.add(artist);
+            addGrams(name, id);
+            addGrams(artist, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Song> search(String... words) {
+        if (words == null || Arrays.stream(words).anyMatch(word -> word == null)) {
+            throw new IllegalArgumentException();
+        }
+
+        String[] lowerCaseWords = Arrays.stream(words)
+                .map(String::toLowerCase)
+                .toArray(String[]::new);
+        String[] wordsToVerify = Arrays.stream(lowerCaseWords)
+                .filter(word -> word.length() > GRAM_LENGTH)
+                .toArray(String[]::new);
+        lock.readLock().lock();
+        try {
+            List<Postings> candidates = new ArrayList<>();
+            for (String word : lowerCaseWords) {
+                for (String gram : getQueryGrams(word)) {
+                    candidates.add(postings.getOrDefault(gram, NO_SONGS));
+                }
+            }
+            candidates.sort(Comparator.comparingInt(gramPostings -> gramPostings.size));
+
+            List<Song> result = new ArrayList<>();
+            if (candidates.isEmpty()) {
+                return new ArrayList<>(songs);
+            }
+            int[] positions = new int[candidates.size()];
+            int id = 0;
+            while (true) {
+                if (!seekAll(candidates, positions, id)) {
+                    return result;
+                }
+                int found = candidates.get(0).ids[positions[0]];
+                if (isInAll(candidates, positions, found)) {
+                    addIfMatches(result, found, wordsToVerify);
+                    id = found + 1;
+                } else {
+                    id = found;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return songs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addGrams(String text, int id) {
+        for (int length = 1; length <= GRAM_LENGTH; length++) {
+            for (int start = 0; start + length <= text.length(); start++) {
+                postings.computeIfAbsent(text.substring(start, start + length), gram -> new Postings()).add(id);
+            }
+        }
+    }
+
+    // Words up to GRAM_LENGTH are grams themselves; longer ones are narrowed down by all their trigrams
+    private static List<String> getQueryGrams(String word) {
+        if (word.length() <= GRAM_LENGTH) {
+            return word.isEmpty() ? List.of() : List.of(word);
+        }
+        List<String> grams = new ArrayList<>();
+        for (int start = 0; start + GRAM_LENGTH <= word.length(); start++) {
+            grams.add(word.substring(start, start + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    // Leapfrogs the rarest postings to the largest id the others have reached, so most ids are never visited
+    private static boolean seekAll(List<Postings> candidates, int[] positions, int id) {
+        int target = id;
+        for (int i = 0; i < candidates.size(); i++) {
+            Postings gramPostings = candidates.get(i);
+            positions[i] = gramPostings.seek(positions[i], target);
+            if (positions[i] == gramPostings.size) {
+                return false;
+            }
+            target = Math.max(target, gramPostings.ids[positions[i]]);
+        }
+        positions[0] = candidates.get(0).seek(positions[0], target);
+        return positions[0] < candidates.get(0).size;
+    }
+
+    private static boolean isInAll(List<Postings> candidates, int[] positions, int id) {
+        for (int i = 0; i < candidates.size(); i++) {
+            if (candidates.get(i).ids[positions[i]] != id) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Only words longer than a gram can have all their grams without containing the whole word
+    private void addIfMatches(List<Song> result, int id, String[] wordsToVerify) {
+        String name = names.get(id);
+        String artist = artists.get(id);
+        for (String word : wordsToVerify) {
+            if (!name.contains(word) && !artist.contains(word)) {
+                return;
+            }
+        }
+        result.add(songs.get(id));
+    }
+
+    private static class Postings {
+        private int[] ids = new int[1];
+        private int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        int seek(int from, int id) {
+            int bound = 1;
+            while (from + bound < size && ids[from + bound] < id) {
+                bound *= 2;
+            }
+            int position = Arrays.binarySearch(ids, from, Math.min(from + bound + 1, size), id);
+            return position < 0 ? -position - 1 : position;
+        }
+    }
+}
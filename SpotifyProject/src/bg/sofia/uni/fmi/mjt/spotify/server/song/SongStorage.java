@@ -1,18 +1,48 @@
 package bg.sofia.uni.fmi.mjt.spotify.server.song;
 
+import bg.sofia.uni.fmi.mjt.spotify.server.exception.SongAlreadyExistsException;
 import bg.sofia.uni.fmi.mjt.spotify.server.exception.SongNotFoundException;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
 
 public class SongStorage {
     private static final String COMMA = ",";
-    private Map<List<String>, Song> songs;
+    private final Map<List<String>, Song> songs;
+    private final ListeningRanking ranking = new ListeningRanking();
+    private final TrendingCharts trending = new TrendingCharts();
+    private final SongIndex index = new SongIndex();
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final AtomicLong listeningVersion = new AtomicLong();
 
     public SongStorage(Map<List<String>, Song> songs) {
-        this.songs = songs;
+        this.songs = new ConcurrentHashMap<>(songs);
+        this.songs.values().forEach(index::add);
+    }
+
+    public void addSong(Song song) throws SongAlreadyExistsException {
+        if (song == null) {
+            throw new IllegalArgumentException();
+        }
+        if (songs.putIfAbsent(List.of(song.getName(), song.getArtist()), song) != null) {
+            throw new SongAlreadyExistsException();
+        }
+        index.add(song);
+        catalogVersion.incrementAndGet();
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    public long getTopVersion() {
+        return catalogVersion.get() + listeningVersion.get();
     }
 
     public String search(String... words) {
@@ -21,37 +51,52 @@ public class SongStorage {
                 .count() != 0) {
             throw new IllegalArgumentException();
         }
-        return songs.values().stream()
-                .filter(song -> song.ifConstrainsAllWords(words))
+        return index.search(words).stream()
                 .map(song -> song.getName() + " - " + song.getArtist() + System.lineSeparator())
-                .reduce(String::concat)
-                .orElse("There is no song that contains these words in its name and artist");
+                .collect(joiningOrElse("There is no song that contains these words in its name and artist"));
     }
 
     public String getTopNListenedSongsAtTheMoment(int n) {
         if (n < 0) {
             throw new IllegalArgumentException();
         }
-        return songs.values().stream()
-                .filter(song -> song.getListenedAtTheMoment() > 0)
-                .sorted(Comparator.comparing(Song::getListenedAtTheMoment).reversed())
-                .limit(n)
+        return ranking.getTop(n).stream()
                 .map(song -> song.getName() + " - " + song.getArtist() + System.lineSeparator())
-                .reduce(String::concat)
-                .orElse("No songs are currently being listened to.");
+                .collect(joiningOrElse("No songs are currently being listened to."));
+    }
+
+    public String getTrendingSongs(TrendingWindow window, int n) {
+        if (window == null || n < 0) {
+            throw new IllegalArgumentException();
+        }
+        return trending.getTrending(window, n, System.nanoTime()).stream()
+                .map(song -> song.getName() + " - " + song.getArtist() + System.lineSeparator())
+                .collect(joiningOrElse("No songs have been played in the last " + window.getName() + "."));
+    }
+
+    public long getTrendingVersion(TrendingWindow window) {
+        return trending.getVersion(window, System.nanoTime());
     }
 
     public String play(String songName, String artist) throws SongNotFoundException, UnsupportedAudioFileException, IOException {
+        String playInfo = getPlayInfo(songName, artist);
+        Song song = songs.get(List.of(songName, artist));
+        song.listen();
+        ranking.update(song);
+        trending.record(song, System.nanoTime());
+        listeningVersion.incrementAndGet();
+        return playInfo;
+    }
+
+    public String getPlayInfo(String songName, String artist) throws SongNotFoundException, UnsupportedAudioFileException, IOException {
         if (songName == null || artist == null) {
             throw new IllegalArgumentException();
         }
 
-        List key = List.of(songName, artist);
-        if (songs.get(key) == null) {
+        Song song = songs.get(List.of(songName, artist));
+        if (song == null) {
             throw new SongNotFoundException();
         }
-        Song song = songs.get(key);
-        song.listen();
         return song.getSongPath() + "+" + audioFormatToString(song.getFormat());
     }
 
@@ -60,14 +105,21 @@ public class SongStorage {
             throw new IllegalArgumentException();
         }
 
-        List key = List.of(songName, artist);
-        if (songs.get(key) == null) {
+        Song song = songs.get(List.of(songName, artist));
+        if (song == null) {
             throw new SongNotFoundException();
         }
-        songs.get(key).stopListen();
+        song.stopListen();
+        ranking.update(song);
+        listeningVersion.incrementAndGet();
+    }
+
+    static Collector<CharSequence, ?, String> joiningOrElse(String emptyResult) {
+        return Collectors.collectingAndThen(Collectors.joining(),
+                joined -> joined.isEmpty() ? emptyResult : joined);
     }
 
-    private String audioFormatToString(AudioFormat audioFormat) {
+    public static String audioFormatToString(AudioFormat audioFormat) {
         String format = "format,";
         format += audioFormat.getSampleRate() + COMMA;
         format += audioFormat.getSampleSizeInBits() + COMMA;
@@ -82,6 +134,18 @@ public class SongStorage {
         if (songName == null || artist == null) {
             throw new IllegalArgumentException();
         }
-        return songs.get(new String[]{songName, artist}) != null;
+        return songs.get(List.of(songName, artist)) != null;
+    }
+
+    public String getSongPath(String songName, String artist) throws SongNotFoundException {
+        if (songName == null || artist == null) {
+            throw new IllegalArgumentException();
+        }
+
+        Song song = songs.get(List.of(songName, artist));
+        if (song == null) {
+            throw new SongNotFoundException();
+        }
+        return song.getSongPath();
     }
 }
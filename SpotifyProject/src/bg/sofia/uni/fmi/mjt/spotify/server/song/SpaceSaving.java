@@ -0,0 +1,73 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.song;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SpaceSaving<T> {
+    private final int capacity;
+    private final Map<T, Long> counts;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+        this.counts = new LinkedHashMap<>();
+    }
+
+    public void add(T item) {
+        add(item, 1);
+    }
+
+    public void add(T item, long count) {
+        if (item == null || count < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        Long current = counts.get(item);
+        if (current != null) {
+            counts.put(item, current + count);
+        } else if (counts.size() < capacity) {
+            counts.put(item, count);
+        } else {
+            // The newcomer takes over the least counted item and inherits its count as a possible overestimate
+            Map.Entry<T, Long> minimum = counts.entrySet().stream()
+                    .min(Map.Entry.comparingByValue())
+                    .orElseThrow();
+            counts.remove(minimum.getKey());
+            counts.put(item, minimum.getValue() + count);
+        }
+    }
+
+    public void addAll(SpaceSaving<T> other) {
+        if (other == null) {
+            throw new IllegalArgumentException();
+        }
+        other.counts.forEach(this::add);
+    }
+
+    public long getCount(T item) {
+        return counts.getOrDefault(item, 0L);
+    }
+
+    public List<T> getTop(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException();
+        }
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<T, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(n)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public int size() {
+        return counts.size();
+    }
+
+    public void clear() {
+        counts.clear();
+    }
+}
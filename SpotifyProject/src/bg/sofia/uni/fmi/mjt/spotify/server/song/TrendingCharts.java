@@ -0,0 +1,94 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.song;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+public class TrendingCharts {
+    private static final int DEFAULT_TRACKED_SONGS = 128;
+
+    private final Map<TrendingWindow, Buckets> windows = new EnumMap<>(TrendingWindow.class);
+
+    public TrendingCharts() {
+        this(DEFAULT_TRACKED_SONGS);
+    }
+
+    public TrendingCharts(int trackedSongs) {
+        if (trackedSongs < 1) {
+            throw new IllegalArgumentException();
+        }
+        for (TrendingWindow window : TrendingWindow.values()) {
+            windows.put(window, new Buckets(window, trackedSongs));
+        }
+    }
+
+    public void record(Song song, long nanos) {
+        if (song == null) {
+            throw new IllegalArgumentException();
+        }
+        for (Buckets buckets : windows.values()) {
+            buckets.record(song, nanos);
+        }
+    }
+
+    public List<Song> getTrending(TrendingWindow window, int n, long nanos) {
+        if (window == null || n < 0) {
+            throw new IllegalArgumentException();
+        }
+        return windows.get(window).getTop(n, nanos);
+    }
+
+    public long getVersion(TrendingWindow window, long nanos) {
+        if (window == null) {
+            throw new IllegalArgumentException();
+        }
+        return windows.get(window).getVersion(nanos);
+    }
+
+    private static class Buckets {
+        private final long bucketNanos;
+        private final int trackedSongs;
+        private final List<SpaceSaving<Song>> summaries;
+        private final long[] epochs;
+        private long plays;
+
+        Buckets(TrendingWindow window, int trackedSongs) {
+            this.bucketNanos = window.getBucketNanos();
+            this.trackedSongs = trackedSongs;
+            this.summaries = new ArrayList<>(window.getBucketsCount());
+            this.epochs = new long[window.getBucketsCount()];
+            for (int i = 0; i < epochs.length; i++) {
+                summaries.add(new SpaceSaving<>(trackedSongs));
+                epochs[i] = Long.MIN_VALUE;
+            }
+        }
+
+        synchronized void record(Song song, long nanos) {
+            long epoch = Math.floorDiv(nanos, bucketNanos);
+            int index = (int) Math.floorMod(epoch, (long) epochs.length);
+            if (epochs[index] != epoch) {
+                summaries.get(index).clear();
+                epochs[index] = epoch;
+            }
+            summaries.get(index).add(song);
+            plays++;
+        }
+
+        synchronized List<Song> getTop(int n, long nanos) {
+            long epoch = Math.floorDiv(nanos, bucketNanos);
+            SpaceSaving<Song> merged = new SpaceSaving<>(trackedSongs);
+            for (int i = 0; i < epochs.length; i++) {
+                if (epochs[i] <= epoch && epochs[i] > epoch - epochs.length) {
+                    merged.addAll(summaries.get(i));
+                }
+            }
+            return merged.getTop(n);
+        }
+
+        // Both terms only grow, so the sum changes whenever a play arrives or a bucket ages out
+        synchronized long getVersion(long nanos) {
+            return plays + Math.floorDiv(nanos, bucketNanos);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.song;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public enum TrendingWindow {
+    FIVE_MINUTES("5m", TimeUnit.SECONDS.toNanos(30), 10),
+    HOUR("1h", TimeUnit.MINUTES.toNanos(5), 12),
+    DAY("1d", TimeUnit.HOURS.toNanos(1), 24);
+
+    private final String name;
+    private final long bucketNanos;
+    private final int bucketsCount;
+
+    TrendingWindow(String name, long bucketNanos, int bucketsCount) {
+        this.name = name;
+        this.bucketNanos = bucketNanos;
+        this.bucketsCount = bucketsCount;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getBucketNanos() {
+        return bucketNanos;
+    }
+
+    public int getBucketsCount() {
+        return bucketsCount;
+    }
+
+    public static TrendingWindow of(String name) {
+        for (TrendingWindow window : values()) {
+            if (window.name.equals(name)) {
+                return window;
+            }
+        }
+        return null;
+    }
+
+    public static String getNames() {
+        return Arrays.stream(values())
+                .map(TrendingWindow::getName)
+                .collect(Collectors.joining(", "));
+    }
+}
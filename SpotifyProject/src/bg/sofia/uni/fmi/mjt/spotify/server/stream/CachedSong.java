@@ -0,0 +1,33 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+public class CachedSong {
+    private final MappedByteBuffer data;
+    private int listenersCount;
+
+    CachedSong(MappedByteBuffer data) {
+        this.data = data;
+    }
+
+    public ByteBuffer slice(int offset, int length) {
+        return data.slice(offset, length).asReadOnlyBuffer();
+    }
+
+    public int getSize() {
+        return data.capacity();
+    }
+
+    void retain() {
+        listenersCount++;
+    }
+
+    void release() {
+        listenersCount--;
+    }
+
+    boolean isListened() {
+        return listenersCount > 0;
+    }
+}
@@ -0,0 +1,72 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import bg.sofia.uni.fmi.mjt.spotify.codec.LosslessEncoder;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferMessage;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferPool;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferSink;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class CompressedSongStream implements SongStream {
+    private final SongStream songStream;
+    private final BufferPool bufferPool;
+    private final LosslessEncoder encoder;
+
+    public CompressedSongStream(SongStream songStream, BufferPool bufferPool) {
+        this.songStream = songStream;
+        this.bufferPool = bufferPool;
+        AudioFormat format = songStream.getFormat();
+        this.encoder = new LosslessEncoder(format.getChannels(), format.getSampleSizeInBits(),
+                AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding()), format.isBigEndian());
+    }
+
+    @Override
+    public long getFrameLength() {
+        return songStream.getFrameLength();
+    }
+
+    @Override
+    public long getByteRate() {
+        return songStream.getByteRate();
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return songStream.getFormat();
+    }
+
+    @Override
+    public long getPosition() {
+        return songStream.getPosition();
+    }
+
+    @Override
+    public OutboundMessage nextChunk() throws IOException {
+        OutboundMessage chunk = songStream.nextChunk();
+        if (chunk == null) {
+            return null;
+        }
+
+        ByteBuffer pcm = bufferPool.lease((int) chunk.remaining());
+        BufferSink.drain(chunk, pcm);
+        pcm.flip();
+
+        ByteBuffer encoded = bufferPool.lease(encoder.getMaxEncodedSize(pcm.remaining()));
+        encoder.encode(pcm, encoded);
+        bufferPool.release(pcm);
+        return BufferMessage.audio(encoded.flip(), bufferPool);
+    }
+
+    @Override
+    public void seek(double seconds) throws IOException {
+        songStream.seek(seconds);
+    }
+
+    @Override
+    public void close() throws IOException {
+        songStream.close();
+    }
+}
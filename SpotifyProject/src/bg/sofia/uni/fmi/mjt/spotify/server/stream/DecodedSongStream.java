@@ -0,0 +1,92 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferMessage;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferPool;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class DecodedSongStream implements SongStream {
+    private final String songPath;
+    private final BufferPool bufferPool;
+    private final byte[] decoded;
+    private AudioInputStream audioStream;
+    private long position;
+
+    public DecodedSongStream(String songPath, BufferPool bufferPool, StreamPacing pacing)
+            throws UnsupportedAudioFileException, IOException {
+        this.songPath = songPath;
+        this.audioStream = AudioSystem.getAudioInputStream(new File(songPath));
+        this.bufferPool = bufferPool;
+        this.decoded = new byte[pacing.getChunkSize(audioStream.getFormat())];
+    }
+
+    @Override
+    public long getFrameLength() {
+        return audioStream.getFrameLength();
+    }
+
+    @Override
+    public long getByteRate() {
+        return StreamPacing.getByteRate(audioStream.getFormat());
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return audioStream.getFormat();
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public OutboundMessage nextChunk() throws IOException {
+        int readBytes = audioStream.read(decoded, 0, decoded.length);
+        if (readBytes < 0) {
+            return null;
+        }
+        position += readBytes;
+        ByteBuffer chunk = bufferPool.lease(readBytes);
+        chunk.put(decoded, 0, readBytes).flip();
+        return BufferMessage.audio(chunk, bufferPool);
+    }
+
+    @Override
+    public void seek(double seconds) throws IOException {
+        long offset = SongStream.getByteOffset(audioStream.getFormat(), seconds);
+        if (offset < position) {
+            reopen();
+        }
+        while (position < offset) {
+            long skipped = audioStream.skip(offset - position);
+            if (skipped <= 0) {
+                return;
+            }
+            position += skipped;
+        }
+    }
+
+    private void reopen() throws IOException {
+        try {
+            AudioInputStream reopened = AudioSystem.getAudioInputStream(new File(songPath));
+            audioStream.close();
+            audioStream = reopened;
+            position = 0;
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        audioStream.close();
+    }
+}
@@ -0,0 +1,71 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferMessage;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+
+public class MappedSongStream implements SongStream {
+    private final SongCache songCache;
+    private final CachedSong song;
+    private final AudioFormat format;
+    private final long frameLength;
+    private final long byteRate;
+    private final int chunkSize;
+    private int position;
+    private boolean isClosed;
+
+    public MappedSongStream(SongCache songCache, String songPath, WavFile wavFile, StreamPacing pacing) throws IOException {
+        this.songCache = songCache;
+        this.song = songCache.acquire(songPath, wavFile);
+        this.format = wavFile.getFormat();
+        this.frameLength = wavFile.getFrameLength();
+        this.byteRate = StreamPacing.getByteRate(wavFile.getFormat());
+        this.chunkSize = pacing.getChunkSize(wavFile.getFormat());
+    }
+
+    @Override
+    public long getFrameLength() {
+        return frameLength;
+    }
+
+    @Override
+    public long getByteRate() {
+        return byteRate;
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public OutboundMessage nextChunk() {
+        if (position >= song.getSize()) {
+            return null;
+        }
+        int length = Math.min(chunkSize, song.getSize() - position);
+        OutboundMessage chunk = BufferMessage.audio(song.slice(position, length));
+        position += length;
+        return chunk;
+    }
+
+    @Override
+    public void seek(double seconds) {
+        position = (int) SongStream.getByteOffset(format, seconds, song.getSize());
+    }
+
+    @Override
+    public void close() {
+        if (!isClosed) {
+            isClosed = true;
+            songCache.release(song);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class PackedSong {
+    public static final String EXTENSION = ".spk";
+
+    static final int HEADER_SIZE = 52;
+
+    private static final int MAGIC = 0x53504B31;
+    private static final byte COMPRESSED_FLAG = 1;
+    private static final byte TRUE = 1;
+
+    private final AudioFormat format;
+    private final long frameLength;
+    private final int blockFrames;
+    private final boolean isCompressed;
+    private final long[] blockOffsets;
+
+    PackedSong(AudioFormat format, long frameLength, int blockFrames, boolean isCompressed, long[] blockOffsets) {
+        this.format = format;
+        this.frameLength = frameLength;
+        this.blockFrames = blockFrames;
+        this.isCompressed = isCompressed;
+        this.blockOffsets = blockOffsets;
+    }
+
+    public static Path getPackedPath(Path songPath) {
+        return songPath.resolveSibling(songPath.getFileName() + EXTENSION);
+    }
+
+    public static PackedSong read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a packed song: " + path);
+            }
+            boolean isCompressed = (header.get() & COMPRESSED_FLAG) != 0;
+            boolean isSigned = header.get() == TRUE;
+            boolean isBigEndian = header.get() == TRUE;
+            header.get();
+            AudioFormat format = new AudioFormat(
+                    isSigned ? AudioFormat.Encoding.PCM_SIGNED : AudioFormat.Encoding.PCM_UNSIGNED,
+                    header.getFloat(), header.getInt(), header.getInt(), header.getInt(), header.getFloat(),
+                    isBigEndian);
+            long frameLength = header.getLong();
+            int blockFrames = header.getInt();
+            int blocksCount = header.getInt();
+            long indexOffset = header.getLong();
+
+            ByteBuffer index = readFully(channel, indexOffset, (blocksCount + 1) * Long.BYTES);
+            long[] blockOffsets = new long[blocksCount + 1];
+            for (int i = 0; i < blockOffsets.length; i++) {
+                blockOffsets[i] = index.getLong();
+            }
+            return new PackedSong(format, frameLength, blockFrames, isCompressed, blockOffsets);
+        }
+    }
+
+    void write(FileChannel channel) throws IOException {
+        ByteBuffer index = ByteBuffer.allocate(blockOffsets.length * Long.BYTES);
+        for (long blockOffset : blockOffsets) {
+            index.putLong(blockOffset);
+        }
+        writeFully(channel, index.flip(), getIndexOffset());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .put(isCompressed ? COMPRESSED_FLAG : 0)
+                .put(AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding()) ? TRUE : 0)
+                .put(format.isBigEndian() ? TRUE : 0)
+                .put((byte) 0)
+                .putFloat(format.getSampleRate())
+                .putInt(format.getSampleSizeInBits())
+                .putInt(format.getChannels())
+                .putInt(format.getFrameSize())
+                .putFloat(format.getFrameRate())
+                .putLong(frameLength)
+                .putInt(blockFrames)
+                .putInt(getBlocksCount())
+                .putLong(getIndexOffset());
+        writeFully(channel, header.flip(), 0);
+    }
+
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    public long getFrameLength() {
+        return frameLength;
+    }
+
+    public int getBlockFrames() {
+        return blockFrames;
+    }
+
+    public boolean isCompressed() {
+        return isCompressed;
+    }
+
+    public int getBlocksCount() {
+        return blockOffsets.length - 1;
+    }
+
+    public long getBlockOffset(int block) {
+        return blockOffsets[block];
+    }
+
+    public int getBlockLength(int block) {
+        return (int) (blockOffsets[block + 1] - blockOffsets[block]);
+    }
+
+    public long getPayloadOffset() {
+        return HEADER_SIZE;
+    }
+
+    public long getPayloadLength() {
+        return getIndexOffset() - HEADER_SIZE;
+    }
+
+    public int getBlockIndex(long frame) {
+        return (int) Math.min(getBlocksCount(), frame / blockFrames);
+    }
+
+    private long getIndexOffset() {
+        return blockOffsets[blockOffsets.length - 1];
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated packed song");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+}
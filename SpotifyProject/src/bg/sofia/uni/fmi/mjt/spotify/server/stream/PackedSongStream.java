@@ -0,0 +1,86 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import bg.sofia.uni.fmi.mjt.spotify.codec.LosslessDecoder;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferMessage;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferPool;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class PackedSongStream implements SongStream {
+    private final SongCache songCache;
+    private final PackedSong packedSong;
+    private final CachedSong song;
+    private final BufferPool bufferPool;
+    private final LosslessDecoder decoder;
+    private int block;
+    private boolean isClosed;
+
+    public PackedSongStream(SongCache songCache, String packedPath, PackedSong packedSong, BufferPool bufferPool,
+                            boolean isEncodedOutput) throws IOException {
+        this.songCache = songCache;
+        this.packedSong = packedSong;
+        this.song = songCache.acquire(packedPath, packedSong.getPayloadOffset(), packedSong.getPayloadLength());
+        this.bufferPool = bufferPool;
+        AudioFormat format = packedSong.getFormat();
+        this.decoder = packedSong.isCompressed() && !isEncodedOutput ?
+                new LosslessDecoder(format.getChannels(), format.isBigEndian()) : null;
+    }
+
+    @Override
+    public long getFrameLength() {
+        return packedSong.getFrameLength();
+    }
+
+    @Override
+    public long getByteRate() {
+        return StreamPacing.getByteRate(packedSong.getFormat());
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return packedSong.getFormat();
+    }
+
+    @Override
+    public long getPosition() {
+        long frame = Math.min((long) block * packedSong.getBlockFrames(), packedSong.getFrameLength());
+        return frame * packedSong.getFormat().getFrameSize();
+    }
+
+    @Override
+    public OutboundMessage nextChunk() {
+        if (block >= packedSong.getBlocksCount()) {
+            return null;
+        }
+        int offset = (int) (packedSong.getBlockOffset(block) - packedSong.getPayloadOffset());
+        ByteBuffer data = song.slice(offset, packedSong.getBlockLength(block));
+        block++;
+        if (decoder == null) {
+            return BufferMessage.audio(data);
+        }
+
+        ByteBuffer pcm = decoder.decode(data);
+        ByteBuffer chunk = bufferPool.lease(pcm.remaining());
+        chunk.put(pcm).flip();
+        return BufferMessage.audio(chunk, bufferPool);
+    }
+
+    @Override
+    public void seek(double seconds) {
+        int frameSize = Math.max(packedSong.getFormat().getFrameSize(), 1);
+        long frame = SongStream.getByteOffset(packedSong.getFormat(), seconds,
+                packedSong.getFrameLength() * frameSize) / frameSize;
+        block = frame < packedSong.getFrameLength() ? packedSong.getBlockIndex(frame) : packedSong.getBlocksCount();
+    }
+
+    @Override
+    public void close() {
+        if (!isClosed) {
+            isClosed = true;
+            songCache.release(song);
+        }
+    }
+}
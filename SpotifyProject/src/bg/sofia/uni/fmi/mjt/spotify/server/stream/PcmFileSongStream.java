@@ -0,0 +1,85 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.output.FileRegionMessage;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class PcmFileSongStream implements SongStream {
+    private final WavFile wavFile;
+    private final FileChannel fileChannel;
+    private final long chunkSize;
+    private final long end;
+    private long position;
+    private int queuedChunks;
+    private boolean isClosed;
+
+    public PcmFileSongStream(String songPath, WavFile wavFile, StreamPacing pacing) throws IOException {
+        this.wavFile = wavFile;
+        this.fileChannel = FileChannel.open(Path.of(songPath), StandardOpenOption.READ);
+        this.chunkSize = pacing.getChunkSize(wavFile.getFormat());
+        this.position = wavFile.getDataOffset();
+        this.end = wavFile.getDataOffset() + wavFile.getDataLength();
+    }
+
+    @Override
+    public long getFrameLength() {
+        return wavFile.getFrameLength();
+    }
+
+    @Override
+    public long getByteRate() {
+        return StreamPacing.getByteRate(wavFile.getFormat());
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return wavFile.getFormat();
+    }
+
+    @Override
+    public synchronized long getPosition() {
+        return position - wavFile.getDataOffset();
+    }
+
+    @Override
+    public synchronized OutboundMessage nextChunk() {
+        long count = Math.min(chunkSize, end - position);
+        if (count <= 0) {
+            return null;
+        }
+        OutboundMessage chunk = new FileRegionMessage(fileChannel, position, count, this::releaseChunk);
+        position += count;
+        queuedChunks++;
+        return chunk;
+    }
+
+    @Override
+    public synchronized void seek(double seconds) {
+        long offset = SongStream.getByteOffset(wavFile.getFormat(), seconds, wavFile.getDataLength());
+        position = wavFile.getDataOffset() + offset;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        isClosed = true;
+        if (queuedChunks == 0) {
+            fileChannel.close();
+        }
+    }
+
+    private synchronized void releaseChunk() {
+        queuedChunks--;
+        if (isClosed && queuedChunks == 0) {
+            try {
+                fileChannel.close();
+            } catch (IOException e) {
+                // Releasing runs on the sending thread, which must not fail because the song file did not close
+            }
+        }
+    }
+}
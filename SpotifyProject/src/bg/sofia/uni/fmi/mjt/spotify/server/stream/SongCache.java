@@ -0,0 +1,80 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SongCache {
+    private final long maxSize;
+    private final Map<String, CachedSong> songs = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    public SongCache(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.maxSize = maxSize;
+    }
+
+    public boolean canCache(WavFile wavFile) {
+        return canCache(wavFile.getDataLength());
+    }
+
+    public boolean canCache(long length) {
+        return length <= Math.min(maxSize, Integer.MAX_VALUE);
+    }
+
+    public CachedSong acquire(String songPath, WavFile wavFile) throws IOException {
+        return acquire(songPath, wavFile.getDataOffset(), wavFile.getDataLength());
+    }
+
+    public synchronized CachedSong acquire(String songPath, long offset, long length) throws IOException {
+        CachedSong song = songs.get(songPath);
+        if (song == null) {
+            song = new CachedSong(map(songPath, offset, length));
+            songs.put(songPath, song);
+            size += song.getSize();
+        }
+        song.retain();
+        evictColdSongs();
+        return song;
+    }
+
+    public synchronized void release(CachedSong song) {
+        song.release();
+        evictColdSongs();
+    }
+
+    public synchronized void evict(String songPath) {
+        CachedSong song = songs.remove(songPath);
+        if (song != null) {
+            size -= song.getSize();
+        }
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    private void evictColdSongs() {
+        Iterator<CachedSong> iterator = songs.values().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            CachedSong song = iterator.next();
+            if (!song.isListened()) {
+                iterator.remove();
+                size -= song.getSize();
+            }
+        }
+    }
+
+    private MappedByteBuffer map(String songPath, long offset, long length) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(Path.of(songPath), StandardOpenOption.READ)) {
+            return fileChannel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import bg.sofia.uni.fmi.mjt.spotify.codec.LosslessEncoder;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class SongPacker {
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    private static final int PCM_SAMPLE_SIZE_IN_BITS = 16;
+
+    private final StreamPacing pacing;
+    private final boolean isCompressing;
+
+    public SongPacker(StreamPacing pacing, boolean isCompressing) {
+        this.pacing = pacing;
+        this.isCompressing = isCompressing;
+    }
+
+    public Map<Path, Exception> packDirectory(Path directory) throws IOException {
+        return packDirectory(directory, song -> { });
+    }
+
+    public Map<Path, Exception> packDirectory(Path directory, Consumer<Path> onPacked) throws IOException {
+        Map<Path, Exception> failures = new LinkedHashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (!isSong(file) || isUpToDate(file)) {
+                    continue;
+                }
+                try {
+                    pack(file);
+                    onPacked.accept(file);
+                } catch (UnsupportedAudioFileException | IOException e) {
+                    failures.put(file, e);
+                }
+            }
+        }
+        return failures;
+    }
+
+    public boolean isUpToDate(Path song) throws IOException {
+        Path packedSong = PackedSong.getPackedPath(song);
+        return Files.exists(packedSong) &&
+                Files.getLastModifiedTime(packedSong).compareTo(Files.getLastModifiedTime(song)) >= 0;
+    }
+
+    public Path pack(Path song) throws UnsupportedAudioFileException, IOException {
+        Path target = PackedSong.getPackedPath(song);
+        Path temporary = target.resolveSibling(target.getFileName() + TEMPORARY_EXTENSION);
+        try (AudioInputStream audioStream = openPcm(song);
+             FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            write(audioStream, channel);
+        } catch (UnsupportedAudioFileException | IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        return Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void write(AudioInputStream audioStream, FileChannel channel) throws IOException {
+        AudioFormat format = audioStream.getFormat();
+        int frameSize = format.getFrameSize();
+        int blockFrames = Math.max(1, pacing.getChunkSize(format) / frameSize);
+        byte[] block = new byte[blockFrames * frameSize];
+        LosslessEncoder encoder = new LosslessEncoder(format.getChannels(), format.getSampleSizeInBits(),
+                AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding()), format.isBigEndian());
+        ByteBuffer encoded = ByteBuffer.allocate(encoder.getMaxEncodedSize(block.length));
+
+        List<Long> blockOffsets = new ArrayList<>();
+        long position = PackedSong.HEADER_SIZE;
+        long frameLength = 0;
+        int readBytes;
+        while ((readBytes = readBlock(audioStream, block)) >= frameSize) {
+            readBytes -= readBytes % frameSize;
+            ByteBuffer payload = ByteBuffer.wrap(block, 0, readBytes);
+            if (isCompressing) {
+                encoder.encode(payload, encoded.clear());
+                payload = encoded.flip();
+            }
+
+            blockOffsets.add(position);
+            while (payload.hasRemaining()) {
+                position += channel.write(payload, position);
+            }
+            frameLength += readBytes / frameSize;
+        }
+        blockOffsets.add(position);
+
+        new PackedSong(format, frameLength, blockFrames, isCompressing,
+                blockOffsets.stream().mapToLong(Long::longValue).toArray()).write(channel);
+    }
+
+    private AudioInputStream openPcm(Path song) throws UnsupportedAudioFileException, IOException {
+        AudioInputStream audioStream = AudioSystem.getAudioInputStream(song.toFile());
+        AudioFormat format = audioStream.getFormat();
+        if (AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding()) ||
+                AudioFormat.Encoding.PCM_UNSIGNED.equals(format.getEncoding())) {
+            return audioStream;
+        }
+        AudioFormat pcmFormat = new AudioFormat(format.getSampleRate(), PCM_SAMPLE_SIZE_IN_BITS,
+                format.getChannels(), true, false);
+        return AudioSystem.getAudioInputStream(pcmFormat, audioStream);
+    }
+
+    private int readBlock(AudioInputStream audioStream, byte[] block) throws IOException {
+        int readBytes = 0;
+        while (readBytes < block.length) {
+            int read = audioStream.read(block, readBytes, block.length - readBytes);
+            if (read < 0) {
+                break;
+            }
+            readBytes += read;
+        }
+        return readBytes;
+    }
+
+    private boolean isSong(Path file) {
+        String fileName = file.getFileName().toString();
+        return Files.isRegularFile(file) && !fileName.endsWith(PackedSong.EXTENSION) &&
+                !fileName.endsWith(TEMPORARY_EXTENSION);
+    }
+}
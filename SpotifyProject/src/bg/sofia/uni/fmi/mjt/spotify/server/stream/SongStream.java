@@ -0,0 +1,42 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+
+import javax.sound.sampled.AudioFormat;
+
+import java.io.IOException;
+
+public interface SongStream {
+    long getFrameLength();
+
+    long getByteRate();
+
+    AudioFormat getFormat();
+
+    long getPosition();
+
+    OutboundMessage nextChunk() throws IOException;
+
+    void seek(double seconds) throws IOException;
+
+    void close() throws IOException;
+
+    default double getDuration() {
+        long frameLength = getFrameLength();
+        return frameLength < 0 ? Double.POSITIVE_INFINITY : frameLength / (double) getFormat().getFrameRate();
+    }
+
+    static long getByteOffset(AudioFormat format, double seconds, long dataLength) {
+        return Math.max(0, Math.min(getByteOffset(format, seconds), dataLength));
+    }
+
+    static long getByteOffset(AudioFormat format, double seconds) {
+        double frames = seconds * format.getFrameRate();
+        if (!(frames > 0)) {
+            return 0;
+        }
+        long frameIndex = (long) frames;
+        int frameSize = Math.max(format.getFrameSize(), 1);
+        return frameIndex > Long.MAX_VALUE / frameSize ? Long.MAX_VALUE : frameIndex * frameSize;
+    }
+}
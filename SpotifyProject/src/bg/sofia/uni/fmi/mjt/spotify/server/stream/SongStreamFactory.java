@@ -0,0 +1,113 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferPool;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class SongStreamFactory {
+    private final Map<String, Optional<WavFile>> wavFiles = new ConcurrentHashMap<>();
+    private final Map<String, Optional<PackedSong>> packedSongs = new ConcurrentHashMap<>();
+    private final SongCache songCache;
+    private final BufferPool bufferPool;
+    private final StreamPacing pacing;
+
+    public SongStreamFactory(SongCache songCache, BufferPool bufferPool, StreamPacing pacing) {
+        this.songCache = songCache;
+        this.bufferPool = bufferPool;
+        this.pacing = pacing;
+    }
+
+    public StreamPacing getPacing() {
+        return pacing;
+    }
+
+    public SongStream open(String songPath) throws UnsupportedAudioFileException, IOException {
+        return open(songPath, false);
+    }
+
+    public SongStream open(String songPath, boolean isCompressed) throws UnsupportedAudioFileException, IOException {
+        if (isCompressed) {
+            Optional<PackedSong> packedSong = getPackedSong(songPath);
+            if (packedSong.isPresent() && packedSong.get().isCompressed() && canCache(packedSong.get())) {
+                return openPacked(songPath, packedSong.get(), true);
+            }
+        }
+
+        SongStream songStream = openRaw(songPath);
+        return isCompressed ? new CompressedSongStream(songStream, bufferPool) : songStream;
+    }
+
+    public void invalidate(Path song) {
+        Set<String> songPaths = Stream.concat(wavFiles.keySet().stream(), packedSongs.keySet().stream())
+                .filter(songPath -> Path.of(songPath).equals(song))
+                .collect(Collectors.toSet());
+        songPaths.add(song.toString());
+        for (String songPath : songPaths) {
+            wavFiles.remove(songPath);
+            packedSongs.remove(songPath);
+            songCache.evict(songPath);
+            songCache.evict(PackedSong.getPackedPath(Path.of(songPath)).toString());
+        }
+    }
+
+    private SongStream openRaw(String songPath) throws UnsupportedAudioFileException, IOException {
+        Optional<WavFile> wavFile = wavFiles.get(songPath);
+        if (wavFile == null) {
+            wavFile = readWavFile(songPath);
+            wavFiles.put(songPath, wavFile);
+        }
+
+        if (wavFile.isPresent() && songCache.canCache(wavFile.get())) {
+            return new MappedSongStream(songCache, songPath, wavFile.get(), pacing);
+        }
+        if (wavFile.isPresent()) {
+            return new PcmFileSongStream(songPath, wavFile.get(), pacing);
+        }
+
+        Optional<PackedSong> packedSong = getPackedSong(songPath);
+        if (packedSong.isPresent() && canCache(packedSong.get())) {
+            return openPacked(songPath, packedSong.get(), false);
+        }
+        return new DecodedSongStream(songPath, bufferPool, pacing);
+    }
+
+    private boolean canCache(PackedSong packedSong) {
+        return songCache.canCache(packedSong.getPayloadLength());
+    }
+
+    private SongStream openPacked(String songPath, PackedSong packedSong, boolean isEncodedOutput)
+            throws IOException {
+        return new PackedSongStream(songCache, PackedSong.getPackedPath(Path.of(songPath)).toString(), packedSong,
+                bufferPool, isEncodedOutput);
+    }
+
+    private Optional<PackedSong> getPackedSong(String songPath) {
+        return packedSongs.computeIfAbsent(songPath,
+                path -> readPackedSong(PackedSong.getPackedPath(Path.of(path))));
+    }
+
+    private Optional<PackedSong> readPackedSong(Path packedPath) {
+        try {
+            return Files.exists(packedPath) ? Optional.of(PackedSong.read(packedPath)) : Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Optional<WavFile> readWavFile(String songPath) throws IOException {
+        try {
+            return Optional.of(WavFile.read(Path.of(songPath)));
+        } catch (UnsupportedAudioFileException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+public class StreamPacer {
+    private static final long NANOS_IN_SECOND = 1_000_000_000L;
+
+    private final long byteRate;
+    private final long readAheadBytes;
+    private final long startNanos;
+    private long sentBytes;
+
+    public StreamPacer(long byteRate, long readAheadBytes, long startNanos) {
+        this.byteRate = byteRate;
+        this.readAheadBytes = readAheadBytes;
+        this.startNanos = startNanos;
+    }
+
+    public long getDelayNanos(long nowNanos) {
+        long bytesAhead = sentBytes - readAheadBytes;
+        if (byteRate <= 0 || bytesAhead <= 0) {
+            return 0;
+        }
+        long dueNanos = startNanos + toNanos(bytesAhead);
+        return Math.max(0, dueNanos - nowNanos);
+    }
+
+    public void onSent(long bytes) {
+        sentBytes += bytes;
+    }
+
+    public long getSentBytes() {
+        return sentBytes;
+    }
+
+    public long getSentNanos() {
+        return byteRate <= 0 ? 0 : toNanos(sentBytes);
+    }
+
+    private long toNanos(long bytes) {
+        return bytes / byteRate * NANOS_IN_SECOND + bytes % byteRate * NANOS_IN_SECOND / byteRate;
+    }
+}
@@ -0,0 +1,51 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import javax.sound.sampled.AudioFormat;
+
+public class StreamPacing {
+    public static final StreamPacing DEFAULT = new StreamPacing(100, 2000);
+
+    private static final int MILLIS_IN_SECOND = 1000;
+    private static final int UNKNOWN_RATE_CHUNK_SIZE = 16384;
+
+    private final long chunkDurationMillis;
+    private final long readAheadMillis;
+
+    public StreamPacing(long chunkDurationMillis, long readAheadMillis) {
+        if (chunkDurationMillis <= 0 || readAheadMillis < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.chunkDurationMillis = chunkDurationMillis;
+        this.readAheadMillis = readAheadMillis;
+    }
+
+    public long getChunkDurationMillis() {
+        return chunkDurationMillis;
+    }
+
+    public long getReadAheadMillis() {
+        return readAheadMillis;
+    }
+
+    public int getChunkSize(AudioFormat format) {
+        long byteRate = getByteRate(format);
+        if (byteRate <= 0) {
+            return UNKNOWN_RATE_CHUNK_SIZE;
+        }
+        int frameSize = format.getFrameSize();
+        long chunkSize = byteRate * chunkDurationMillis / MILLIS_IN_SECOND;
+        chunkSize -= chunkSize % frameSize;
+        return (int) Math.min(Integer.MAX_VALUE - frameSize, Math.max(frameSize, chunkSize));
+    }
+
+    public StreamPacer newPacer(long byteRate, long startNanos) {
+        return new StreamPacer(byteRate, byteRate * readAheadMillis / MILLIS_IN_SECOND, startNanos);
+    }
+
+    public static long getByteRate(AudioFormat format) {
+        if (format.getFrameRate() <= 0 || format.getFrameSize() <= 0) {
+            return 0;
+        }
+        return (long) format.getFrameRate() * format.getFrameSize();
+    }
+}
@@ -0,0 +1,123 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class WavFile {
+    private static final int RIFF_HEADER_SIZE = 12;
+    private static final int CHUNK_HEADER_SIZE = 8;
+    private static final int FORMAT_CHUNK_SIZE = 16;
+    private static final int EXTENSIBLE_FORMAT_CHUNK_SIZE = 26;
+    private static final int PCM_FORMAT_TAG = 1;
+    private static final int EXTENSIBLE_FORMAT_TAG = 0xFFFE;
+    private static final int EXTENSIBLE_SUB_FORMAT_OFFSET = 24;
+    private static final int BITS_IN_BYTE = 8;
+
+    private final AudioFormat format;
+    private final long dataOffset;
+    private final long dataLength;
+
+    private WavFile(AudioFormat format, long dataOffset, long dataLength) {
+        this.format = format;
+        this.dataOffset = dataOffset;
+        this.dataLength = dataLength - dataLength % format.getFrameSize();
+    }
+
+    public static WavFile read(Path path) throws UnsupportedAudioFileException, IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer riffHeader = readBytes(channel, 0, RIFF_HEADER_SIZE);
+            if (!"RIFF".equals(getChunkId(riffHeader, 0)) || !"WAVE".equals(getChunkId(riffHeader, 8))) {
+                throw new UnsupportedAudioFileException("Not a WAV file: " + path);
+            }
+
+            AudioFormat format = null;
+            long position = RIFF_HEADER_SIZE;
+            while (position + CHUNK_HEADER_SIZE <= channel.size()) {
+                ByteBuffer chunkHeader = readBytes(channel, position, CHUNK_HEADER_SIZE);
+                String chunkId = getChunkId(chunkHeader, 0);
+                long chunkSize = Integer.toUnsignedLong(chunkHeader.getInt(4));
+                long chunkStart = position + CHUNK_HEADER_SIZE;
+
+                if ("fmt ".equals(chunkId)) {
+                    format = readFormat(channel, chunkStart, chunkSize);
+                } else if ("data".equals(chunkId)) {
+                    if (format == null) {
+                        throw new UnsupportedAudioFileException("Data chunk before format chunk: " + path);
+                    }
+                    return new WavFile(format, chunkStart, Math.min(chunkSize, channel.size() - chunkStart));
+                }
+                position = chunkStart + chunkSize + (chunkSize & 1);
+            }
+            throw new UnsupportedAudioFileException("No data chunk: " + path);
+        }
+    }
+
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    public long getDataOffset() {
+        return dataOffset;
+    }
+
+    public long getDataLength() {
+        return dataLength;
+    }
+
+    public long getFrameLength() {
+        return dataLength / format.getFrameSize();
+    }
+
+    private static AudioFormat readFormat(FileChannel channel, long position, long size)
+            throws UnsupportedAudioFileException, IOException {
+        if (size < FORMAT_CHUNK_SIZE) {
+            throw new UnsupportedAudioFileException("Broken format chunk");
+        }
+        ByteBuffer formatChunk = readBytes(channel, position,
+                (int) Math.min(size, EXTENSIBLE_FORMAT_CHUNK_SIZE));
+
+        int formatTag = Short.toUnsignedInt(formatChunk.getShort(0));
+        if (formatTag == EXTENSIBLE_FORMAT_TAG && formatChunk.limit() >= EXTENSIBLE_FORMAT_CHUNK_SIZE) {
+            formatTag = Short.toUnsignedInt(formatChunk.getShort(EXTENSIBLE_SUB_FORMAT_OFFSET));
+        }
+        if (formatTag != PCM_FORMAT_TAG) {
+            throw new UnsupportedAudioFileException("Only PCM WAV files can be streamed directly");
+        }
+
+        int channels = Short.toUnsignedInt(formatChunk.getShort(2));
+        float sampleRate = Integer.toUnsignedLong(formatChunk.getInt(4));
+        int frameSize = Short.toUnsignedInt(formatChunk.getShort(12));
+        int sampleSizeInBits = Short.toUnsignedInt(formatChunk.getShort(14));
+        if (channels == 0 || frameSize == 0) {
+            throw new UnsupportedAudioFileException("Broken format chunk");
+        }
+
+        AudioFormat.Encoding encoding = sampleSizeInBits <= BITS_IN_BYTE ?
+                AudioFormat.Encoding.PCM_UNSIGNED : AudioFormat.Encoding.PCM_SIGNED;
+        return new AudioFormat(encoding, sampleRate, sampleSizeInBits, channels, frameSize, sampleRate, false);
+    }
+
+    private static ByteBuffer readBytes(FileChannel channel, long position, int count) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(count).order(ByteOrder.LITTLE_ENDIAN);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, position + bytes.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return bytes.flip();
+    }
+
+    private static String getChunkId(ByteBuffer bytes, int offset) {
+        byte[] id = new byte[4];
+        bytes.get(offset, id);
+        return new String(id, StandardCharsets.US_ASCII);
+    }
+}
@@ -1,11 +1,49 @@
 package com.company;
 
+import bg.sofia.uni.fmi.mjt.spotify.server.BlockingServer;
+import bg.sofia.uni.fmi.mjt.spotify.server.AdmissionControl;
+import bg.sofia.uni.fmi.mjt.spotify.server.ConnectionTimeouts;
 import bg.sofia.uni.fmi.mjt.spotify.server.Server;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.StreamPacing;
 
 public class Main {
+    private static final int PORT = 6600;
+    private static final String BLOCKING_MODE = "blocking";
+    private static final String USAGE = "Usage: java Main [<reactors> [<command_workers>]]" +
+            System.lineSeparator() + "       java Main " + BLOCKING_MODE;
 
     public static void main(String[] args) {
-        Server server = new Server(6600);
+        if (args.length > 0 && args[0].equals(BLOCKING_MODE)) {
+            if (args.length > 1) {
+                System.out.println(USAGE);
+                return;
+            }
+            BlockingServer server = new BlockingServer(PORT);
+            server.start();
+            return;
+        }
+
+        if (args.length > 2) {
+            System.out.println(USAGE);
+            return;
+        }
+        int reactorsCount = args.length > 0 ? parseCount(args[0], 1) : 1;
+        int commandWorkersCount = args.length > 1 ? parseCount(args[1], 0) : Server.DEFAULT_COMMAND_WORKERS;
+        if (reactorsCount < 0 || commandWorkersCount < 0) {
+            System.out.println(USAGE);
+            return;
+        }
+        Server server = new Server(PORT, reactorsCount, StreamPacing.DEFAULT, ConnectionTimeouts.DEFAULT,
+                new AdmissionControl(), commandWorkersCount);
         server.start();
     }
+
+    private static int parseCount(String argument, int min) {
+        try {
+            int count = Integer.parseInt(argument);
+            return count < min ? -1 : count;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 }
@@ -0,0 +1,107 @@
+package bg.sofia.uni.fmi.mjt.spotify.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LosslessCodecTest {
+    private static final Path SONG = Path.of("songRepository", "audio.wav");
+    private static final int WAV_HEADER_SIZE = 44;
+
+    @Test
+    public void testSineWaveIsCompressedLosslessly() {
+        short[] samples = new short[4000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (10000 * Math.sin(i / 200.0));
+        }
+        byte[] pcm = toPcm(samples, ByteOrder.LITTLE_ENDIAN);
+
+        ByteBuffer encoded = encode(pcm, 2, false);
+
+        assertEquals(Lossless.RICE_BLOCK, encoded.get(0), "A smooth signal must be Rice coded");
+        assertTrue(encoded.remaining() < pcm.length / 2, "A smooth signal must compress at least twice");
+        assertArrayEquals(pcm, decode(encoded, 2, false), "Decoded PCM must match the original");
+    }
+
+    @Test
+    public void testBigEndianMonoRoundTrip() {
+        short[] samples = new short[1001];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (i * 37 - 15000);
+        }
+        byte[] pcm = toPcm(samples, ByteOrder.BIG_ENDIAN);
+
+        assertArrayEquals(pcm, decode(encode(pcm, 1, true), 1, true), "Decoded PCM must match the original");
+    }
+
+    @Test
+    public void testNoiseFallsBackToVerbatim() {
+        byte[] pcm = new byte[4096];
+        new Random(7).nextBytes(pcm);
+
+        ByteBuffer encoded = encode(pcm, 2, false);
+
+        assertEquals(Lossless.VERBATIM_BLOCK, encoded.get(0), "Incompressible blocks must be sent verbatim");
+        assertEquals(pcm.length + 1, encoded.remaining(), "Verbatim blocks only add the block type");
+        assertArrayEquals(pcm, decode(encoded, 2, false), "Decoded PCM must match the original");
+    }
+
+    @Test
+    public void testExtremeSamplesAreEscaped() {
+        short[] samples = new short[512];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = i % 64 == 0 ? Short.MIN_VALUE : (i % 64 == 1 ? Short.MAX_VALUE : 0);
+        }
+        byte[] pcm = toPcm(samples, ByteOrder.LITTLE_ENDIAN);
+
+        assertArrayEquals(pcm, decode(encode(pcm, 1, false), 1, false), "Decoded PCM must match the original");
+    }
+
+    @Test
+    public void testUnsupportedSampleSizeIsSentVerbatim() {
+        byte[] pcm = {1, 2, 3, 4, 5, 6};
+        LosslessEncoder encoder = new LosslessEncoder(1, 8, true, false);
+        ByteBuffer encoded = ByteBuffer.allocate(encoder.getMaxEncodedSize(pcm.length));
+        encoder.encode(ByteBuffer.wrap(pcm), encoded);
+
+        assertEquals(Lossless.VERBATIM_BLOCK, encoded.get(0), "Only 16-bit signed PCM is Rice coded");
+    }
+
+    @Test
+    public void testSongRoundTrip() throws IOException {
+        byte[] song = Files.readAllBytes(SONG);
+        byte[] pcm = Arrays.copyOfRange(song, WAV_HEADER_SIZE, WAV_HEADER_SIZE + 32000);
+
+        assertArrayEquals(pcm, decode(encode(pcm, 2, false), 2, false), "Decoded PCM must match the original");
+    }
+
+    private ByteBuffer encode(byte[] pcm, int channels, boolean isBigEndian) {
+        LosslessEncoder encoder = new LosslessEncoder(channels, 16, true, isBigEndian);
+        ByteBuffer encoded = ByteBuffer.allocate(encoder.getMaxEncodedSize(pcm.length));
+        encoder.encode(ByteBuffer.wrap(pcm), encoded);
+        return encoded.flip();
+    }
+
+    private byte[] decode(ByteBuffer encoded, int channels, boolean isBigEndian) {
+        ByteBuffer pcm = new LosslessDecoder(channels, isBigEndian).decode(encoded.duplicate());
+        byte[] decoded = new byte[pcm.remaining()];
+        pcm.get(decoded);
+        return decoded;
+    }
+
+    private byte[] toPcm(short[] samples, ByteOrder order) {
+        ByteBuffer pcm = ByteBuffer.allocate(samples.length * 2).order(order);
+        for (short sample : samples) {
+            pcm.putShort(sample);
+        }
+        return pcm.array();
+    }
+}
@@ -0,0 +1,75 @@
+package bg.sofia.uni.fmi.mjt.spotify.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class LosslessEncoderBenchmark {
+    private static final Path SONG = Path.of("songRepository", "audio.wav");
+    private static final int WAV_HEADER_SIZE = 44;
+    private static final int BLOCK_SIZE = 17640;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+    private static final double BYTES_IN_MEGABYTE = 1024 * 1024;
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        byte[] song = Files.readAllBytes(SONG);
+        ByteBuffer pcm = ByteBuffer.wrap(song, WAV_HEADER_SIZE, song.length - WAV_HEADER_SIZE).slice();
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("Compression ratio: %.3f%n", encodeSong(pcm, new LosslessEncoder(2, 16, true, false)) /
+                (double) pcm.remaining());
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            double throughput = measure(pcm, threads);
+            System.out.printf("%d thread(s): %.1f MB/s total, %.1f MB/s per core%n",
+                    threads, throughput, throughput / threads);
+        }
+    }
+
+    private static double measure(ByteBuffer pcm, int threads) throws InterruptedException, ExecutionException {
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Callable<Long>> tasks = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                tasks.add(() -> encodeRounds(pcm.duplicate()));
+            }
+
+            long start = System.nanoTime();
+            long encodedBytes = 0;
+            for (Future<Long> result : executor.invokeAll(tasks)) {
+                encodedBytes += result.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return encodedBytes / BYTES_IN_MEGABYTE / seconds;
+        }
+    }
+
+    private static long encodeRounds(ByteBuffer pcm) {
+        LosslessEncoder encoder = new LosslessEncoder(2, 16, true, false);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            encodeSong(pcm, encoder);
+        }
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            encodeSong(pcm, encoder);
+        }
+        return (long) pcm.remaining() * MEASURED_ROUNDS;
+    }
+
+    private static long encodeSong(ByteBuffer pcm, LosslessEncoder encoder) {
+        ByteBuffer encoded = ByteBuffer.allocateDirect(encoder.getMaxEncodedSize(BLOCK_SIZE));
+        long encodedSize = 0;
+        for (int offset = 0; offset < pcm.remaining(); offset += BLOCK_SIZE) {
+            ByteBuffer block = pcm.slice(offset, Math.min(BLOCK_SIZE, pcm.remaining() - offset));
+            encoder.encode(block, encoded.clear());
+            encodedSize += encoded.position();
+        }
+        return encodedSize;
+    }
+}
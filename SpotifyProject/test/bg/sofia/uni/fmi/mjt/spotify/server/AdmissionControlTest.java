@@ -0,0 +1,80 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.exception.ServerBusyException;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdmissionControlTest {
+    private static final long BYTE_RATE = 32_000;
+
+    @Test
+    public void testConnectionsOverTheCapAreRejected() {
+        AdmissionControl admissionControl = new AdmissionControl(2, 0, 0, 5);
+
+        assertTrue(admissionControl.tryAcquireConnection(), "The first connection must be admitted");
+        assertTrue(admissionControl.tryAcquireConnection(), "The second connection must be admitted");
+        assertFalse(admissionControl.tryAcquireConnection(), "A connection over the cap must be rejected");
+        assertEquals(1, admissionControl.getRejectedConnections(), "The rejected connection must be counted");
+
+        admissionControl.releaseConnection();
+        assertTrue(admissionControl.tryAcquireConnection(), "A released connection must free its place");
+    }
+
+    @Test
+    public void testStreamsOverTheCapAreRejected() throws ServerBusyException, IOException {
+        AdmissionControl admissionControl = new AdmissionControl(0, 1, 0, 5);
+        admissionControl.admit(songStream());
+        SongStream rejected = songStream();
+
+        ServerBusyException e = assertThrows(ServerBusyException.class, () -> admissionControl.admit(rejected),
+                "A stream over the cap must be rejected");
+        assertEquals("Server busy, retry after 5 seconds", e.getMessage(), "Unexpected busy message");
+        verify(rejected).close();
+        assertEquals(1, admissionControl.getRejectedStreams(), "The rejected stream must be counted");
+    }
+
+    @Test
+    public void testBandwidthOverTheCapIsRejected() throws ServerBusyException, IOException {
+        AdmissionControl admissionControl = new AdmissionControl(0, 0, BYTE_RATE * 2, 5);
+        admissionControl.admit(songStream());
+        admissionControl.admit(songStream());
+
+        assertThrows(ServerBusyException.class, () -> admissionControl.admit(songStream()),
+                "A stream over the bandwidth cap must be rejected");
+        assertEquals(BYTE_RATE * 2, admissionControl.getReservedBandwidth(),
+                "A rejected stream must not keep its bandwidth");
+        assertEquals(2, admissionControl.getStreamsCount(), "A rejected stream must not be counted as active");
+    }
+
+    @Test
+    public void testClosingAnAdmittedStreamReleasesItOnce() throws ServerBusyException, IOException {
+        AdmissionControl admissionControl = new AdmissionControl(0, 1, 0, 5);
+        SongStream songStream = songStream();
+        SongStream admitted = admissionControl.admit(songStream);
+
+        admitted.close();
+        admitted.close();
+
+        assertEquals(0, admissionControl.getStreamsCount(), "A closed stream must free its place");
+        assertEquals(0, admissionControl.getReservedBandwidth(), "A closed stream must free its bandwidth");
+        verify(songStream, times(2)).close();
+        assertNotNull(admissionControl.admit(songStream()), "A new stream must be admitted after a release");
+    }
+
+    @Test
+    public void testNegativeLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionControl(-1, 0, 0, 5),
+                "Negative limits must be rejected");
+    }
+
+    private SongStream songStream() {
+        SongStream songStream = mock(SongStream.class);
+        when(songStream.getByteRate()).thenReturn(BYTE_RATE);
+        return songStream;
+    }
+}
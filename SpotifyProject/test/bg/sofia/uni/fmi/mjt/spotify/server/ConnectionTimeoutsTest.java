@@ -0,0 +1,51 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionTimeoutsTest {
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ConnectionTimeouts timeouts = new ConnectionTimeouts(1_000, 100, 50);
+
+    @Test
+    public void testLoginDeadlineBeforeLogin() {
+        assertEquals(100 * MILLI, timeouts.getDeadlineNanos(false, 0, 0, false, 0),
+                "A connection that has not logged in must expire after the login timeout");
+    }
+
+    @Test
+    public void testIdleDeadlineAfterLogin() {
+        assertEquals(1_500 * MILLI, timeouts.getDeadlineNanos(true, 0, 500 * MILLI, false, 0),
+                "A logged in connection must expire after being idle");
+    }
+
+    @Test
+    public void testStalledWriteDeadline() {
+        assertEquals(250 * MILLI, timeouts.getDeadlineNanos(true, 0, 500 * MILLI, true, 200 * MILLI),
+                "A connection must expire when its writes stall");
+    }
+
+    @Test
+    public void testDisabledTimeouts() {
+        ConnectionTimeouts disabled = new ConnectionTimeouts(0, 0, 0);
+
+        assertFalse(disabled.isEnabled(), "Zero timeouts must disable the reaper");
+        assertEquals(Long.MAX_VALUE, disabled.getDeadlineNanos(false, 0, 0, true, 0),
+                "Disabled timeouts must never expire");
+    }
+
+    @Test
+    public void testCheckIntervalIsTheShortestTimeout() {
+        assertEquals(50 * MILLI, timeouts.getCheckIntervalNanos(), "Unexpected check interval");
+    }
+
+    @Test
+    public void testNegativeTimeout() {
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionTimeouts(-1, 0, 0),
+                "Negative timeouts must be rejected");
+    }
+}
@@ -0,0 +1,53 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineFramerTest {
+    private LineFramer lineFramer;
+
+    @BeforeEach
+    public void setUp() {
+        lineFramer = new LineFramer(16);
+    }
+
+    @Test
+    public void testAppendSplitsPipelinedCommands() throws IOException {
+        List<String> lines = lineFramer.append(bytesOf("login a b\nsearch x\r\ntop 2\n"));
+
+        assertEquals(List.of("login a b", "search x", "top 2"), lines, "Every complete line must be a command");
+    }
+
+    @Test
+    public void testAppendKeepsIncompleteCommand() throws IOException {
+        assertEquals(List.of(), lineFramer.append(bytesOf("sea")), "A half command must not be returned");
+        assertEquals(List.of("search x"), lineFramer.append(bytesOf("rch x\nto")), "Unexpected command");
+        assertEquals(List.of("top 2"), lineFramer.append(bytesOf("p 2\n")), "Unexpected command");
+    }
+
+    @Test
+    public void testAppendMultiByteCharacterSplitAcrossReads() throws IOException {
+        byte[] command = "search аб\n".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(List.of(), lineFramer.append(ByteBuffer.wrap(command, 0, 8)), "A half command must not be returned");
+        assertEquals(List.of("search аб"), lineFramer.append(ByteBuffer.wrap(command, 8, command.length - 8)),
+                "Characters split between reads must be decoded");
+    }
+
+    @Test
+    public void testAppendTooLongCommand() {
+        assertThrows(IOException.class, () -> lineFramer.append(bytesOf("search 0123456789abcdef")),
+                "Commands longer than the limit must be rejected");
+    }
+
+    private ByteBuffer bytesOf(String input) {
+        return ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,238 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.command.Command;
+import bg.sofia.uni.fmi.mjt.spotify.server.command.CommandExecutor;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferPool;
+import bg.sofia.uni.fmi.mjt.spotify.server.radio.Radio;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongCache;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongStreamFactory;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.StreamPacing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReactorTest {
+    private static final long WAIT_MILLIS = 2000;
+    private static final int MAX_PENDING_COMMANDS = 64;
+    private static final String SONG = "songRepository/audio.wav+format,8000.0,16,2,4,8000.0,false" +
+            System.lineSeparator();
+
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final List<String> executedCommands = new CopyOnWriteArrayList<>();
+    private final SessionRegistry sessionRegistry = new SessionRegistry(Long.MAX_VALUE);
+
+    private Storage storage;
+    private AdmissionControl admissionControl;
+    private Reactor reactor;
+    private Thread reactorThread;
+    private ServerSocketChannel serverChannel;
+    private SocketChannel client;
+    private volatile ReactorSession session;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        storage = mock(Storage.class);
+        admissionControl = new AdmissionControl();
+        CommandExecutor commandExecutor = mock(CommandExecutor.class);
+        when(commandExecutor.execute(any(Session.class), any(Command.class))).thenAnswer(invocation -> {
+            session = invocation.getArgument(0);
+            Command command = invocation.getArgument(1);
+            executedCommands.add((command.command() + " " + String.join(" ", command.arguments())).strip());
+            return switch (command.command()) {
+                case "login" -> sessionRegistry.login(session, command.arguments()[0], ended -> { }) + "";
+                case "resume" -> sessionRegistry.resume(command.arguments()[0], session) + "";
+                case "play" -> SONG;
+                case "top" -> throw new IllegalStateException("The command failed");
+                default -> command.command();
+            } + System.lineSeparator();
+        });
+
+        BufferPool bufferPool = new BufferPool(4);
+        SongStreamFactory songStreamFactory = new SongStreamFactory(new SongCache(Long.MAX_VALUE), bufferPool,
+                StreamPacing.DEFAULT);
+        reactor = new Reactor(storage, commandExecutor, songStreamFactory, bufferPool, mock(Radio.class),
+                new ConnectionTimeouts(0, 0, 0), admissionControl, tasks::add);
+        reactorThread = new Thread(reactor);
+        reactorThread.start();
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("localhost", 0));
+        client = connect();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException, InterruptedException {
+        client.close();
+        serverChannel.close();
+        reactor.stop();
+        reactorThread.join(WAIT_MILLIS);
+    }
+
+    private SocketChannel connect() throws IOException {
+        SocketChannel channel = SocketChannel.open(serverChannel.getLocalAddress());
+        reactor.register(serverChannel.accept());
+        return channel;
+    }
+
+    private void sendLines(String... lines) throws IOException {
+        sendLines(client, lines);
+    }
+
+    private static void sendLines(SocketChannel channel, String... lines) throws IOException {
+        String input = String.join("\n", lines) + "\n";
+        ByteBuffer buffer = ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static boolean isClosedByServer(SocketChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS);
+        while (System.nanoTime() - deadline < 0) {
+            if (channel.read(buffer.clear()) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String readReply(SocketChannel channel, String expected) {
+        return assertTimeoutPreemptively(Duration.ofMillis(WAIT_MILLIS), () -> {
+            ByteBuffer buffer = ByteBuffer.allocate(1024);
+            StringBuilder reply = new StringBuilder();
+            while (!reply.toString().contains(expected) && channel.read(buffer.clear()) >= 0) {
+                reply.append(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+            }
+            return reply.toString();
+        }, "The reply must arrive in time");
+    }
+
+    private Runnable nextTask() throws InterruptedException {
+        Runnable task = tasks.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        assertNotNull(task, "A command must be handed to the workers");
+        return task;
+    }
+
+    private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() - deadline < 0, message);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testCommandsOfASessionRunInOrder() throws Exception {
+        sendLines("play x", "stop");
+
+        Runnable play = nextTask();
+        assertNull(tasks.poll(200, TimeUnit.MILLISECONDS), "The stop must wait until the play completes");
+
+        play.run();
+        Runnable stop = nextTask();
+        assertEquals(List.of("play x"), executedCommands, "Only the play must have been executed");
+
+        stop.run();
+        await(() -> admissionControl.getStreamsCount() == 0, "The stop must end the song started by the play");
+        assertEquals(List.of("play x", "stop"), executedCommands, "The commands must be executed in order");
+        assertFalse(session.isPlaying(), "The session must not play after the stop");
+        verify(storage, never()).stopSong(any());
+    }
+
+    @Test
+    public void testReadingPausesWhileTooManyCommandsArePending() throws Exception {
+        String[] lines = new String[MAX_PENDING_COMMANDS + 6];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = "search " + i;
+        }
+        sendLines(lines);
+
+        nextTask().run();
+        await(() -> !session.isReading(), "Reading must pause above the pending commands limit");
+        sendLines("search late");
+
+        for (int i = 0; i < 4; i++) {
+            nextTask().run();
+        }
+        Runnable lastPausedCommand = nextTask();
+        assertFalse(session.isReading(), "Reading must stay paused while the limit is exceeded");
+
+        lastPausedCommand.run();
+        Runnable firstResumedCommand = nextTask();
+        assertTrue(session.isReading(), "Reading must resume below the pending commands limit");
+
+        firstResumedCommand.run();
+        while (executedCommands.size() <= lines.length) {
+            nextTask().run();
+        }
+        assertEquals("search late", executedCommands.get(lines.length), "The command read after the pause must run last");
+        assertNull(tasks.poll(200, TimeUnit.MILLISECONDS), "No command must be left");
+    }
+
+    @Test
+    public void testDisconnectWaitsForTheRunningCommand() throws Exception {
+        sendLines("search x");
+        Runnable search = nextTask();
+
+        client.close();
+        verify(storage, after(300).never()).detach(any());
+
+        search.run();
+        verify(storage, timeout(WAIT_MILLIS)).detach(session);
+        assertTrue(session.isClosed(), "The session must be closed with its connection");
+    }
+
+    @Test
+    public void testResumeClosesTheStreamingConnection() throws Exception {
+        sendLines("login gabi@abv.bg", "play x");
+        nextTask().run();
+        ReactorSession streaming = session;
+        nextTask().run();
+        await(() -> admissionControl.getStreamsCount() == 1, "The song must be streaming");
+
+        SocketChannel resuming = connect();
+        sendLines(resuming, "resume " + streaming.getToken());
+        nextTask().run();
+
+        assertNotSame(streaming, session, "The resume must run on the new connection");
+        assertTrue(isClosedByServer(client), "The taken over connection must be closed");
+        await(streaming::isClosed, "The taken over session must be closed");
+        assertFalse(streaming.isPlaying(), "The taken over session must stop streaming");
+        assertEquals(0, admissionControl.getStreamsCount(), "The taken over stream must be released");
+        assertEquals("gabi@abv.bg", session.getUsername(), "The user must move to the new connection");
+        resuming.close();
+    }
+
+    @Test
+    public void testFailedCommandIsAnsweredAndTheNextOneRuns() throws Exception {
+        sendLines("top 5", "search x");
+
+        nextTask().run();
+        Runnable search = nextTask();
+        assertTrue(readReply(client, "An error occurred").contains("An error occurred"),
+                "A failed command must be answered");
+        verify(storage).storeLog(any(IllegalStateException.class), anyString(), anyString());
+
+        search.run();
+        assertTrue(readReply(client, "search").endsWith("search" + System.lineSeparator()),
+                "The command after the failed one must be answered");
+    }
+}
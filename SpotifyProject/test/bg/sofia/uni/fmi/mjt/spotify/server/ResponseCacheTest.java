@@ -0,0 +1,84 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+    private ResponseCache cache;
+    private AtomicInteger renders;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new ResponseCache(2, 16, ResponseCache.NO_STALENESS);
+        renders = new AtomicInteger();
+    }
+
+    @Test
+    public void testRepeatedQueryIsServedFromCache() {
+        assertEquals("reply 1", cache.get("top\n1", 0, renderer()), "Unexpected reply");
+        assertEquals("reply 1", cache.get("top\n1", 0, renderer()), "A cached reply must be returned");
+
+        assertEquals(1, renders.get(), "The reply must be rendered once");
+        assertEquals(1, cache.getHits(), "Unexpected hits count");
+        assertEquals(1, cache.getMisses(), "Unexpected misses count");
+    }
+
+    @Test
+    public void testChangedVersionInvalidatesReply() {
+        cache.get("search\nx", 0, renderer());
+
+        assertEquals("reply 2", cache.get("search\nx", 1, renderer()), "A reply of an older version must be re-rendered");
+        assertEquals("reply 2", cache.get("search\nx", 1, renderer()), "The re-rendered reply must be cached");
+    }
+
+    @Test
+    public void testStaleReplyIsServedWithinWindow() {
+        cache = new ResponseCache(2, 16, TimeUnit.HOURS.toNanos(1));
+        cache.get("top\n1", 0, renderer());
+
+        assertEquals("reply 1", cache.getAllowingStale("top\n1", 5, renderer()), "A stale reply must be served within the window");
+        assertEquals("reply 2", cache.get("search\nx", 5, renderer()), "Unexpected reply");
+        assertEquals("reply 3", cache.get("top\n1", 5, renderer()), "Only precise lookups must re-render a stale reply");
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        cache.get("a", 0, renderer());
+        cache.get("b", 0, renderer());
+        cache.get("a", 0, renderer());
+        cache.get("c", 0, renderer());
+
+        assertEquals(2, cache.size(), "The cache must not grow over its capacity");
+        assertEquals("reply 1", cache.get("a", 0, renderer()), "The recently used reply must be kept");
+        assertEquals("reply 4", cache.get("b", 0, renderer()), "The least recently used reply must be evicted");
+    }
+
+    @Test
+    public void testLongReplyIsNotCached() {
+        Supplier<String> longReply = () -> "x".repeat(17 + renders.getAndIncrement());
+        cache.get("search\nx", 0, longReply);
+        cache.get("search\nx", 0, longReply);
+
+        assertEquals(2, renders.get(), "A reply longer than the limit must not be cached");
+        assertEquals(0, cache.size(), "A reply longer than the limit must not be cached");
+    }
+
+    @Test
+    public void testFailedRenderIsNotCached() {
+        assertThrows(IllegalArgumentException.class, () -> cache.get("top\n-1", 0, () -> {
+            throw new IllegalArgumentException();
+        }), "A render failure must be propagated");
+
+        assertEquals(0, cache.size(), "A failed render must not be cached");
+    }
+
+    private Supplier<String> renderer() {
+        return () -> "reply " + renders.incrementAndGet();
+    }
+}
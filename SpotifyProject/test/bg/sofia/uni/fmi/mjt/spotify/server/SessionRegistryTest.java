@@ -0,0 +1,141 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionRegistryTest {
+    private static final long WINDOW = 100;
+
+    private SessionRegistry registry;
+    private List<Session> endedSessions;
+    private Session session;
+
+    @BeforeEach
+    public void setUp() {
+        endedSessions = new ArrayList<>();
+        registry = new SessionRegistry(WINDOW);
+        session = new Session();
+    }
+
+    @Test
+    public void testLoginRegistersBothDirections() {
+        assertTrue(registry.login(session, "gabi@abv.bg", endedSessions::add), "The first login must succeed");
+
+        assertEquals("gabi@abv.bg", session.getUsername(), "The session must hold the user");
+        assertSame(session, registry.getSession("gabi@abv.bg"), "The user must map to the session");
+        assertSame(session, registry.getSessionByToken(session.getToken()), "The token must map to the session");
+        assertTrue(registry.isAttached("gabi@abv.bg"), "The user must be attached");
+    }
+
+    @Test
+    public void testSecondLoginIsRejected() {
+        Session other = new Session();
+        registry.login(session, "gabi@abv.bg", endedSessions::add);
+
+        assertFalse(registry.login(other, "gabi@abv.bg", endedSessions::add), "A user must be logged in only once");
+        assertNull(other.getUsername(), "A rejected session must not hold the user");
+    }
+
+    @Test
+    public void testTokensAreUnique() {
+        Session other = new Session();
+        registry.login(session, "gabi@abv.bg", endedSessions::add);
+        registry.login(other, "stefan@abv.bg", endedSessions::add);
+
+        assertNotEquals(session.getToken(), other.getToken(), "Every login must get its own token");
+    }
+
+    @Test
+    public void testLogoutReleasesUserAndToken() {
+        registry.login(session, "gabi@abv.bg", endedSessions::add);
+        String token = session.getToken();
+        registry.logout(session);
+
+        assertNull(registry.getSession("gabi@abv.bg"), "The user must be released");
+        assertNull(registry.getSessionByToken(token), "The token must be invalidated");
+        assertEquals(0, registry.size(), "No session must be registered");
+    }
+
+    @Test
+    public void testResumeMovesDetachedSession() {
+        Session resumed = new Session();
+        registry.login(session, "gabi@abv.bg", endedSessions::add);
+        session.setPlayedSong(List.of("Hello", "Adel"));
+        session.setPlaybackPosition(3.5);
+        registry.detach(session, 0);
+
+        assertTrue(registry.resume(session.getToken(), resumed), "A detached session must be resumable");
+        assertEquals("gabi@abv.bg", resumed.getUsername(), "The user must move to the new session");
+        assertEquals(List.of("Hello", "Adel"), resumed.getPlayedSong(), "The playback must move to the new session");
+        assertEquals(3.5, resumed.getPlaybackPosition(), "The playback position must move to the new session");
+        assertNull(session.getPlayedSong(), "The old session must not be playing");
+        assertSame(resumed, registry.getSession("gabi@abv.bg"), "The user must map to the new session");
+        assertFalse(resumed.isDetached(), "The resumed session must be attached");
+    }
+
+    @Test
+    public void testDetachedSessionExpires() {
+        registry.login(session, "gabi@abv.bg", endedSessions::add);
+        String token = session.getToken();
+        registry.detach(session, 0);
+
+        registry.expireDetached(WINDOW - 1, endedSessions::add);
+        assertTrue(endedSessions.isEmpty(), "A session must not expire within the resume window");
+        assertFalse(registry.isAttached("gabi@abv.bg"), "A detached user must not be attached");
+
+        registry.expireDetached(WINDOW, endedSessions::add);
+        assertEquals(List.of(session), endedSessions, "A session must expire after the resume window");
+        assertNull(registry.getSession("gabi@abv.bg"), "An expired user must be released");
+        assertFalse(registry.resume(token, new Session()), "An expired session must not be resumable");
+    }
+
+    @Test
+    public void testResumedSessionDoesNotExpire() {
+        Session resumed = new Session();
+        registry.login(session, "gabi@abv.bg", endedSessions::add);
+        registry.detach(session, 0);
+        registry.resume(session.getToken(), resumed);
+
+        registry.expireDetached(WINDOW * 2, endedSessions::add);
+
+        assertTrue(endedSessions.isEmpty(), "A resumed session must not expire");
+        assertSame(resumed, registry.getSession("gabi@abv.bg"), "The resumed session must stay registered");
+    }
+
+    @Test
+    public void testLoginTakesOverDetachedSession() {
+        Session other = new Session();
+        registry.login(session, "gabi@abv.bg", endedSessions::add);
+        String token = session.getToken();
+        registry.detach(session, 0);
+
+        assertTrue(registry.login(other, "gabi@abv.bg", endedSessions::add), "A detached session must not block a login");
+        assertEquals(List.of(session), endedSessions, "The detached session must be ended");
+        assertNull(registry.getSessionByToken(token), "The detached session's token must be invalidated");
+    }
+
+    @Test
+    public void testResumeStopsTheStreamingSessionBeforeMovingIt() {
+        Session streaming = new Session() {
+            @Override
+            void onTakenOver() {
+                setPlaybackPosition(4.0);
+            }
+        };
+        Session resumed = new Session();
+        registry.login(streaming, "gabi@abv.bg", endedSessions::add);
+        streaming.setPlayedSong(List.of("Hello", "Adel"));
+        streaming.setPlaybackPosition(3.5);
+
+        assertTrue(registry.resume(streaming.getToken(), resumed), "An attached session must be resumable");
+        assertEquals(4.0, resumed.getPlaybackPosition(),
+                "The playback must move after the streaming session has stopped");
+        assertNull(streaming.getUsername(), "The streaming session must not hold the user");
+        assertTrue(endedSessions.isEmpty(), "A taken over session must not be ended");
+    }
+}
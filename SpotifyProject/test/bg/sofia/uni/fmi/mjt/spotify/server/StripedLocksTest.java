@@ -0,0 +1,41 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLocksTest {
+
+    @Test
+    public void testSameKeyHasSameLock() {
+        StripedLocks locks = new StripedLocks(8);
+
+        assertSame(locks.get("gabi@abv.bg"), locks.get(new String("gabi@abv.bg")), "A key must always map to the same lock");
+    }
+
+    @Test
+    public void testKeysAreSpreadAcrossStripes() {
+        StripedLocks locks = new StripedLocks(8);
+        Set<Object> usedLocks = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < 1000; i++) {
+            usedLocks.add(locks.get("user" + i + "@abv.bg"));
+        }
+
+        assertEquals(8, usedLocks.size(), "Every stripe must be used");
+    }
+
+    @Test
+    public void testInvalidStripesCount() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedLocks(0), "Stripes count must be positive");
+        assertThrows(IllegalArgumentException.class, () -> new StripedLocks(12), "Stripes count must be a power of two");
+    }
+
+    @Test
+    public void testNullKey() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedLocks().get(null), "A null key must be rejected");
+    }
+}
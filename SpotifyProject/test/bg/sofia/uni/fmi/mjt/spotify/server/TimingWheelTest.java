@@ -0,0 +1,97 @@
+package bg.sofia.uni.fmi.mjt.spotify.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+    private static final long START = 1_000;
+    private static final long TICK = 10;
+
+    private TimingWheel<String> wheel;
+    private List<String> expired;
+
+    @BeforeEach
+    public void setUp() {
+        wheel = new TimingWheel<>(TICK, 8, START);
+        expired = new ArrayList<>();
+    }
+
+    @Test
+    public void testTimeoutExpiresAtItsDeadline() {
+        wheel.schedule("a", START + 35);
+
+        wheel.advance(START + 39, expired::add);
+        assertEquals(List.of(), expired, "A timeout must not expire before its tick");
+
+        wheel.advance(START + 40, expired::add);
+        assertEquals(List.of("a"), expired, "A timeout must expire once its tick passes");
+        assertTrue(wheel.isEmpty(), "An expired timeout must leave the wheel");
+    }
+
+    @Test
+    public void testTimeoutAfterSeveralRoundsExpiresOnlyInItsRound() {
+        wheel.schedule("late", START + 8 * TICK * 3 + 5);
+
+        wheel.advance(START + 8 * TICK * 2, expired::add);
+        assertEquals(List.of(), expired, "A timeout in a later round must stay in its slot");
+
+        wheel.advance(START + 8 * TICK * 4, expired::add);
+        assertEquals(List.of("late"), expired, "A timeout must expire in its own round");
+    }
+
+    @Test
+    public void testCancelledTimeoutDoesNotExpire() {
+        TimingWheel.Timeout<String> first = wheel.schedule("a", START + 20);
+        wheel.schedule("b", START + 20);
+        wheel.schedule("c", START + 20);
+
+        wheel.cancel(first);
+        wheel.advance(START + 100, expired::add);
+
+        assertEquals(2, expired.size(), "Only the scheduled timeouts must expire");
+        assertFalse(expired.contains("a"), "A cancelled timeout must not expire");
+        assertFalse(first.isScheduled(), "A cancelled timeout must not be scheduled");
+    }
+
+    @Test
+    public void testLongPauseExpiresEveryOverdueTimeout() {
+        for (int i = 0; i < 20; i++) {
+            wheel.schedule("t" + i, START + i * TICK);
+        }
+
+        wheel.advance(START + 1_000, expired::add);
+
+        assertEquals(20, expired.size(), "A pause longer than a round must expire every overdue timeout");
+    }
+
+    @Test
+    public void testPastDeadlineExpiresOnNextAdvance() {
+        wheel.advance(START + 50, expired::add);
+        wheel.schedule("past", START);
+
+        wheel.advance(START + 60, expired::add);
+
+        assertEquals(List.of("past"), expired, "A deadline in the past must expire on the next tick");
+    }
+
+    @Test
+    public void testRescheduleFromCallback() {
+        wheel.schedule("a", START + 10);
+
+        wheel.advance(START + 10, value -> wheel.schedule(value + "'", START + 30));
+        wheel.advance(START + 30, expired::add);
+
+        assertEquals(List.of("a'"), expired, "A timeout scheduled from the callback must expire later");
+    }
+
+    @Test
+    public void testWheelSizeMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<String>(TICK, 6, START),
+                "The wheel size must be a power of two");
+    }
+}
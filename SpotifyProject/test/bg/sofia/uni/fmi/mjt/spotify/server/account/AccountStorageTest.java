@@ -5,9 +5,15 @@ import bg.sofia.uni.fmi.mjt.spotify.server.exception.AccountNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -30,6 +36,30 @@ class AccountStorageTest {
         assertEquals(Set.of("gabi@abv.bg", "stefan@abv.bg", "kali@abv.bg"), accountStorage.getUsernames(), "Unexpected exit after registration");
     }
 
+    @Test
+    public void testConcurrentRegistrationOfSameEmail() throws Exception {
+        List<Callable<Boolean>> registrations = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            registrations.add(() -> {
+                try {
+                    accountStorage.register("kali@abv.bg", "12345");
+                    return true;
+                } catch (AccountAlreadyExistsException e) {
+                    return false;
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        int registered = 0;
+        for (Future<Boolean> registration : executor.invokeAll(registrations)) {
+            registered += registration.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(1, registered, "An email must be registered exactly once");
+    }
+
     @Test
     public void testRegisterInvalidEmail() {
         assertThrows(IllegalArgumentException.class, () -> accountStorage.register("kali", "12345"), "Unexpected exit after registration");
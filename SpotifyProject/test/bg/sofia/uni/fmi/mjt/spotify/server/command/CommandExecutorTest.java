@@ -2,20 +2,29 @@ package bg.sofia.uni.fmi.mjt.spotify.server.command;
 
 import bg.sofia.uni.fmi.mjt.spotify.server.MemorySaver;
 import bg.sofia.uni.fmi.mjt.spotify.server.Profile;
+import bg.sofia.uni.fmi.mjt.spotify.server.Session;
 import bg.sofia.uni.fmi.mjt.spotify.server.Storage;
 import bg.sofia.uni.fmi.mjt.spotify.server.account.AccountStorage;
 import bg.sofia.uni.fmi.mjt.spotify.server.exception.*;
+import bg.sofia.uni.fmi.mjt.spotify.server.radio.Radio;
 import bg.sofia.uni.fmi.mjt.spotify.server.song.SongStorage;
+import bg.sofia.uni.fmi.mjt.spotify.server.song.TrendingWindow;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.IOException;
-import java.nio.channels.SelectionKey;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.*;
 
 class CommandExecutorTest {
@@ -26,16 +35,22 @@ class CommandExecutorTest {
 
     private static final String REGISTER = "register";
     private static final String LOGIN = "login";
+    private static final String RESUME = "resume";
     private static final String SEARCH = "search";
     private static final String TOP = "top";
+    private static final String TRENDING = "trending";
     private static final String CREATE_PLAYLIST = "create-playlist";
     private static final String ADD_SONG_TO = "add-song-to";
     private static final String SHOW_PLAYLIST = "show-playlist";
     private static final String PLAY = "play";
     private static final String STOP = "stop";
+    private static final String SEEK = "seek";
+    private static final String START_RADIO = "start-radio";
+    private static final String TUNE_IN = "tune-in";
+    private static final String TUNE_OUT = "tune-out";
     private static final String DISCONNECT = "disconnect";
 
-    private SelectionKey key;
+    private Session session;
     private Storage storage;
     private CommandExecutor cmdExecutor;
     private MemorySaver memoryManager;
@@ -46,7 +61,7 @@ class CommandExecutorTest {
     @BeforeEach
     public void setUp() {
 
-        key = mock(SelectionKey.class);
+        session = new Session();
         memoryManager = mock(MemorySaver.class);
         accountStorage = mock(AccountStorage.class);
         Profile gabi = mock(Profile.class);
@@ -61,7 +76,7 @@ class CommandExecutorTest {
     public void testRegisterWithMoreArguments() {
         String expected = String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, REGISTER, 2,
                 REGISTER + " <email> <password>");
-        String actual = cmdExecutor.execute(key, new Command(REGISTER, new String[]{"gabi@abv.bg", "123", "456"}));
+        String actual = cmdExecutor.execute(session, new Command(REGISTER, new String[]{"gabi@abv.bg", "123", "456"}));
 
         assertEquals(expected, actual, "Unexpected output for 'register'");
     }
@@ -69,7 +84,7 @@ class CommandExecutorTest {
     @Test
     public void testRegisterSuccessfully() {
         String expected = "You have successfully registered!" + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(REGISTER, new String[]{"stefan@abv.bg", "123"}));
+        String actual = cmdExecutor.execute(session, new Command(REGISTER, new String[]{"stefan@abv.bg", "123"}));
 
         assertEquals(expected, actual, "Unexpected output for 'register'");
     }
@@ -80,7 +95,7 @@ class CommandExecutorTest {
                 .when(accountStorage).register("gabi@abv.bg", "12345678");
 
         String expected = "A user with such an email already exists." + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(REGISTER, new String[]{"gabi@abv.bg", "12345678"}));
+        String actual = cmdExecutor.execute(session, new Command(REGISTER, new String[]{"gabi@abv.bg", "12345678"}));
 
         assertEquals(expected, actual, "Unexpected output for 'register'");
     }
@@ -88,10 +103,10 @@ class CommandExecutorTest {
     @Test
     public void testRegisterWhenAccountIsLoggedIn() throws AccountNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
 
         String expected = "You are logged in. You cannot register." + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(REGISTER, new String[]{"gabi@abv.bg", "12345678"}));
+        String actual = cmdExecutor.execute(session, new Command(REGISTER, new String[]{"gabi@abv.bg", "12345678"}));
 
         assertEquals(expected, actual, "Unexpected output for 'register'");
     }
@@ -101,7 +116,7 @@ class CommandExecutorTest {
         doThrow(IllegalArgumentException.class).when(accountStorage).register("gabi", "12345678");
 
         String expected = "Wrong email format!" + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(REGISTER, new String[]{"gabi", "12345678"}));
+        String actual = cmdExecutor.execute(session, new Command(REGISTER, new String[]{"gabi", "12345678"}));
 
         assertEquals(expected, actual, "Unexpected output for 'register'");
     }
@@ -110,7 +125,7 @@ class CommandExecutorTest {
     public void testLoginWithLessArguments() {
         String expected = String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, LOGIN, 2,
                 LOGIN + " <email> <password>");
-        String actual = cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg"}));
+        String actual = cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg"}));
 
         assertEquals(expected, actual, "Unexpected output for 'login'");
     }
@@ -119,10 +134,11 @@ class CommandExecutorTest {
     public void testLoginWhenAccountExists() throws AccountNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
 
-        String expected = String.format("You have successfully logged in" + System.lineSeparator());
-        String actual = cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        String actual = cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        String expected = "You have successfully logged in. Your session token is " + session.getToken() + System.lineSeparator();
 
         assertEquals(expected, actual, "Unexpected output for 'login'");
+        assertNotNull(session.getToken(), "A session token should be issued at login");
     }
 
     @Test
@@ -130,7 +146,7 @@ class CommandExecutorTest {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(false);
 
         String expected = String.format("Wrong password. Please, try again" + System.lineSeparator());
-        String actual = cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        String actual = cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
 
         assertEquals(expected, actual, "Unexpected output for 'login'");
     }
@@ -140,7 +156,7 @@ class CommandExecutorTest {
         when(accountStorage.login("stefan@abv.bg", "12345678")).thenThrow(AccountNotFoundException.class);
 
         String expected = String.format("Such an account does not exist. You can register." + System.lineSeparator());
-        String actual = cmdExecutor.execute(key, new Command(LOGIN, new String[]{"stefan@abv.bg", "12345678"}));
+        String actual = cmdExecutor.execute(session, new Command(LOGIN, new String[]{"stefan@abv.bg", "12345678"}));
 
         assertEquals(expected, actual, "Unexpected output for 'login'");
     }
@@ -148,34 +164,184 @@ class CommandExecutorTest {
     @Test
     public void testLoginWhenAccountIsAlreadyLoggedIn() throws AccountNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
 
         String expected = String.format("You are logged in. You cannot do it again." + System.lineSeparator());
-        String actual = cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        String actual = cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
 
         assertEquals(expected, actual, "Unexpected output for 'login'");
     }
 
     @Test
     public void testLoginWhenAccountIsAlreadyLoggedInWithAnotherKey() throws AccountNotFoundException {
-        SelectionKey secondKey = mock(SelectionKey.class);
+        Session secondSession = new Session();
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
 
         String expected = String.format("You are logged in. You cannot do it again." + System.lineSeparator());
-        String actual = cmdExecutor.execute(secondKey, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        String actual = cmdExecutor.execute(secondSession, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
 
         assertEquals(expected, actual, "Unexpected output for 'login'");
     }
 
+    @Test
+    public void testLoginWithAnotherSessionAfterDisconnect() throws AccountNotFoundException {
+        Session secondSession = new Session();
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(DISCONNECT, new String[]{}));
+
+        String actual = cmdExecutor.execute(secondSession, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        String expected = "You have successfully logged in. Your session token is " + secondSession.getToken() +
+                System.lineSeparator();
+
+        assertEquals(expected, actual, "A disconnected session should release its account");
+        assertEquals("gabi@abv.bg", secondSession.getUsername(), "The session should hold the logged in user");
+        assertEquals(null, session.getUsername(), "The disconnected session should be logged out");
+    }
+
+    @Test
+    public void testDisconnectStopsThePlayedSong() throws AccountNotFoundException, UnsupportedAudioFileException, IOException, SongNotFoundException {
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        when(songStorage.play("Hello", "Adel")).thenReturn("songRepository/audio.wav+format,8000.0,16,2,4,8000.0,false");
+        cmdExecutor.execute(session, new Command(PLAY, new String[]{"Hello", "Adel"}));
+
+        cmdExecutor.execute(session, new Command(DISCONNECT, new String[]{}));
+
+        verify(songStorage).stop("Hello", "Adel");
+        assertEquals(null, session.getPlayedSong(), "The disconnected session should not keep its song");
+    }
+
+    @Test
+    public void testCommandsAreCountedPerSession() {
+        cmdExecutor.execute(session, new Command("unknown", new String[]{}));
+        cmdExecutor.execute(session, new Command(STOP, new String[]{}));
+
+        assertEquals(2, session.getCommandsCount(), "Every executed command should be counted");
+    }
+
+    @Test
+    public void testConcurrentLoginOfSameUser() throws Exception {
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        List<Callable<String>> logins = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Session otherSession = new Session();
+            logins.add(() -> cmdExecutor.execute(otherSession, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"})));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        int loggedIn = 0;
+        for (Future<String> login : executor.invokeAll(logins)) {
+            loggedIn += login.get().startsWith("You have successfully logged in") ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(1, loggedIn, "A user must be logged in only once");
+    }
+
+    @Test
+    public void testResumeAfterConnectionLoss() throws AccountNotFoundException {
+        Session secondSession = new Session();
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        String token = session.getToken();
+        storage.detach(session);
+
+        String actual = cmdExecutor.execute(secondSession, new Command(RESUME, new String[]{token}));
+
+        assertEquals("You resumed your session successfully!" + System.lineSeparator(), actual, "Unexpected output for 'resume'");
+        assertEquals("gabi@abv.bg", secondSession.getUsername(), "The resumed session should hold the user");
+        assertEquals(token, secondSession.getToken(), "The resumed session should keep its token");
+        assertEquals(null, session.getUsername(), "The lost session should no longer hold the user");
+    }
+
+    @Test
+    public void testResumeRestoresPlayback() throws AccountNotFoundException, UnsupportedAudioFileException, IOException, SongNotFoundException {
+        Session secondSession = new Session();
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        when(songStorage.play("Hello", "Adel")).thenReturn("songRepository/audio.wav+format,8000.0,16,2,4,8000.0,false");
+        when(songStorage.getPlayInfo("Hello", "Adel")).thenReturn("songRepository/audio.wav+format,8000.0,16,2,4,8000.0,false");
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(PLAY, new String[]{"Hello", "Adel"}));
+        session.setPlaybackPosition(12.5);
+        storage.detach(session);
+
+        String actual = cmdExecutor.execute(secondSession, new Command(RESUME, new String[]{session.getToken()}));
+
+        assertEquals("songRepository/audio.wav+format,8000.0,16,2,4,8000.0,false+12.5" + System.lineSeparator(), actual,
+                "The song should be resumed from its position");
+        assertEquals(List.of("Hello", "Adel"), secondSession.getPlayedSong(), "The resumed session should be playing");
+        verify(songStorage, never()).stop("Hello", "Adel");
+        verify(songStorage, times(1)).play("Hello", "Adel");
+    }
+
+    @Test
+    public void testResumeWithInvalidToken() {
+        String actual = cmdExecutor.execute(session, new Command(RESUME, new String[]{"nope"}));
+
+        assertEquals("Invalid or expired session token." + System.lineSeparator(), actual, "Unexpected output for 'resume'");
+    }
+
+    @Test
+    public void testResumeAfterDisconnect() throws AccountNotFoundException {
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        String token = session.getToken();
+        cmdExecutor.execute(session, new Command(DISCONNECT, new String[]{}));
+
+        String actual = cmdExecutor.execute(new Session(), new Command(RESUME, new String[]{token}));
+
+        assertEquals("Invalid or expired session token." + System.lineSeparator(), actual, "A disconnect must invalidate the token");
+    }
+
+    @Test
+    public void testResumeWhenLoggedIn() throws AccountNotFoundException {
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+
+        String actual = cmdExecutor.execute(session, new Command(RESUME, new String[]{session.getToken()}));
+
+        assertEquals("You are logged in. You cannot resume another session." + System.lineSeparator(), actual,
+                "Unexpected output for 'resume'");
+    }
+
+    @Test
+    public void testResumeWithMoreArguments() {
+        String expected = String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, RESUME, 1, RESUME + " <session_token>");
+        String actual = cmdExecutor.execute(session, new Command(RESUME, new String[]{"a", "b"}));
+
+        assertEquals(expected, actual, "Unexpected output for 'resume'");
+    }
+
+    @Test
+    public void testLoginTakesOverDetachedSession() throws AccountNotFoundException, UnsupportedAudioFileException, IOException, SongNotFoundException {
+        Session secondSession = new Session();
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        when(songStorage.play("Hello", "Adel")).thenReturn("songRepository/audio.wav+format,8000.0,16,2,4,8000.0,false");
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(PLAY, new String[]{"Hello", "Adel"}));
+        String token = session.getToken();
+        storage.detach(session);
+
+        String actual = cmdExecutor.execute(secondSession, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+
+        assertEquals("You have successfully logged in. Your session token is " + secondSession.getToken() +
+                System.lineSeparator(), actual, "A detached session must not block a login");
+        verify(songStorage).stop("Hello", "Adel");
+        assertEquals("Invalid or expired session token." + System.lineSeparator(),
+                cmdExecutor.execute(new Session(), new Command(RESUME, new String[]{token})),
+                "The token of a replaced session must be invalid");
+    }
+
     @Test
     public void testSearchWithLessArguments() throws AccountNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
 
         String expected = String.format("Invalid count of arguments: search expects more than zero arguments. Example: \"%s\"" + System.lineSeparator(),
                 SEARCH + " <words>");
-        String actual = cmdExecutor.execute(key, new Command(SEARCH, new String[]{}));
+        String actual = cmdExecutor.execute(session, new Command(SEARCH, new String[]{}));
 
         assertEquals(expected, actual, "Unexpected output for 'search'");
     }
@@ -185,18 +351,35 @@ class CommandExecutorTest {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
         when(songStorage.search("me", "Shakira")).thenReturn("Girl like me - Shakira" + System.lineSeparator());
 
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
 
         String expected = String.format("Girl like me - Shakira" + System.lineSeparator() + System.lineSeparator());
-        String actual = cmdExecutor.execute(key, new Command(SEARCH, new String[]{"me", "Shakira"}));
+        String actual = cmdExecutor.execute(session, new Command(SEARCH, new String[]{"me", "Shakira"}));
 
         assertEquals(expected, actual, "Unexpected output for 'search'");
     }
 
+    @Test
+    public void testSearchIsCachedUntilCatalogChanges() throws AccountNotFoundException {
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        when(songStorage.search("me", "Shakira")).thenReturn("Girl like me - Shakira" + System.lineSeparator());
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+
+        cmdExecutor.execute(session, new Command(SEARCH, new String[]{"me", "Shakira"}));
+        String actual = cmdExecutor.execute(session, new Command(SEARCH, new String[]{"shakira", "ME"}));
+        verify(songStorage, times(1)).search("me", "Shakira");
+        assertEquals("Girl like me - Shakira" + System.lineSeparator() + System.lineSeparator(), actual,
+                "A normalized query must be served from the cache");
+
+        when(songStorage.getCatalogVersion()).thenReturn(1L);
+        cmdExecutor.execute(session, new Command(SEARCH, new String[]{"me", "Shakira"}));
+        verify(songStorage, times(2)).search("me", "Shakira");
+    }
+
     @Test
     public void testSearchWhenNotLoggedIn() {
         String expected = String.format(NOT_LOGGED_IN);
-        String actual = cmdExecutor.execute(key, new Command(SEARCH, new String[]{"me", "Shakira"}));
+        String actual = cmdExecutor.execute(session, new Command(SEARCH, new String[]{"me", "Shakira"}));
 
         assertEquals(expected, actual, "Unexpected output for 'search'");
     }
@@ -205,7 +388,7 @@ class CommandExecutorTest {
     public void testTopNWithMoreArguments() {
         String expected = String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, TOP, 1,
                 TOP + " <number>");
-        String actual = cmdExecutor.execute(key, new Command(TOP, new String[]{"23", "43"}));
+        String actual = cmdExecutor.execute(session, new Command(TOP, new String[]{"23", "43"}));
 
         assertEquals(expected, actual, "Unexpected output for 'top'");
     }
@@ -214,10 +397,10 @@ class CommandExecutorTest {
     public void testTopN() throws AccountNotFoundException {
         when(songStorage.getTopNListenedSongsAtTheMoment(1)).thenReturn("Girl like me - Shakira" + System.lineSeparator());
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
 
         String expected = "Girl like me - Shakira" + System.lineSeparator() + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(TOP, new String[]{"1"}));
+        String actual = cmdExecutor.execute(session, new Command(TOP, new String[]{"1"}));
 
         assertEquals(expected, actual, "Unexpected output for 'top'");
     }
@@ -225,7 +408,7 @@ class CommandExecutorTest {
     @Test
     public void testTopNWhenNotLoggedIn() {
         String expected = NOT_LOGGED_IN;
-        String actual = cmdExecutor.execute(key, new Command(TOP, new String[]{"1"}));
+        String actual = cmdExecutor.execute(session, new Command(TOP, new String[]{"1"}));
 
         assertEquals(expected, actual, "Unexpected output for 'top'");
     }
@@ -233,10 +416,10 @@ class CommandExecutorTest {
     @Test
     public void testTopNWhenNIsNotNumber() throws AccountNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
 
         String expected = "You must enter a number!" + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(TOP, new String[]{"number"}));
+        String actual = cmdExecutor.execute(session, new Command(TOP, new String[]{"number"}));
 
         assertEquals(expected, actual, "Unexpected output for 'top'");
     }
@@ -244,20 +427,71 @@ class CommandExecutorTest {
     @Test
     public void testTopNWhenNIsNegativeNumber() throws AccountNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
         when(songStorage.getTopNListenedSongsAtTheMoment(-1)).thenThrow(IllegalArgumentException.class);
 
         String expected = "The number must not be negative!" + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(TOP, new String[]{"-1"}));
+        String actual = cmdExecutor.execute(session, new Command(TOP, new String[]{"-1"}));
 
         assertEquals(expected, actual, "Unexpected output for 'top'");
     }
 
+    @Test
+    public void testTrendingWithLessArguments() {
+        String expected = String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, TRENDING, 2,
+                TRENDING + " <5m|1h|1d> <number>");
+        String actual = cmdExecutor.execute(session, new Command(TRENDING, new String[]{"1"}));
+
+        assertEquals(expected, actual, "Unexpected output for 'trending'");
+    }
+
+    @Test
+    public void testTrending() throws AccountNotFoundException {
+        when(songStorage.getTrendingSongs(TrendingWindow.HOUR, 1)).thenReturn("Girl like me - Shakira" + System.lineSeparator());
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+
+        String expected = "Girl like me - Shakira" + System.lineSeparator() + System.lineSeparator();
+        String actual = cmdExecutor.execute(session, new Command(TRENDING, new String[]{"1h", "1"}));
+
+        assertEquals(expected, actual, "Unexpected output for 'trending'");
+    }
+
+    @Test
+    public void testTrendingWhenNotLoggedIn() {
+        String expected = NOT_LOGGED_IN;
+        String actual = cmdExecutor.execute(session, new Command(TRENDING, new String[]{"1h", "1"}));
+
+        assertEquals(expected, actual, "Unexpected output for 'trending'");
+    }
+
+    @Test
+    public void testTrendingWithUnknownWindow() throws AccountNotFoundException {
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+
+        String expected = "The window must be one of: 5m, 1h, 1d" + System.lineSeparator();
+        String actual = cmdExecutor.execute(session, new Command(TRENDING, new String[]{"week", "1"}));
+
+        assertEquals(expected, actual, "Unexpected output for 'trending'");
+    }
+
+    @Test
+    public void testTrendingWhenNIsNotNumber() throws AccountNotFoundException {
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+
+        String expected = "You must enter a number!" + System.lineSeparator();
+        String actual = cmdExecutor.execute(session, new Command(TRENDING, new String[]{"5m", "number"}));
+
+        assertEquals(expected, actual, "Unexpected output for 'trending'");
+    }
+
     @Test
     public void testCreatePlaylistWithLessArguments() {
         String expected = String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, CREATE_PLAYLIST, 1,
                 CREATE_PLAYLIST + " <name_of_the_playlist>");
-        String actual = cmdExecutor.execute(key, new Command(CREATE_PLAYLIST, new String[]{}));
+        String actual = cmdExecutor.execute(session, new Command(CREATE_PLAYLIST, new String[]{}));
 
         assertEquals(expected, actual, "Unexpected output for 'create-playlist'");
     }
@@ -265,7 +499,7 @@ class CommandExecutorTest {
     @Test
     public void testCreatePlaylistWhenNotLoggedIn() {
         String expected = NOT_LOGGED_IN;
-        String actual = cmdExecutor.execute(key, new Command(CREATE_PLAYLIST, new String[]{"Hey"}));
+        String actual = cmdExecutor.execute(session, new Command(CREATE_PLAYLIST, new String[]{"Hey"}));
 
         assertEquals(expected, actual, "Unexpected output for 'create-playlist'");
     }
@@ -273,10 +507,10 @@ class CommandExecutorTest {
     @Test
     public void testCreatePlaylistSuccessfully() throws AccountNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
 
         String expected = "A playlist with a name Hello created successfully!" + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(CREATE_PLAYLIST, new String[]{"Hello"}));
+        String actual = cmdExecutor.execute(session, new Command(CREATE_PLAYLIST, new String[]{"Hello"}));
 
         assertEquals(expected, actual, "Unexpected output for 'create-playlist'");
     }
@@ -284,11 +518,11 @@ class CommandExecutorTest {
     @Test
     public void testCreatePlaylistWhenExists() throws AccountNotFoundException, PlaylistAlreadyExistsException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
         doThrow(PlaylistAlreadyExistsException.class).when(profileStorage.get("gabi@abv.bg")).addPlaylist("Hello");
 
         String expected = "A playlist with such a name already exists." + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(CREATE_PLAYLIST, new String[]{"Hello"}));
+        String actual = cmdExecutor.execute(session, new Command(CREATE_PLAYLIST, new String[]{"Hello"}));
 
         assertEquals(expected, actual, "Unexpected output for 'create-playlist'");
     }
@@ -296,11 +530,11 @@ class CommandExecutorTest {
     @Test
     public void testCreatePlaylistWithWrongName() throws AccountNotFoundException, PlaylistAlreadyExistsException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
         doThrow(IllegalArgumentException.class).when(profileStorage.get("gabi@abv.bg")).addPlaylist("   ");
 
         String expected = "The name cannot be blank." + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(CREATE_PLAYLIST, new String[]{"   "}));
+        String actual = cmdExecutor.execute(session, new Command(CREATE_PLAYLIST, new String[]{"   "}));
 
         assertEquals(expected, actual, "Unexpected output for 'create-playlist'");
     }
@@ -309,7 +543,7 @@ class CommandExecutorTest {
     public void testAddSongToWithLessArguments() {
         String expected = String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, ADD_SONG_TO, 3,
                 ADD_SONG_TO + " <name_of_the_playlist> <song_name> <artist>");
-        String actual = cmdExecutor.execute(key, new Command(ADD_SONG_TO, new String[]{"Hello", "Say my name"}));
+        String actual = cmdExecutor.execute(session, new Command(ADD_SONG_TO, new String[]{"Hello", "Say my name"}));
 
         assertEquals(expected, actual, "Unexpected output for 'add-song-to'");
     }
@@ -317,7 +551,7 @@ class CommandExecutorTest {
     @Test
     public void testAddSongToWhenNotLoggedIn() {
         String expected = NOT_LOGGED_IN;
-        String actual = cmdExecutor.execute(key, new Command(ADD_SONG_TO, new String[]{"Hey", "World", "Adel"}));
+        String actual = cmdExecutor.execute(session, new Command(ADD_SONG_TO, new String[]{"Hey", "World", "Adel"}));
 
         assertEquals(expected, actual, "Unexpected output for 'add-song-to'");
     }
@@ -325,11 +559,11 @@ class CommandExecutorTest {
     @Test
     public void testAddSongToSuccessfully() throws AccountNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
         when(songStorage.isExists("World", "Adel")).thenReturn(true);
 
         String expected = "You have successfully added new song in playlist Hello!" + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(ADD_SONG_TO, new String[]{"Hello", "World", "Adel"}));
+        String actual = cmdExecutor.execute(session, new Command(ADD_SONG_TO, new String[]{"Hello", "World", "Adel"}));
 
         assertEquals(expected, actual, "Unexpected output for 'add-song-to'");
     }
@@ -337,11 +571,11 @@ class CommandExecutorTest {
     @Test
     public void testAddSongToWhenSongNotExists() throws AccountNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
         when(songStorage.isExists("World", "Adel")).thenReturn(false);
 
         String expected = "A song with such a name does not exist." + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(ADD_SONG_TO, new String[]{"Hello", "World", "Adel"}));
+        String actual = cmdExecutor.execute(session, new Command(ADD_SONG_TO, new String[]{"Hello", "World", "Adel"}));
 
         assertEquals(expected, actual, "Unexpected output for 'add-song-to'");
     }
@@ -349,12 +583,12 @@ class CommandExecutorTest {
     @Test
     public void testAddSongToWhenPlaylistNotExists() throws AccountNotFoundException, SongAlreadyExistsException, PlaylistNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
         when(songStorage.isExists("World", "Adel")).thenReturn(true);
         doThrow(PlaylistNotFoundException.class).when(profileStorage.get("gabi@abv.bg")).addSong("Hello", "World", "Adel");
 
         String expected = "A playlist with such a name does not exist." + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(ADD_SONG_TO, new String[]{"Hello", "World", "Adel"}));
+        String actual = cmdExecutor.execute(session, new Command(ADD_SONG_TO, new String[]{"Hello", "World", "Adel"}));
 
         assertEquals(expected, actual, "Unexpected output for 'add-song-to'");
     }
@@ -362,12 +596,12 @@ class CommandExecutorTest {
     @Test
     public void testAddSongToWhenSongAlreadyExistsInPlaylist() throws AccountNotFoundException, SongAlreadyExistsException, PlaylistNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
         when(songStorage.isExists("World", "Adel")).thenReturn(true);
         doThrow(SongAlreadyExistsException.class).when(profileStorage.get("gabi@abv.bg")).addSong("Hello", "World", "Adel");
 
         String expected = "A song is already added in playlist Hello. Cannot be added a second time." + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(ADD_SONG_TO, new String[]{"Hello", "World", "Adel"}));
+        String actual = cmdExecutor.execute(session, new Command(ADD_SONG_TO, new String[]{"Hello", "World", "Adel"}));
 
         assertEquals(expected, actual, "Unexpected output for 'add-song-to'");
     }
@@ -376,7 +610,7 @@ class CommandExecutorTest {
     public void testShowPlaylistWithMoreArguments() {
         String expected = String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, SHOW_PLAYLIST, 1,
                 SHOW_PLAYLIST + " <name_of_the_playlist>");
-        String actual = cmdExecutor.execute(key, new Command(SHOW_PLAYLIST, new String[]{"Hello", "Say my name"}));
+        String actual = cmdExecutor.execute(session, new Command(SHOW_PLAYLIST, new String[]{"Hello", "Say my name"}));
 
         assertEquals(expected, actual, "Unexpected output for 'show-playlist'");
     }
@@ -384,7 +618,7 @@ class CommandExecutorTest {
     @Test
     public void testShowPlaylistWhenNotLoggedIn() {
         String expected = NOT_LOGGED_IN;
-        String actual = cmdExecutor.execute(key, new Command(SHOW_PLAYLIST, new String[]{"Hey"}));
+        String actual = cmdExecutor.execute(session, new Command(SHOW_PLAYLIST, new String[]{"Hey"}));
 
         assertEquals(expected, actual, "Unexpected output for 'show-playlist'");
     }
@@ -392,32 +626,48 @@ class CommandExecutorTest {
     @Test
     public void testShowPlaylistSuccessfully() throws AccountNotFoundException, PlaylistNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
         when(profileStorage.get("gabi@abv.bg").showPlaylist("Hello")).thenReturn("Say my name - Adel" + System.lineSeparator());
 
         String expected = "Say my name - Adel" + System.lineSeparator() + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(SHOW_PLAYLIST, new String[]{"Hello"}));
+        String actual = cmdExecutor.execute(session, new Command(SHOW_PLAYLIST, new String[]{"Hello"}));
 
         assertEquals(expected, actual, "Unexpected output for 'show-playlist'");
     }
 
+    @Test
+    public void testShowPlaylistIsCachedUntilPlaylistChanges() throws AccountNotFoundException, PlaylistNotFoundException {
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        Profile gabi = profileStorage.get("gabi@abv.bg");
+        when(gabi.showPlaylist("Hello")).thenReturn("Say my name - Adel" + System.lineSeparator());
+
+        cmdExecutor.execute(session, new Command(SHOW_PLAYLIST, new String[]{"Hello"}));
+        cmdExecutor.execute(session, new Command(SHOW_PLAYLIST, new String[]{"Hello"}));
+        verify(gabi, times(1)).showPlaylist("Hello");
+
+        when(gabi.getVersion()).thenReturn(1L);
+        cmdExecutor.execute(session, new Command(SHOW_PLAYLIST, new String[]{"Hello"}));
+        verify(gabi, times(2)).showPlaylist("Hello");
+    }
+
     @Test
     public void testShowPlaylistWhenNotExists() throws AccountNotFoundException, PlaylistNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
         when(profileStorage.get("gabi@abv.bg").showPlaylist("Hello")).thenThrow(PlaylistNotFoundException.class);
 
         String expected = "A playlist with such a name does not exist." + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(SHOW_PLAYLIST, new String[]{"Hello"}));
+        String actual = cmdExecutor.execute(session, new Command(SHOW_PLAYLIST, new String[]{"Hello"}));
 
         assertEquals(expected, actual, "Unexpected output for 'show-playlist'");
     }
 
     @Test
     public void testPlayWithLessArguments() {
-        String expected = String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, PLAY, 2,
-                PLAY + " <song_name> <artist>");
-        String actual = cmdExecutor.execute(key, new Command(PLAY, new String[]{"Hello"}));
+        String expected = String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, PLAY, 3,
+                PLAY + " <song_name> <artist> [<seconds>]");
+        String actual = cmdExecutor.execute(session, new Command(PLAY, new String[]{"Hello"}));
 
         assertEquals(expected, actual, "Unexpected output for 'play'");
     }
@@ -425,7 +675,7 @@ class CommandExecutorTest {
     @Test
     public void testPlayWhenNotLoggedIn() {
         String expected = NOT_LOGGED_IN;
-        String actual = cmdExecutor.execute(key, new Command(PLAY, new String[]{"Hello", "Adel"}));
+        String actual = cmdExecutor.execute(session, new Command(PLAY, new String[]{"Hello", "Adel"}));
 
         assertEquals(expected, actual, "Unexpected output for 'play'");
     }
@@ -433,11 +683,11 @@ class CommandExecutorTest {
     @Test
     public void testPlaySuccessfully() throws AccountNotFoundException, UnsupportedAudioFileException, IOException, SongNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
         when(songStorage.play("Hello", "Adel")).thenReturn("format,PCM_SIGNED,16,8000,1,4,16,true:songRepository\\audio.txt");
 
         String expected = "format,PCM_SIGNED,16,8000,1,4,16,true:songRepository\\audio.txt" + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(PLAY, new String[]{"Hello", "Adel"}));
+        String actual = cmdExecutor.execute(session, new Command(PLAY, new String[]{"Hello", "Adel"}));
 
         assertEquals(expected, actual, "Unexpected output for 'play'");
     }
@@ -445,11 +695,11 @@ class CommandExecutorTest {
     @Test
     public void testPlayWhenSongNotExist() throws AccountNotFoundException, UnsupportedAudioFileException, IOException, SongNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
         when(songStorage.play("Hello", "Adel")).thenThrow(SongNotFoundException.class);
 
         String expected = "A song with such a name does not exist." + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(PLAY, new String[]{"Hello", "Adel"}));
+        String actual = cmdExecutor.execute(session, new Command(PLAY, new String[]{"Hello", "Adel"}));
 
         assertEquals(expected, actual, "Unexpected output for 'play'");
     }
@@ -457,21 +707,77 @@ class CommandExecutorTest {
     @Test
     public void testPlaySongForASecondTime() throws AccountNotFoundException, UnsupportedAudioFileException, IOException, SongNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
         when(songStorage.play("Hello", "Adel")).thenReturn("format,PCM_SIGNED,16,8000,1,4,16,true:songRepository\\audio.txt");
-        cmdExecutor.execute(key, new Command(PLAY, new String[]{"Hello", "Adel"}));
+        cmdExecutor.execute(session, new Command(PLAY, new String[]{"Hello", "Adel"}));
 
         String expected = "You are already listening to a song" + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(PLAY, new String[]{"Hello", "Adel"}));
+        String actual = cmdExecutor.execute(session, new Command(PLAY, new String[]{"Hello", "Adel"}));
 
         assertEquals(expected, actual, "Unexpected output for 'play'");
     }
 
+    @Test
+    public void testPlayFromStartPosition() throws AccountNotFoundException, UnsupportedAudioFileException, IOException, SongNotFoundException {
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        when(songStorage.play("Hello", "Adel")).thenReturn("songRepository/audio.wav+format,8000.0,16,2,4,8000.0,false");
+
+        String expected = "songRepository/audio.wav+format,8000.0,16,2,4,8000.0,false+12.5" + System.lineSeparator();
+        String actual = cmdExecutor.execute(session, new Command(PLAY, new String[]{"Hello", "Adel", "12.5"}));
+
+        assertEquals(expected, actual, "Unexpected output for 'play' with a start position");
+    }
+
+    @Test
+    public void testPlayWithInvalidStartPosition() throws AccountNotFoundException {
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+
+        String expected = "The position must be a non-negative number of seconds." + System.lineSeparator();
+        String actual = cmdExecutor.execute(session, new Command(PLAY, new String[]{"Hello", "Adel", "-3"}));
+
+        assertEquals(expected, actual, "Unexpected output for 'play' with a negative start position");
+    }
+
+    @Test
+    public void testSeekWithLessArguments() {
+        String expected = String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, SEEK, 1,
+                SEEK + " <seconds>");
+        String actual = cmdExecutor.execute(session, new Command(SEEK, new String[]{}));
+
+        assertEquals(expected, actual, "Unexpected output for 'seek'");
+    }
+
+    @Test
+    public void testSeekWhenNotListening() throws AccountNotFoundException {
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+
+        String expected = "You are not listening to a song" + System.lineSeparator();
+        String actual = cmdExecutor.execute(session, new Command(SEEK, new String[]{"10"}));
+
+        assertEquals(expected, actual, "Unexpected output for 'seek'");
+    }
+
+    @Test
+    public void testSeekSuccessfully() throws AccountNotFoundException, UnsupportedAudioFileException, IOException, SongNotFoundException {
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        when(songStorage.play("Hello", "Adel")).thenReturn("songRepository/audio.wav+format,8000.0,16,2,4,8000.0,false");
+        cmdExecutor.execute(session, new Command(PLAY, new String[]{"Hello", "Adel"}));
+
+        String expected = Storage.SEEK_PREFIX + "10.0" + System.lineSeparator();
+        String actual = cmdExecutor.execute(session, new Command(SEEK, new String[]{"10"}));
+
+        assertEquals(expected, actual, "Unexpected output for 'seek'");
+    }
+
     @Test
     public void testStopWithMoreArguments() {
         String expected = String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, STOP, 0,
                 STOP);
-        String actual = cmdExecutor.execute(key, new Command(STOP, new String[]{"Hello"}));
+        String actual = cmdExecutor.execute(session, new Command(STOP, new String[]{"Hello"}));
 
         assertEquals(expected, actual, "Unexpected output for 'stop'");
     }
@@ -479,7 +785,7 @@ class CommandExecutorTest {
     @Test
     public void testStopWhenNotLoggedIn() {
         String expected = NOT_LOGGED_IN;
-        String actual = cmdExecutor.execute(key, new Command(STOP, new String[]{}));
+        String actual = cmdExecutor.execute(session, new Command(STOP, new String[]{}));
 
         assertEquals(expected, actual, "Unexpected output for 'stop'");
     }
@@ -487,12 +793,12 @@ class CommandExecutorTest {
     @Test
     public void testStopSuccessfully() throws AccountNotFoundException, UnsupportedAudioFileException, IOException, SongNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
         when(songStorage.play("Hello", "Adel")).thenReturn("format,PCM_SIGNED,16,8000,1,4,16,true:songRepository\\audio.txt");
-        cmdExecutor.execute(key, new Command(PLAY, new String[]{"Hello", "Adel"}));
+        cmdExecutor.execute(session, new Command(PLAY, new String[]{"Hello", "Adel"}));
 
         String expected = "You stopped the song successfully!" + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(STOP, new String[]{}));
+        String actual = cmdExecutor.execute(session, new Command(STOP, new String[]{}));
 
         assertEquals(expected, actual, "Unexpected output for 'stop'");
     }
@@ -500,10 +806,10 @@ class CommandExecutorTest {
     @Test
     public void testStopNotPlayingSong() throws AccountNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
 
         String expected = "You are not listening to a song" + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(STOP, new String[]{}));
+        String actual = cmdExecutor.execute(session, new Command(STOP, new String[]{}));
 
         assertEquals(expected, actual, "Unexpected output for 'stop'");
     }
@@ -512,7 +818,7 @@ class CommandExecutorTest {
     public void testDisconnectWithMoreArguments() {
         String expected = String.format(INVALID_ARGS_COUNT_MESSAGE_FORMAT, DISCONNECT, 0,
                 DISCONNECT);
-        String actual = cmdExecutor.execute(key, new Command(DISCONNECT, new String[]{"Hello"}));
+        String actual = cmdExecutor.execute(session, new Command(DISCONNECT, new String[]{"Hello"}));
 
         assertEquals(expected, actual, "Unexpected output for 'disconnect'");
     }
@@ -520,7 +826,7 @@ class CommandExecutorTest {
     @Test
     public void testDisconnectWhenNotLoggedIn() {
         String expected = "You have successfully disconnected!" + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(DISCONNECT, new String[]{}));
+        String actual = cmdExecutor.execute(session, new Command(DISCONNECT, new String[]{}));
 
         assertEquals(expected, actual, "Unexpected output for 'disconnect'");
     }
@@ -528,10 +834,10 @@ class CommandExecutorTest {
     @Test
     public void testDisconnectWhenLoggedIn() throws AccountNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
 
         String expected = "You have successfully disconnected!" + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(DISCONNECT, new String[]{}));
+        String actual = cmdExecutor.execute(session, new Command(DISCONNECT, new String[]{}));
 
         assertEquals(expected, actual, "Unexpected output for 'disconnect'");
     }
@@ -539,20 +845,104 @@ class CommandExecutorTest {
     @Test
     public void testDisconnectWhenNotLoggedInAndPlayingSong() throws AccountNotFoundException, UnsupportedAudioFileException, IOException, SongNotFoundException {
         when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
-        cmdExecutor.execute(key, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
         when(songStorage.play("Hello", "Adel")).thenReturn("format,PCM_SIGNED,16,8000,1,4,16,true:songRepository\\audio.txt");
-        cmdExecutor.execute(key, new Command(PLAY, new String[]{"Hello", "Adel"}));
+        cmdExecutor.execute(session, new Command(PLAY, new String[]{"Hello", "Adel"}));
 
         String expected = "You have successfully disconnected!" + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command(DISCONNECT, new String[]{}));
+        String actual = cmdExecutor.execute(session, new Command(DISCONNECT, new String[]{}));
 
         assertEquals(expected, actual, "Unexpected output for 'stop'");
     }
 
+    @Test
+    public void testStartRadioWithoutSongs() throws AccountNotFoundException {
+        Radio radio = mock(Radio.class);
+        cmdExecutor = new CommandExecutor(storage, radio);
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+
+        String expected = "The playlist has no songs." + System.lineSeparator();
+        String actual = cmdExecutor.execute(session, new Command(START_RADIO, new String[]{"morning", "favourites"}));
+
+        assertEquals(expected, actual, "Unexpected output for 'start-radio' with an empty playlist");
+        verify(radio, never()).startStation(anyString(), anyList());
+    }
+
+    @Test
+    public void testStartRadioSuccessfully() throws AccountNotFoundException, PlaylistNotFoundException, SongNotFoundException {
+        Radio radio = mock(Radio.class);
+        cmdExecutor = new CommandExecutor(storage, radio);
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        when(profileStorage.get("gabi@abv.bg").getPlaylistSongs("favourites")).thenReturn(Map.of("Hello", "Adel"));
+        when(songStorage.getSongPath("Hello", "Adel")).thenReturn("songRepository/audio.wav");
+        when(radio.startStation("morning", List.of("songRepository/audio.wav"))).thenReturn(true);
+
+        String expected = "Radio station morning started successfully!" + System.lineSeparator();
+        String actual = cmdExecutor.execute(session, new Command(START_RADIO, new String[]{"morning", "favourites"}));
+
+        assertEquals(expected, actual, "Unexpected output for 'start-radio'");
+    }
+
+    @Test
+    public void testTuneInNotExistingStation() throws AccountNotFoundException {
+        Radio radio = mock(Radio.class);
+        cmdExecutor = new CommandExecutor(storage, radio);
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+
+        String expected = "A radio station with such a name does not exist." + System.lineSeparator();
+        String actual = cmdExecutor.execute(session, new Command(TUNE_IN, new String[]{"morning"}));
+
+        assertEquals(expected, actual, "Unexpected output for 'tune-in' to a missing station");
+    }
+
+    @Test
+    public void testTuneInSuccessfully() throws AccountNotFoundException {
+        Radio radio = mock(Radio.class);
+        cmdExecutor = new CommandExecutor(storage, radio);
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        when(radio.isStationExists("morning")).thenReturn(true);
+
+        String expected = Radio.TUNE_IN_PREFIX + "morning" + System.lineSeparator();
+        String actual = cmdExecutor.execute(session, new Command(TUNE_IN, new String[]{"morning"}));
+
+        assertEquals(expected, actual, "Unexpected output for 'tune-in'");
+    }
+
+    @Test
+    public void testPlayWhileTunedIn() throws AccountNotFoundException {
+        Radio radio = mock(Radio.class);
+        cmdExecutor = new CommandExecutor(storage, radio);
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+        when(radio.isTunedIn(session)).thenReturn(true);
+
+        String expected = "You are tuned in to a radio station. Tune out first." + System.lineSeparator();
+        String actual = cmdExecutor.execute(session, new Command(PLAY, new String[]{"Hello", "Adel"}));
+
+        assertEquals(expected, actual, "Unexpected output for 'play' while tuned in");
+    }
+
+    @Test
+    public void testTuneOutWhenNotTunedIn() throws AccountNotFoundException {
+        Radio radio = mock(Radio.class);
+        cmdExecutor = new CommandExecutor(storage, radio);
+        when(accountStorage.login("gabi@abv.bg", "12345678")).thenReturn(true);
+        cmdExecutor.execute(session, new Command(LOGIN, new String[]{"gabi@abv.bg", "12345678"}));
+
+        String expected = "You are not tuned in to a radio station" + System.lineSeparator();
+        String actual = cmdExecutor.execute(session, new Command(TUNE_OUT, new String[]{}));
+
+        assertEquals(expected, actual, "Unexpected output for 'tune-out' without a station");
+    }
+
     @Test
     public void testUnknownCommand() {
         String expected = "Unknown command" + System.lineSeparator();
-        String actual = cmdExecutor.execute(key, new Command("unknown", new String[]{"command"}));
+        String actual = cmdExecutor.execute(session, new Command("unknown", new String[]{"command"}));
 
         assertEquals(expected, actual, "Unexpected output for unknown command");
     }
@@ -0,0 +1,70 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.command;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntUnaryOperator;
+
+public class CommandParserBenchmark {
+    private static final String[] INPUTS = {
+        "login user password",
+        "search \"Пеещи пясъци\" rock",
+        "add-song-to \"my playlist\" \"some song\"",
+        "play \"some song\" 12.5",
+        "top 10",
+        "stop",
+    };
+    private static final int WARMUP_ITERATIONS = 2_000_000;
+    private static final int MEASURED_ITERATIONS = 5_000_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        byte[][] lines = new byte[INPUTS.length][];
+        ByteBuffer[] buffers = new ByteBuffer[INPUTS.length];
+        for (int i = 0; i < INPUTS.length; i++) {
+            lines[i] = INPUTS[i].getBytes(StandardCharsets.UTF_8);
+            buffers[i] = ByteBuffer.wrap(lines[i]);
+        }
+        CommandParser parser = new CommandParser();
+
+        IntUnaryOperator creator = i -> {
+            Command cmd = CommandCreator.newCommand(new String(lines[i % lines.length], StandardCharsets.UTF_8));
+            return CommandType.of(cmd.command()).ordinal() + cmd.arguments().length;
+        };
+        IntUnaryOperator parserOpcodes = i -> {
+            ParsedCommand cmd = parser.parse(buffers[i % buffers.length]);
+            return cmd.getType().ordinal() + cmd.getArgumentsCount();
+        };
+        IntUnaryOperator parserArguments = i -> {
+            ParsedCommand cmd = parser.parse(buffers[i % buffers.length]);
+            return cmd.getType().ordinal() + cmd.getArguments().length;
+        };
+
+        run("CommandCreator.newCommand", creator);
+        run("CommandParser.parse", parserOpcodes);
+        run("CommandParser.parse + getArguments", parserArguments);
+    }
+
+    private static void run(String name, IntUnaryOperator operation) {
+        measure(operation, WARMUP_ITERATIONS);
+
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        int result = measure(operation, MEASURED_ITERATIONS);
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        System.out.printf("%-40s %8.1f ns/op %8.1f B/op (%d)%n", name, (double) elapsed / MEASURED_ITERATIONS,
+                (double) allocated / MEASURED_ITERATIONS, result);
+    }
+
+    private static int measure(IntUnaryOperator operation, int iterations) {
+        int result = 0;
+        for (int i = 0; i < iterations; i++) {
+            result += operation.applyAsInt(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,135 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.command;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandParserTest {
+    private CommandParser parser;
+
+    @BeforeEach
+    public void setUp() {
+        parser = new CommandParser();
+    }
+
+    @Test
+    public void testParseWithNoArguments() {
+        ParsedCommand cmd = parser.parse(bytesOf("disconnect"));
+
+        assertEquals(CommandType.DISCONNECT, cmd.getType(), "Unexpected command returned for command 'disconnect'");
+        assertEquals(0, cmd.getArgumentsCount(), "Unexpected command arguments count");
+        assertArrayEquals(new String[0], cmd.getArguments(), "Command arguments should be empty");
+    }
+
+    @Test
+    public void testParseWithArguments() {
+        ParsedCommand cmd = parser.parse(bytesOf("add-song-to rock song"));
+
+        assertEquals(CommandType.ADD_SONG_TO, cmd.getType(), "Unexpected command type");
+        assertArrayEquals(new String[] {"rock", "song"}, cmd.getArguments(), "Unexpected command arguments");
+    }
+
+    @Test
+    public void testParseWithArgumentInQuotes() {
+        ParsedCommand cmd = parser.parse(bytesOf("create-playlist \"rock forever\""));
+
+        assertEquals(CommandType.CREATE_PLAYLIST, cmd.getType(), "Unexpected command type");
+        assertEquals(1, cmd.getArgumentsCount(), "Unexpected command arguments count");
+        assertEquals("rock forever", cmd.getArgument(0), "Multi-word argument is not respected");
+    }
+
+    @Test
+    public void testParseMatchesCommandCreator() {
+        String[] inputs = {"search a\"b c\"d", "login  x", "play ", "top 3 \"\"", "\"stop\""};
+        for (String input : inputs) {
+            Command expected = CommandCreator.newCommand(input);
+            ParsedCommand cmd = parser.parse(bytesOf(input));
+
+            assertEquals(CommandType.of(expected.command()), cmd.getType(), "Unexpected command type for " + input);
+            assertArrayEquals(expected.arguments(), cmd.getArguments(), "Unexpected arguments for " + input);
+        }
+    }
+
+    @Test
+    public void testParseUnknownCommand() {
+        ParsedCommand cmd = parser.parse(bytesOf("dance now"));
+
+        assertEquals(CommandType.UNKNOWN, cmd.getType(), "Unknown command must be recognised");
+        assertEquals(1, cmd.getArgumentsCount(), "Unexpected command arguments count");
+    }
+
+    @Test
+    public void testParseCommandPrefixIsUnknown() {
+        assertEquals(CommandType.UNKNOWN, parser.parse(bytesOf("sto")).getType(), "A prefix is not a command");
+        assertEquals(CommandType.UNKNOWN, parser.parse(bytesOf("stopped")).getType(), "A longer word is not a command");
+    }
+
+    @Test
+    public void testParseMultiByteArguments() {
+        ParsedCommand cmd = parser.parse(bytesOf("search \"Пеещи пясъци\" ёж"));
+
+        assertArrayEquals(new String[] {"Пеещи пясъци", "ёж"}, cmd.getArguments(), "Unexpected command arguments");
+    }
+
+    @Test
+    public void testParseRespectsBufferPosition() {
+        ByteBuffer line = bytesOf("xxlogin user pass");
+        line.position(2);
+
+        ParsedCommand cmd = parser.parse(line);
+
+        assertEquals(CommandType.LOGIN, cmd.getType(), "Unexpected command type");
+        assertArrayEquals(new String[] {"user", "pass"}, cmd.getArguments(), "Unexpected command arguments");
+    }
+
+    @Test
+    public void testParseManyArguments() {
+        StringBuilder input = new StringBuilder("search");
+        for (int i = 0; i < 20; i++) {
+            input.append(' ').append(i);
+        }
+
+        ParsedCommand cmd = parser.parse(bytesOf(input.toString()));
+
+        assertEquals(20, cmd.getArgumentsCount(), "Unexpected command arguments count");
+        assertEquals("19", cmd.getArgument(19), "Unexpected last argument");
+    }
+
+    @Test
+    public void testParseReusesCommand() {
+        ParsedCommand first = parser.parse(bytesOf("login user pass"));
+        ParsedCommand second = parser.parse(bytesOf("stop"));
+
+        assertSame(first, second, "The parsed command must be reused");
+        assertEquals(0, second.getArgumentsCount(), "Previous arguments must be cleared");
+    }
+
+    @Test
+    public void testToCommandOutlivesBuffer() {
+        ByteBuffer line = bytesOf("play song");
+        Command cmd = parser.parse(line).toCommand();
+        line.put(0, (byte) 'x');
+        parser.parse(bytesOf("dance now"));
+
+        assertEquals("play", cmd.command(), "Unexpected command");
+        assertArrayEquals(new String[] {"song"}, cmd.arguments(), "Unexpected command arguments");
+        assertEquals(0, parser.parse(bytesOf("dance now")).toCommand().arguments().length,
+                "Unknown command arguments must not be decoded");
+    }
+
+    @Test
+    public void testGetArgumentOutOfRange() {
+        ParsedCommand cmd = parser.parse(bytesOf("stop"));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> cmd.getArgument(0),
+                "Missing argument must not be returned");
+    }
+
+    private static ByteBuffer bytesOf(String input) {
+        return ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,81 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.output;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BufferPoolTest {
+    private BufferPool bufferPool;
+
+    @BeforeEach
+    public void setUp() {
+        bufferPool = new BufferPool(1);
+    }
+
+    @Test
+    public void testLeaseRoundsUpToSizeClass() {
+        ByteBuffer buffer = bufferPool.lease(1000);
+
+        assertTrue(buffer.isDirect(), "Leased buffers must be direct");
+        assertEquals(1024, buffer.capacity(), "Unexpected size class");
+    }
+
+    @Test
+    public void testReleasedBufferIsReused() {
+        ByteBuffer first = bufferPool.lease(100);
+        bufferPool.release(first);
+        ByteBuffer second = bufferPool.lease(200);
+
+        assertSame(first, second, "A released buffer of the same size class must be reused");
+        assertEquals(2, bufferPool.getLeases(), "Unexpected leases count");
+        assertEquals(1, bufferPool.getMisses(), "Unexpected misses count");
+        assertEquals(1, bufferPool.getOutstanding(), "Unexpected outstanding count");
+    }
+
+    @Test
+    public void testPoolKeepsAtMostTheLimitPerSizeClass() {
+        ByteBuffer first = bufferPool.lease(100);
+        ByteBuffer second = bufferPool.lease(100);
+        bufferPool.release(first);
+        bufferPool.release(second);
+
+        assertSame(first, bufferPool.lease(100), "The first released buffer must be pooled");
+        assertNotSame(second, bufferPool.lease(100), "Buffers over the limit must not be pooled");
+    }
+
+    @Test
+    public void testLeaseLargerThanSizeClasses() {
+        ByteBuffer buffer = bufferPool.lease(100000);
+
+        assertEquals(100000, buffer.capacity(), "Unexpected capacity");
+        assertEquals(1, bufferPool.getMisses(), "Oversized leases must count as misses");
+    }
+
+    @Test
+    public void testEncode() {
+        ByteBuffer buffer = bufferPool.encode("Taki - Selena");
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        assertEquals("Taki - Selena", new String(bytes, StandardCharsets.UTF_8), "Unexpected encoded text");
+    }
+
+    @Test
+    public void testEncodeLargerThanSizeClassesUsesTheHeap() {
+        String text = "Taki - Selena\n".repeat(10000);
+        ByteBuffer buffer = bufferPool.encode(text);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        assertFalse(buffer.isDirect(), "Oversized text must not take direct memory");
+        assertEquals(text.length(), buffer.capacity(), "Oversized text must be encoded without slack");
+        assertEquals(text, new String(bytes, StandardCharsets.UTF_8), "Unexpected encoded text");
+
+        bufferPool.release(buffer);
+        assertEquals(0, bufferPool.getOutstanding(), "Releasing the encoded text must balance the lease");
+    }
+}
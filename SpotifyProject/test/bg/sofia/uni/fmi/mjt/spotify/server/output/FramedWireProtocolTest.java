@@ -0,0 +1,82 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.output;
+
+import bg.sofia.uni.fmi.mjt.spotify.protocol.FrameType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FramedWireProtocolTest {
+    private BufferPool bufferPool;
+    private FramedWireProtocol protocol;
+
+    @BeforeEach
+    public void setUp() {
+        bufferPool = new BufferPool(4);
+        protocol = new FramedWireProtocol(bufferPool);
+    }
+
+    @Test
+    public void testControlFrameHasTypeAndLengthHeader() throws IOException {
+        ByteBuffer frame = ByteBuffer.wrap(write(protocol.control("hello")));
+
+        assertEquals(FrameType.CONTROL.getCode(), frame.get(), "Unexpected frame type");
+        assertEquals(5, frame.getInt(), "Unexpected payload length");
+        byte[] payload = new byte[frame.remaining()];
+        frame.get(payload);
+        assertEquals("hello", new String(payload, StandardCharsets.UTF_8), "Unexpected payload");
+    }
+
+    @Test
+    public void testFormatFrameIsStrippedOfLineSeparator() throws IOException {
+        ByteBuffer frame = ByteBuffer.wrap(write(protocol.format("PCM_SIGNED,44100.0" + System.lineSeparator())));
+
+        assertEquals(FrameType.FORMAT.getCode(), frame.get(), "Unexpected frame type");
+        assertEquals("PCM_SIGNED,44100.0".length(), frame.getInt(), "Unexpected payload length");
+    }
+
+    @Test
+    public void testAudioFrameIsMarkedAsAudio() throws IOException {
+        OutboundMessage audio = protocol.audio(BufferMessage.audio(ByteBuffer.wrap(new byte[]{1, 2, 3})));
+
+        assertTrue(audio.isAudio(), "Audio frames must be discardable on stop");
+        assertFalse(protocol.control("x").isAudio(), "Control frames must not be discardable");
+
+        ByteBuffer frame = ByteBuffer.wrap(write(audio));
+        assertEquals(FrameType.AUDIO.getCode(), frame.get(), "Unexpected frame type");
+        assertEquals(3, frame.getInt(), "Unexpected payload length");
+        assertEquals(3, frame.remaining(), "Unexpected frame size");
+    }
+
+    @Test
+    public void testEndOfStreamFrameHasEmptyPayload() throws IOException {
+        byte[] frame = write(protocol.endOfStream());
+
+        assertEquals(5, frame.length, "End of stream frame must only contain the header");
+        assertEquals(FrameType.END_OF_STREAM, FrameType.of(frame[0]), "Unexpected frame type");
+    }
+
+    @Test
+    public void testReleaseReturnsHeaderToThePool() throws IOException {
+        write(protocol.endOfStream());
+
+        assertEquals(0, bufferPool.getOutstanding(), "Frame header must be returned to the pool");
+    }
+
+    private byte[] write(OutboundMessage message) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(output);
+        while (message.remaining() > 0) {
+            message.writeTo(channel);
+        }
+        message.release();
+        return output.toByteArray();
+    }
+}
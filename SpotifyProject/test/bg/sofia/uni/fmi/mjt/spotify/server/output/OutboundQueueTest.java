@@ -0,0 +1,108 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.output;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundQueueTest {
+    private static final int HIGH_WATERMARK = 100;
+    private static final int LOW_WATERMARK = 40;
+
+    private OutboundQueue outboundQueue;
+    private LimitedChannel channel;
+
+    @BeforeEach
+    public void setUp() {
+        outboundQueue = new OutboundQueue(HIGH_WATERMARK, LOW_WATERMARK);
+        channel = new LimitedChannel();
+    }
+
+    private static OutboundMessage audio(int size) {
+        return BufferMessage.audio(ByteBuffer.wrap(new byte[size]));
+    }
+
+    @Test
+    public void testAudioPausesAboveHighWatermark() {
+        outboundQueue.add(audio(60));
+        assertTrue(outboundQueue.isAcceptingAudio(), "Audio must be accepted below the high watermark");
+
+        outboundQueue.add(audio(60));
+        assertFalse(outboundQueue.isAcceptingAudio(), "Audio must be paused above the high watermark");
+        assertEquals(120, outboundQueue.getPendingBytes(), "Unexpected pending bytes");
+    }
+
+    @Test
+    public void testAudioResumesBelowLowWatermark() throws Exception {
+        outboundQueue.add(audio(60));
+        outboundQueue.add(audio(60));
+
+        channel.allow(50);
+        assertFalse(outboundQueue.writeTo(channel), "The queue must not be drained by a partial write");
+        assertFalse(outboundQueue.isAcceptingAudio(), "Audio must stay paused between the watermarks");
+
+        channel.allow(30);
+        outboundQueue.writeTo(channel);
+        assertEquals(LOW_WATERMARK, outboundQueue.getPendingBytes(), "Unexpected pending bytes");
+        assertTrue(outboundQueue.isAcceptingAudio(), "Audio must resume at the low watermark");
+    }
+
+    @Test
+    public void testControlRepliesPassWhileAudioIsPaused() throws Exception {
+        outboundQueue.add(audio(60));
+        outboundQueue.add(audio(60));
+        channel.allow(10);
+        outboundQueue.writeTo(channel);
+
+        outboundQueue.add(BufferMessage.text("stopped"));
+        assertFalse(outboundQueue.isAcceptingAudio(), "A control reply must not resume audio");
+
+        outboundQueue.discardAudio();
+        channel.allow(Integer.MAX_VALUE);
+        assertTrue(outboundQueue.writeTo(channel), "The queue must be drained");
+
+        byte[] written = channel.getWritten();
+        assertEquals(60 + "stopped".length(), written.length,
+                "Only the started audio chunk and the control reply must be written");
+        assertEquals("stopped", new String(written, 60, "stopped".length(), StandardCharsets.UTF_8),
+                "The control reply must follow the started audio chunk");
+        assertTrue(outboundQueue.isAcceptingAudio(), "Audio must resume once the queue is drained");
+    }
+
+    private static class LimitedChannel implements WritableByteChannel {
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        private int allowance;
+
+        void allow(int bytes) {
+            allowance = bytes;
+        }
+
+        byte[] getWritten() {
+            return written.toByteArray();
+        }
+
+        @Override
+        public int write(ByteBuffer source) {
+            int length = Math.min(allowance, source.remaining());
+            byte[] bytes = new byte[length];
+            source.get(bytes);
+            written.write(bytes, 0, length);
+            allowance -= length;
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
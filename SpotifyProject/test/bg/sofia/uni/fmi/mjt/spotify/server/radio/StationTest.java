@@ -0,0 +1,172 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.radio;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.Storage;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferSink;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferMessage;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongStream;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.SongStreamFactory;
+import bg.sofia.uni.fmi.mjt.spotify.server.stream.StreamPacing;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StationTest {
+    private static final String FORMAT = "format,8000.0,16,2,4,8000.0,false,100" + System.lineSeparator();
+
+    private static final AudioFormat AUDIO_FORMAT = new AudioFormat(8000, 16, 2, true, false);
+    private static final int BYTE_RATE = 32000;
+    private static final int CHUNK_SIZE = BYTE_RATE / 10;
+
+    private Station station;
+
+    @BeforeEach
+    public void setUp() {
+        SongStreamFactory songStreamFactory = mock(SongStreamFactory.class);
+        when(songStreamFactory.getPacing()).thenReturn(new StreamPacing(100, 200));
+        station = new Station("morning", List.of("first.wav", "second.wav"), songStreamFactory, mock(Storage.class));
+    }
+
+    @Test
+    public void testSubscriberStartsWithFormatAtTheLivePoint() {
+        publish(0, 5);
+        RadioSubscription subscription = station.subscribe(() -> { });
+
+        RadioChunk format = subscription.next();
+        RadioChunk first = subscription.next();
+
+        assertEquals(RadioChunk.Type.FORMAT, format.type(), "A new subscriber should receive the song format first");
+        assertEquals(FORMAT, format.format(), "Unexpected song format");
+        assertEquals(3, first.sequence(), "A new subscriber should start the read-ahead behind the producer");
+    }
+
+    @Test
+    public void testSubscribersShareTheSameChunk() throws IOException {
+        publish(0, 1);
+        RadioSubscription first = station.subscribe(() -> { });
+        RadioSubscription second = station.subscribe(() -> { });
+        first.next();
+        second.next();
+
+        RadioChunk firstChunk = first.next();
+        RadioChunk secondChunk = second.next();
+
+        OutboundMessage firstMessage = firstChunk.toMessage(false);
+        firstMessage.writeTo(new BufferSink(ByteBuffer.allocate(4)));
+
+        assertSame(firstChunk, secondChunk, "Subscribers should share the broadcast chunk");
+        assertEquals(0, firstMessage.remaining(), "The first subscriber should have sent its audio");
+        assertEquals(4, secondChunk.toMessage(false).remaining(), "Sending should not consume the shared audio");
+    }
+
+    @Test
+    public void testSlowSubscriberSkipsToTheLivePoint() {
+        RadioSubscription subscription = station.subscribe(() -> { });
+        publish(0, 1);
+        subscription.next();
+        subscription.next();
+
+        publish(0, station.getCapacity() * 2);
+        RadioChunk chunk = subscription.next();
+
+        assertEquals(station.getCapacity() * 2 + 1 - 2, chunk.sequence(),
+                "A subscriber that fell behind the ring should skip to the live point");
+    }
+
+    @Test
+    public void testSongChangeEndsTheSongAndSendsTheNewFormat() {
+        RadioSubscription subscription = station.subscribe(() -> { });
+        publish(0, 1);
+        publish(1, 1);
+
+        subscription.next();
+        subscription.next();
+
+        assertEquals(RadioChunk.Type.END_OF_SONG, subscription.next().type(), "The previous song should end first");
+        assertEquals(RadioChunk.Type.FORMAT, subscription.next().type(), "The next song format should follow");
+        assertEquals(1, subscription.next().songIndex(), "Unexpected song of the chunk");
+    }
+
+    @Test
+    public void testSubscriberWaitsForTheProducer() {
+        RadioSubscription subscription = station.subscribe(() -> { });
+
+        assertNull(subscription.next(), "There should be nothing to send before the producer publishes");
+    }
+
+    @Test
+    public void testPublishNotifiesSubscribers() {
+        AtomicInteger notifications = new AtomicInteger();
+        station.subscribe(notifications::incrementAndGet);
+
+        publish(0, 3);
+
+        assertEquals(3, notifications.get(), "Every published chunk should notify the subscribers");
+    }
+
+    @Test
+    public void testClosedSubscriberIsNotNotified() {
+        AtomicInteger notifications = new AtomicInteger();
+        RadioSubscription subscription = station.subscribe(notifications::incrementAndGet);
+        subscription.close();
+
+        publish(0, 3);
+
+        assertEquals(1, notifications.get(), "Only closing should notify an unsubscribed listener");
+        assertNull(subscription.next(), "A closed subscription should not return chunks");
+    }
+
+    @Test
+    public void testReadAheadIsNotGrantedAgainForEverySong() throws Exception {
+        int songsCount = 5;
+        int chunksPerSong = 3;
+        SongStreamFactory songStreamFactory = mock(SongStreamFactory.class);
+        when(songStreamFactory.getPacing()).thenReturn(new StreamPacing(100, 200));
+        when(songStreamFactory.open(anyString())).thenAnswer(invocation -> newSongStream(chunksPerSong));
+        Station radio = new Station("evening", Collections.nCopies(songsCount, "song.wav"), songStreamFactory,
+                mock(Storage.class));
+
+        long startNanos = System.nanoTime();
+        radio.run();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        long audioMillis = songsCount * chunksPerSong * 100L;
+        assertEquals(songsCount * chunksPerSong, radio.getNextSequence(), "Every chunk should be broadcast");
+        assertTrue(audioMillis - elapsedMillis <= 200 + 50,
+                "The producer should stay at most one read-ahead ahead, but was " +
+                        (audioMillis - elapsedMillis) + " ms ahead");
+    }
+
+    private static SongStream newSongStream(int chunksCount) throws IOException {
+        AtomicInteger sentChunks = new AtomicInteger();
+        SongStream songStream = mock(SongStream.class);
+        when(songStream.getFormat()).thenReturn(AUDIO_FORMAT);
+        when(songStream.getFrameLength()).thenReturn((long) chunksCount * CHUNK_SIZE / AUDIO_FORMAT.getFrameSize());
+        when(songStream.getByteRate()).thenReturn((long) BYTE_RATE);
+        when(songStream.nextChunk()).thenAnswer(invocation -> sentChunks.getAndIncrement() < chunksCount
+                ? BufferMessage.audio(ByteBuffer.allocate(CHUNK_SIZE)) : null);
+        return songStream;
+    }
+
+    private void publish(int songIndex, int count) {
+        for (int i = 0; i < count; i++) {
+            ByteBuffer audio = ByteBuffer.wrap(new byte[]{1, 2, 3, 4});
+            station.publish(RadioChunk.audio(station.getNextSequence(), songIndex, FORMAT, audio, audio.duplicate()));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.song;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListeningRankingTest {
+    private ListeningRanking ranking;
+    private Song hello;
+    private Song never;
+    private Song ever;
+
+    @BeforeEach
+    public void setUp() {
+        ranking = new ListeningRanking();
+        hello = new Song("Hello", "No one", "audio.wav");
+        never = new Song("Never", "No one", "audio.wav");
+        ever = new Song("Ever", "No one", "audio.wav");
+    }
+
+    private void listen(Song song, int times) {
+        for (int i = 0; i < times; i++) {
+            song.listen();
+            ranking.update(song);
+        }
+    }
+
+    private void stopListen(Song song, int times) {
+        for (int i = 0; i < times; i++) {
+            song.stopListen();
+            ranking.update(song);
+        }
+    }
+
+    @Test
+    public void testTopIsOrderedByListeners() {
+        listen(never, 1);
+        listen(hello, 3);
+        listen(ever, 2);
+
+        assertEquals(List.of(hello, ever, never), ranking.getTop(10), "Songs must be ranked by their listeners");
+        assertEquals(List.of(hello, ever), ranking.getTop(2), "Only the first n songs must be returned");
+    }
+
+    @Test
+    public void testStopListenMovesSongDown() {
+        listen(hello, 3);
+        listen(ever, 2);
+        stopListen(hello, 2);
+
+        assertEquals(List.of(ever, hello), ranking.getTop(10), "A song must move down when listeners leave it");
+    }
+
+    @Test
+    public void testSongsWithoutListenersAreNotRanked() {
+        listen(hello, 1);
+        listen(ever, 1);
+        stopListen(hello, 1);
+
+        assertEquals(List.of(ever), ranking.getTop(10), "A song nobody listens to must not be ranked");
+        assertEquals(1, ranking.size(), "A song nobody listens to must leave the ranking");
+    }
+
+    @Test
+    public void testTiesAreOrderedByName() {
+        listen(never, 1);
+        listen(hello, 1);
+        listen(ever, 1);
+
+        assertEquals(List.of(ever, hello, never), ranking.getTop(10), "Songs with equal listeners must be ordered by name");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> ranking.getTop(-1), "A negative n must be rejected");
+        assertThrows(IllegalArgumentException.class, () -> ranking.update(null), "A null song must be rejected");
+    }
+
+    @Test
+    public void testConcurrentUpdatesKeepOneRankPerSong() throws Exception {
+        List<Callable<Void>> listeners = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            listeners.add(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    listen(hello, 2);
+                    listen(ever, 1);
+                    stopListen(ever, 1);
+                    stopListen(hello, 1);
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (Future<Void> listener : executor.invokeAll(listeners)) {
+            listener.get();
+        }
+        executor.shutdown();
+
+        assertEquals(8000, hello.getListenedAtTheMoment(), "No listen must be lost or counted twice");
+        assertEquals(List.of(hello), ranking.getTop(10), "The ranking must settle on the final listeners");
+        assertEquals(1, ranking.size(), "A song must never be ranked twice");
+    }
+}
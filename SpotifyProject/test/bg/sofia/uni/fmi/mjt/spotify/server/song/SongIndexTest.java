@@ -0,0 +1,73 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.song;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongIndexTest {
+    private SongIndex index;
+    private Song hello;
+    private Song never;
+    private Song girl;
+
+    @BeforeEach
+    public void setUp() {
+        index = new SongIndex();
+        hello = new Song("Hello", "Adele", "audio.wav");
+        never = new Song("Never", "No one", "audio.wav");
+        girl = new Song("Girl like me", "Shakira", "audio.wav");
+        index.add(hello);
+        index.add(never);
+        index.add(girl);
+    }
+
+    @Test
+    public void testSearchBySubstring() {
+        assertEquals(List.of(hello), index.search("ell"), "A word must match any part of the name");
+        assertEquals(List.of(girl), index.search("akir"), "A word must match any part of the artist");
+        assertEquals(List.of(hello, never), index.search("o"), "A single letter must match every song containing it");
+    }
+
+    @Test
+    public void testSearchIsCaseInsensitive() {
+        assertEquals(List.of(hello), index.search("HELLO"), "Search must ignore the case of the words");
+        assertEquals(List.of(hello), index.search("aDeLe"), "Search must ignore the case of the words");
+    }
+
+    @Test
+    public void testSearchRequiresAllWords() {
+        assertEquals(List.of(girl), index.search("like", "shakira"), "Every word must be found in the name or the artist");
+        assertEquals(List.of(), index.search("hello", "shakira"), "A song missing one of the words must not be found");
+    }
+
+    @Test
+    public void testSearchDoesNotMatchAcrossNameAndArtist() {
+        assertEquals(List.of(), index.search("helloadele"), "A word must not span the name and the artist");
+        assertEquals(List.of(), index.search("ellx"), "All grams of a word must be present in the song");
+    }
+
+    @Test
+    public void testSearchWithoutWordsFindsEverySong() {
+        assertEquals(List.of(hello, never, girl), index.search(), "Search without words must return every song");
+        assertEquals(List.of(hello, never, girl), index.search(""), "An empty word must match every song");
+    }
+
+    @Test
+    public void testAddedSongsAreSearchable() {
+        Song ever = new Song("Ever", "No one", "audio.wav");
+        index.add(ever);
+
+        assertEquals(4, index.size(), "The added song must be indexed");
+        assertEquals(List.of(never, ever), index.search("ever", "one"), "Songs must be returned in the order they were added");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> index.add(null), "A null song must be rejected");
+        assertThrows(IllegalArgumentException.class, () -> index.search((String[]) null), "Null words must be rejected");
+        assertThrows(IllegalArgumentException.class, () -> index.search("hello", null), "A null word must be rejected");
+    }
+}
@@ -1,14 +1,20 @@
 package bg.sofia.uni.fmi.mjt.spotify.server.song;
 
+import bg.sofia.uni.fmi.mjt.spotify.server.exception.SongAlreadyExistsException;
 import bg.sofia.uni.fmi.mjt.spotify.server.exception.SongNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -131,6 +137,69 @@ class SongStorageTest {
         assertThrows(IllegalArgumentException.class, () -> songStorage.search("No", null, "one"), "Unexpected exit after search song");
     }
 
+    @Test
+    public void testAddSong() throws SongAlreadyExistsException {
+        long catalogVersion = songStorage.getCatalogVersion();
+        songStorage.addSong(new Song("Hello again", "Someone", "audio.wav"));
+
+        assertTrue(songStorage.isExists("Hello again", "Someone"), "An added song must be in the catalog");
+        assertNotEquals(catalogVersion, songStorage.getCatalogVersion(), "Adding a song must change the catalog version");
+    }
+
+    @Test
+    public void testAddExistingSong() {
+        assertThrows(SongAlreadyExistsException.class, () -> songStorage.addSong(new Song("Hello", "No one", "audio.wav")),
+                "An existing song must not be added a second time");
+    }
+
+    @Test
+    public void testListeningChangesTopVersion() throws UnsupportedAudioFileException, IOException, SongNotFoundException {
+        long topVersion = songStorage.getTopVersion();
+        songStorage.play("Hello", "No one");
+        assertNotEquals(topVersion, songStorage.getTopVersion(), "Playing a song must change the top version");
+
+        topVersion = songStorage.getTopVersion();
+        songStorage.stop("Hello", "No one");
+        assertNotEquals(topVersion, songStorage.getTopVersion(), "Stopping a song must change the top version");
+    }
+
+    @Test
+    public void testConcurrentListening() throws Exception {
+        List<Callable<Void>> listeners = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            listeners.add(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    songStorage.play("Hello", "No one");
+                    songStorage.play("Ever", "No one");
+                    songStorage.stop("Ever", "No one");
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (Future<Void> listener : executor.invokeAll(listeners)) {
+            listener.get();
+        }
+        executor.shutdown();
+
+        assertEquals("Hello - No one" + System.lineSeparator(), songStorage.getTopNListenedSongsAtTheMoment(3),
+                "No listen must be lost or counted twice");
+    }
+
+    @Test
+    public void testTrendingSongs() throws UnsupportedAudioFileException, IOException, SongNotFoundException {
+        songStorage.play("Never", "No one");
+        songStorage.stop("Never", "No one");
+        songStorage.play("Hello", "No one");
+        songStorage.play("Never", "No one");
+
+        assertEquals("Never - No one" + System.lineSeparator() + "Hello - No one" + System.lineSeparator(),
+                songStorage.getTrendingSongs(TrendingWindow.FIVE_MINUTES, 5), "Stopped songs must still count as played");
+        assertEquals("No songs have been played in the last 1h.", new SongStorage(Map.of()).getTrendingSongs(TrendingWindow.HOUR, 5),
+                "Unexpected exit without played songs");
+    }
+
     @Test
     public void testSearchWhenNotAllWordsMatches() {
         assertEquals("There is no song that contains these words in its name and artist", songStorage.search("No", "one", "Try"), "Unexpected exit after search song");
@@ -0,0 +1,70 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.song;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingTest {
+
+    @Test
+    public void testExactCountsWithinCapacity() {
+        SpaceSaving<String> summary = new SpaceSaving<>(3);
+        summary.add("a");
+        summary.add("b", 3);
+        summary.add("a");
+
+        assertEquals(2, summary.getCount("a"), "Counts within the capacity must be exact");
+        assertEquals(3, summary.getCount("b"), "Counts within the capacity must be exact");
+        assertEquals(0, summary.getCount("c"), "An unseen item must have no count");
+        assertEquals(List.of("b", "a"), summary.getTop(5), "Items must be ordered by their counts");
+    }
+
+    @Test
+    public void testNewcomerReplacesLeastCountedItem() {
+        SpaceSaving<String> summary = new SpaceSaving<>(2);
+        summary.add("a", 5);
+        summary.add("b", 1);
+        summary.add("c");
+
+        assertEquals(2, summary.size(), "The summary must never grow beyond its capacity");
+        assertEquals(0, summary.getCount("b"), "The least counted item must be evicted");
+        assertEquals(2, summary.getCount("c"), "The newcomer must inherit the evicted count");
+    }
+
+    @Test
+    public void testHeavyHitterSurvivesManyRareItems() {
+        SpaceSaving<String> summary = new SpaceSaving<>(4);
+        for (int i = 0; i < 1000; i++) {
+            summary.add("hit");
+            summary.add("rare" + i);
+        }
+
+        assertEquals("hit", summary.getTop(1).get(0), "An item played more than 1/capacity of the time must be kept");
+        assertTrue(summary.getCount("hit") >= 1000, "Counts must never be underestimated");
+    }
+
+    @Test
+    public void testAddAll() {
+        SpaceSaving<String> first = new SpaceSaving<>(3);
+        first.add("a", 2);
+        SpaceSaving<String> second = new SpaceSaving<>(3);
+        second.add("a");
+        second.add("b", 4);
+        first.addAll(second);
+
+        assertEquals(3, first.getCount("a"), "Merged counts must be summed");
+        assertEquals(List.of("b", "a"), first.getTop(2), "Merged items must be ordered by their counts");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        SpaceSaving<String> summary = new SpaceSaving<>(1);
+
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSaving<String>(0), "The capacity must be positive");
+        assertThrows(IllegalArgumentException.class, () -> summary.add(null), "A null item must be rejected");
+        assertThrows(IllegalArgumentException.class, () -> summary.add("a", 0), "A non-positive count must be rejected");
+        assertThrows(IllegalArgumentException.class, () -> summary.getTop(-1), "A negative n must be rejected");
+    }
+}
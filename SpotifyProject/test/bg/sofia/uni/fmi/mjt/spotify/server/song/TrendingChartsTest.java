@@ -0,0 +1,78 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.song;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendingChartsTest {
+    private static final long START = TimeUnit.DAYS.toNanos(3);
+
+    private TrendingCharts charts;
+    private Song hello;
+    private Song never;
+
+    @BeforeEach
+    public void setUp() {
+        charts = new TrendingCharts(16);
+        hello = new Song("Hello", "No one", "audio.wav");
+        never = new Song("Never", "No one", "audio.wav");
+    }
+
+    @Test
+    public void testTrendingIsOrderedByPlays() {
+        charts.record(never, START);
+        charts.record(hello, START);
+        charts.record(hello, START + TimeUnit.SECONDS.toNanos(40));
+
+        assertEquals(List.of(hello, never), charts.getTrending(TrendingWindow.FIVE_MINUTES, 5, START + TimeUnit.MINUTES.toNanos(1)),
+                "Songs must be ordered by their plays in the window");
+        assertEquals(List.of(hello), charts.getTrending(TrendingWindow.DAY, 1, START + TimeUnit.MINUTES.toNanos(1)),
+                "Only the first n songs must be returned");
+    }
+
+    @Test
+    public void testOldPlaysLeaveShortWindows() {
+        charts.record(hello, START);
+        charts.record(never, START + TimeUnit.MINUTES.toNanos(30));
+        long now = START + TimeUnit.MINUTES.toNanos(31);
+
+        assertEquals(List.of(never), charts.getTrending(TrendingWindow.FIVE_MINUTES, 5, now),
+                "Plays older than the window must not be counted");
+        assertEquals(List.of(hello, never), charts.getTrending(TrendingWindow.HOUR, 5, now),
+                "Plays within the window must be counted");
+        assertEquals(List.of(), charts.getTrending(TrendingWindow.HOUR, 5, START + TimeUnit.HOURS.toNanos(2)),
+                "All plays must age out of the window");
+    }
+
+    @Test
+    public void testReusedBucketForgetsOldPlays() {
+        charts.record(hello, START);
+        charts.record(never, START + TimeUnit.MINUTES.toNanos(5));
+
+        assertEquals(List.of(never), charts.getTrending(TrendingWindow.FIVE_MINUTES, 5, START + TimeUnit.MINUTES.toNanos(5)),
+                "A bucket reused by the ring must not keep the plays of its previous round");
+    }
+
+    @Test
+    public void testVersionChangesWithPlaysAndTime() {
+        long version = charts.getVersion(TrendingWindow.HOUR, START);
+        charts.record(hello, START);
+        assertNotEquals(version, charts.getVersion(TrendingWindow.HOUR, START), "A play must change the version");
+
+        version = charts.getVersion(TrendingWindow.HOUR, START);
+        assertNotEquals(version, charts.getVersion(TrendingWindow.HOUR, START + TimeUnit.MINUTES.toNanos(5)),
+                "A new bucket must change the version");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> charts.record(null, START), "A null song must be rejected");
+        assertThrows(IllegalArgumentException.class, () -> charts.getTrending(null, 1, START), "A null window must be rejected");
+        assertThrows(IllegalArgumentException.class, () -> charts.getTrending(TrendingWindow.DAY, -1, START), "A negative n must be rejected");
+        assertThrows(IllegalArgumentException.class, () -> new TrendingCharts(0), "The tracked songs must be positive");
+    }
+}
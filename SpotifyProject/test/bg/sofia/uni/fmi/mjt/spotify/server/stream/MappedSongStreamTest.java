@@ -0,0 +1,84 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSongStreamTest {
+    private static final Path SONG = Path.of("songRepository", "audio.wav");
+
+    private WavFile wavFile;
+    private MappedSongStream songStream;
+
+    @BeforeEach
+    public void setUp() throws UnsupportedAudioFileException, IOException {
+        wavFile = WavFile.read(SONG);
+        SongCache songCache = new SongCache(wavFile.getDataLength());
+        songStream = new MappedSongStream(songCache, SONG.toString(), wavFile, new StreamPacing(100, 0));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        songStream.close();
+    }
+
+    @Test
+    public void testChunksHoldTheChunkDuration() {
+        OutboundMessage chunk = songStream.nextChunk();
+
+        assertEquals(StreamPacing.getByteRate(wavFile.getFormat()) / 10, chunk.remaining(),
+                "A chunk must hold 100 ms of audio");
+    }
+
+    @Test
+    public void testSeekSkipsToTheFrameOffset() {
+        songStream.seek(wavFile.getFrameLength() / wavFile.getFormat().getFrameRate() - 0.05);
+        OutboundMessage chunk = songStream.nextChunk();
+
+        assertTrue(chunk.remaining() < StreamPacing.getByteRate(wavFile.getFormat()) / 10,
+                "Seeking near the end must leave less than a chunk");
+        assertEquals(0, chunk.remaining() % wavFile.getFormat().getFrameSize(), "Seek must land on a frame");
+        assertNull(songStream.nextChunk(), "The stream must end after the last chunk");
+    }
+
+    @Test
+    public void testSeekBackwardsRestartsTheSong() {
+        OutboundMessage first = songStream.nextChunk();
+        songStream.nextChunk();
+        songStream.seek(0);
+
+        assertEquals(first.remaining(), songStream.nextChunk().remaining(), "Seek to zero must restart the song");
+    }
+
+    @Test
+    public void testSeekPastTheEndEndsTheStream() {
+        songStream.seek(1_000_000);
+
+        assertNull(songStream.nextChunk(), "Seeking past the end must end the stream");
+    }
+
+    @Test
+    public void testHugeSeekDoesNotOverflow() {
+        songStream.seek(1e300);
+
+        assertEquals(wavFile.getDataLength(), songStream.getPosition(), "A huge seek must stop at the end of the song");
+        assertNull(songStream.nextChunk(), "A huge seek must end the stream");
+        assertEquals(Long.MAX_VALUE, SongStream.getByteOffset(wavFile.getFormat(), 1e300),
+                "The byte offset must saturate instead of overflowing");
+        assertEquals(0, SongStream.getByteOffset(wavFile.getFormat(), -1e300), "A negative offset must be clamped");
+    }
+
+    @Test
+    public void testDurationMatchesTheFrameLength() {
+        assertEquals((double) wavFile.getFrameLength() / wavFile.getFormat().getFrameRate(), songStream.getDuration(),
+                1e-9,
+                "Unexpected duration");
+    }
+}
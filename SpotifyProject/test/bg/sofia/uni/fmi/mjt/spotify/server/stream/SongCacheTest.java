@@ -0,0 +1,71 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongCacheTest {
+    private static final Path SONG = Path.of("songRepository", "audio.wav");
+
+    private Path otherSong;
+    private WavFile wavFile;
+    private SongCache songCache;
+
+    @BeforeEach
+    public void setUp() throws UnsupportedAudioFileException, IOException {
+        otherSong = Files.createTempFile("song", ".wav");
+        Files.copy(SONG, otherSong, StandardCopyOption.REPLACE_EXISTING);
+        wavFile = WavFile.read(SONG);
+        songCache = new SongCache(wavFile.getDataLength());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(otherSong);
+    }
+
+    @Test
+    public void testAcquireSameSongIsShared() throws IOException {
+        CachedSong first = songCache.acquire(SONG.toString(), wavFile);
+        CachedSong second = songCache.acquire(SONG.toString(), wavFile);
+
+        assertSame(first, second, "Listeners of one song must share its mapping");
+        assertEquals(wavFile.getDataLength(), songCache.getSize(), "A shared song must be counted once");
+    }
+
+    @Test
+    public void testColdSongIsEvictedOverTheLimit() throws IOException {
+        CachedSong first = songCache.acquire(SONG.toString(), wavFile);
+        songCache.release(first);
+        songCache.acquire(otherSong.toString(), wavFile);
+
+        assertEquals(wavFile.getDataLength(), songCache.getSize(), "The cold song should be evicted");
+        assertNotSame(first, songCache.acquire(SONG.toString(), wavFile), "An evicted song must be mapped again");
+    }
+
+    @Test
+    public void testListenedSongIsNotEvicted() throws IOException {
+        CachedSong first = songCache.acquire(SONG.toString(), wavFile);
+        songCache.acquire(otherSong.toString(), wavFile);
+
+        assertEquals(2 * wavFile.getDataLength(), songCache.getSize(), "Listened songs must stay mapped");
+        assertSame(first, songCache.acquire(SONG.toString(), wavFile), "Listened songs must stay mapped");
+    }
+
+    @Test
+    public void testEvictedSongIsMappedAgain() throws IOException {
+        CachedSong first = songCache.acquire(SONG.toString(), wavFile);
+        songCache.evict(SONG.toString());
+
+        assertEquals(0, songCache.getSize(), "An evicted song must not be counted");
+        assertNotSame(first, songCache.acquire(SONG.toString(), wavFile), "An evicted song must be mapped again");
+    }
+}
@@ -0,0 +1,135 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferPool;
+import bg.sofia.uni.fmi.mjt.spotify.server.output.OutboundMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongPackerTest {
+    private static final Path SONG = Path.of("songRepository", "audio.wav");
+
+    private Path directory;
+    private Path song;
+    private WavFile wavFile;
+    private SongCache songCache;
+    private BufferPool bufferPool;
+
+    @BeforeEach
+    public void setUp() throws UnsupportedAudioFileException, IOException {
+        directory = Files.createTempDirectory("songs");
+        song = Files.copy(SONG, directory.resolve("audio.wav"));
+        wavFile = WavFile.read(SONG);
+        songCache = new SongCache(Long.MAX_VALUE);
+        bufferPool = new BufferPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void testPackedHeaderMatchesTheSong() throws UnsupportedAudioFileException, IOException {
+        PackedSong packedSong = PackedSong.read(new SongPacker(StreamPacing.DEFAULT, true).pack(song));
+
+        assertEquals(wavFile.getFrameLength(), packedSong.getFrameLength(), "Unexpected frame length");
+        assertEquals(wavFile.getFormat().toString(), packedSong.getFormat().toString(), "Unexpected format");
+        assertEquals(800, packedSong.getBlockFrames(), "A block must hold one 100 ms chunk");
+        assertTrue(packedSong.isCompressed(), "The payload must be compressed");
+        assertTrue(packedSong.getPayloadLength() < wavFile.getDataLength(), "The payload must be smaller than PCM");
+    }
+
+    @Test
+    public void testCompressedPackDecodesToTheOriginalPcm() throws UnsupportedAudioFileException, IOException {
+        Path packedPath = new SongPacker(StreamPacing.DEFAULT, true).pack(song);
+
+        assertArrayEquals(readPcm(), readStream(packedPath, false), "Decoded packed song must match the original");
+    }
+
+    @Test
+    public void testUncompressedPackStreamsTheOriginalPcm() throws UnsupportedAudioFileException, IOException {
+        Path packedPath = new SongPacker(StreamPacing.DEFAULT, false).pack(song);
+
+        assertArrayEquals(readPcm(), readStream(packedPath, false), "Packed song must match the original");
+    }
+
+    @Test
+    public void testSeekUsesTheBlockIndex() throws UnsupportedAudioFileException, IOException {
+        Path packedPath = new SongPacker(StreamPacing.DEFAULT, true).pack(song);
+        PackedSong packedSong = PackedSong.read(packedPath);
+        PackedSongStream songStream = new PackedSongStream(songCache, packedPath.toString(), packedSong,
+                bufferPool, false);
+
+        songStream.seek(10.05);
+
+        assertEquals(100L * packedSong.getBlockFrames() * wavFile.getFormat().getFrameSize(),
+                songStream.getPosition(), "Seek must start from the block containing the position");
+        songStream.close();
+    }
+
+    @Test
+    public void testHugeSeekEndsThePackedStream() throws UnsupportedAudioFileException, IOException {
+        Path packedPath = new SongPacker(StreamPacing.DEFAULT, true).pack(song);
+        PackedSongStream songStream = new PackedSongStream(songCache, packedPath.toString(),
+                PackedSong.read(packedPath), bufferPool, false);
+
+        songStream.seek(1e300);
+
+        assertNull(songStream.nextChunk(), "A huge seek must end the stream instead of restarting it");
+        songStream.close();
+    }
+
+    @Test
+    public void testPackDirectorySkipsUpToDateSongs() throws IOException {
+        SongPacker songPacker = new SongPacker(StreamPacing.DEFAULT, true);
+        Files.writeString(directory.resolve("notes.txt"), "not a song");
+
+        Map<Path, Exception> failures = songPacker.packDirectory(directory);
+
+        assertTrue(songPacker.isUpToDate(song), "The song must be packed");
+        assertEquals(1, failures.size(), "Only files that are not songs must fail");
+        assertTrue(failures.containsKey(directory.resolve("notes.txt")), "Unexpected failed file");
+        assertEquals(1, songPacker.packDirectory(directory).size(), "Packed songs must not be packed again");
+    }
+
+    private byte[] readPcm() throws IOException {
+        byte[] file = Files.readAllBytes(SONG);
+        return Arrays.copyOfRange(file, (int) wavFile.getDataOffset(),
+                (int) (wavFile.getDataOffset() + wavFile.getDataLength()));
+    }
+
+    private byte[] readStream(Path packedPath, boolean isEncodedOutput) throws IOException {
+        PackedSongStream songStream = new PackedSongStream(songCache, packedPath.toString(),
+                PackedSong.read(packedPath), bufferPool, isEncodedOutput);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(output);
+        OutboundMessage chunk;
+        while ((chunk = songStream.nextChunk()) != null) {
+            while (chunk.remaining() > 0) {
+                chunk.writeTo(channel);
+            }
+            chunk.release();
+        }
+        songStream.close();
+        return output.toByteArray();
+    }
+}
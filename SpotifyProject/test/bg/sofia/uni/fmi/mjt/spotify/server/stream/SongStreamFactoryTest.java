@@ -0,0 +1,78 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import bg.sofia.uni.fmi.mjt.spotify.server.output.BufferPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongStreamFactoryTest {
+    private static final Path SONG = Path.of("songRepository", "audio.wav");
+
+    private Path directory;
+    private Path song;
+    private SongStreamFactory songStreamFactory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("songs");
+        song = Files.copy(SONG, directory.resolve("audio.wav"));
+        songStreamFactory = new SongStreamFactory(new SongCache(Long.MAX_VALUE), new BufferPool(4),
+                StreamPacing.DEFAULT);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private Class<?> openType(boolean isCompressed) throws UnsupportedAudioFileException, IOException {
+        SongStream songStream = songStreamFactory.open(song.toString(), isCompressed);
+        songStream.close();
+        return songStream.getClass();
+    }
+
+    @Test
+    public void testPlainClientsStreamTheRawSong() throws UnsupportedAudioFileException, IOException {
+        new SongPacker(StreamPacing.DEFAULT, true).pack(song);
+
+        assertEquals(MappedSongStream.class, openType(false), "Plain clients must not decode the packed song");
+    }
+
+    @Test
+    public void testCompressedClientsPassThePackedSongThrough() throws UnsupportedAudioFileException, IOException {
+        new SongPacker(StreamPacing.DEFAULT, true).pack(song);
+
+        assertEquals(PackedSongStream.class, openType(true), "Compressed clients must get the packed blocks");
+    }
+
+    @Test
+    public void testUncompressedPackIsNotUsed() throws UnsupportedAudioFileException, IOException {
+        new SongPacker(StreamPacing.DEFAULT, false).pack(song);
+
+        assertEquals(CompressedSongStream.class, openType(true), "An uncompressed pack must not be passed through");
+    }
+
+    @Test
+    public void testInvalidateReadsTheRepackedSong() throws UnsupportedAudioFileException, IOException {
+        assertEquals(CompressedSongStream.class, openType(true), "A song without a pack must be encoded on the fly");
+
+        new SongPacker(StreamPacing.DEFAULT, true).pack(song);
+        assertEquals(CompressedSongStream.class, openType(true), "The missing pack must be remembered");
+
+        songStreamFactory.invalidate(song);
+        assertEquals(PackedSongStream.class, openType(true), "An invalidated song must be read again");
+    }
+}
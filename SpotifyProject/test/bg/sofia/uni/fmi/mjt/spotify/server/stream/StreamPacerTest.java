@@ -0,0 +1,43 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamPacerTest {
+    private static final long BYTE_RATE = 32000;
+    private static final long NANOS_IN_SECOND = 1_000_000_000L;
+
+    @Test
+    public void testReadAheadIsSentWithoutDelay() {
+        StreamPacer pacer = new StreamPacer(BYTE_RATE, BYTE_RATE * 2, 0);
+        pacer.onSent(BYTE_RATE * 2);
+
+        assertEquals(0, pacer.getDelayNanos(0), "Read-ahead must not be delayed");
+    }
+
+    @Test
+    public void testChunksAfterReadAheadFollowRealTime() {
+        StreamPacer pacer = new StreamPacer(BYTE_RATE, BYTE_RATE, 0);
+        pacer.onSent(BYTE_RATE + BYTE_RATE / 2);
+
+        assertEquals(NANOS_IN_SECOND / 2, pacer.getDelayNanos(0), "Unexpected delay after read-ahead");
+        assertEquals(0, pacer.getDelayNanos(NANOS_IN_SECOND / 2), "Chunk must be due after half a second");
+    }
+
+    @Test
+    public void testSentNanosFollowTheByteRate() {
+        StreamPacer pacer = new StreamPacer(BYTE_RATE, BYTE_RATE, 0);
+        pacer.onSent(BYTE_RATE * 3 / 2);
+
+        assertEquals(NANOS_IN_SECOND * 3 / 2, pacer.getSentNanos(), "Unexpected duration of the sent audio");
+    }
+
+    @Test
+    public void testUnknownByteRateIsNotPaced() {
+        StreamPacer pacer = new StreamPacer(0, 0, 0);
+        pacer.onSent(NANOS_IN_SECOND);
+
+        assertEquals(0, pacer.getDelayNanos(0), "Streams with unknown byte rate must not be paced");
+    }
+}
@@ -0,0 +1,37 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamPacingTest {
+    private static final AudioFormat STEREO_16_BIT = new AudioFormat(44100, 16, 2, true, false);
+
+    @Test
+    public void testChunkSizeCoversTheChunkDuration() {
+        StreamPacing pacing = new StreamPacing(100, 0);
+
+        assertEquals(17640, pacing.getChunkSize(STEREO_16_BIT), "Unexpected chunk size for 100 ms");
+    }
+
+    @Test
+    public void testChunkSizeIsAlignedToFrames() {
+        StreamPacing pacing = new StreamPacing(1, 0);
+
+        assertEquals(0, pacing.getChunkSize(STEREO_16_BIT) % STEREO_16_BIT.getFrameSize(),
+                "Chunks must not split audio frames");
+    }
+
+    @Test
+    public void testByteRateIsFrameRateTimesFrameSize() {
+        assertEquals(176400, StreamPacing.getByteRate(STEREO_16_BIT), "Unexpected byte rate");
+    }
+
+    @Test
+    public void testInvalidChunkDurationIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new StreamPacing(0, 0),
+                "Chunk duration must be positive");
+    }
+}
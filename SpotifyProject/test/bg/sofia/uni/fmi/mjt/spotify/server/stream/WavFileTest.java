@@ -0,0 +1,49 @@
+package bg.sofia.uni.fmi.mjt.spotify.server.stream;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WavFileTest {
+    private static final Path SONG = Path.of("songRepository", "audio.wav");
+
+    @Test
+    public void testReadFindsDataChunk() throws UnsupportedAudioFileException, IOException {
+        WavFile wavFile = WavFile.read(SONG);
+
+        assertEquals(44, wavFile.getDataOffset(), "Unexpected data chunk offset");
+        assertEquals(1072948, wavFile.getDataLength(), "Unexpected data chunk length");
+    }
+
+    @Test
+    public void testReadMatchesAudioSystemFormat() throws UnsupportedAudioFileException, IOException {
+        WavFile wavFile = WavFile.read(SONG);
+        try (AudioInputStream audioStream = AudioSystem.getAudioInputStream(new File(SONG.toString()))) {
+            AudioFormat expected = audioStream.getFormat();
+
+            assertTrue(expected.matches(wavFile.getFormat()), "Unexpected format of the song");
+            assertEquals(audioStream.getFrameLength(), wavFile.getFrameLength(), "Unexpected frame length");
+        }
+    }
+
+    @Test
+    public void testReadNotWavFile() throws IOException {
+        Path notWav = Files.createTempFile("song", ".wav");
+        try {
+            Files.writeString(notWav, "This is not a song");
+            assertThrows(UnsupportedAudioFileException.class, () -> WavFile.read(notWav),
+                    "Only RIFF WAVE files can be read");
+        } finally {
+            Files.delete(notWav);
+        }
+    }
+}